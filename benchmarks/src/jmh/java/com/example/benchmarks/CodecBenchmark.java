@@ -0,0 +1,73 @@
+package com.example.benchmarks;
+
+import com.example.myspringboot.MyRequestHandler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * serializeObject and deserializeObject with the shared mapper, the "newMapper" benchmarks create an ObjectMapper
+ * for each call like the framework did before the codec registry.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({"10", "1000"})
+    private int size;
+
+    private List<String> response;
+    private byte[] requestBody;
+
+    @Setup
+    public void setup() throws IOException {
+        response = new ArrayList<>();
+        Map<String, String> body = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            response.add("value" + i + ":processed");
+            body.put("key" + i, "value" + i);
+        }
+        requestBody = MyRequestHandler.serializeObject(body).getBytes();
+    }
+
+    @Benchmark
+    public String serializeObject() throws IOException {
+        return MyRequestHandler.serializeObject(response);
+    }
+
+    @Benchmark
+    public Map<?, ?> deserializeObject() throws IOException {
+        return MyRequestHandler.deserializeObject(new ByteArrayInputStream(requestBody), Map.class);
+    }
+
+    @Benchmark
+    public String serializeNewMapper() throws IOException {
+        return new ObjectMapper().writeValueAsString(response);
+    }
+
+    @Benchmark
+    public Map<?, ?> deserializeNewMapper() throws IOException {
+        return new ObjectMapper().readValue(new String(requestBody), Map.class);
+    }
+}
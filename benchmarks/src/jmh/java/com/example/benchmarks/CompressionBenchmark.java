@@ -0,0 +1,71 @@
+package com.example.benchmarks;
+
+import com.example.codec.CodecRegistry;
+import com.example.compression.ResponseCompression;
+import com.example.enums.ContentEncoding;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip of the serialized List&lt;String&gt; returned by TestController.getRequest, with the Deflaters reused by the
+ * thread (ResponseCompression) and with a new GZIPOutputStream, and so a new Deflater, for each body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int size;
+
+    private ResponseCompression compression;
+    private byte[] body;
+
+    @Setup
+    public void setup() throws IOException {
+        compression = new ResponseCompression(true, 0, 6);
+
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            values.add("value" + i + ":processed");
+        }
+        body = CodecRegistry.getDefault().writerFor(new TypeReference<List<String>>() {}.getType()).writeValueAsBytes(values);
+
+        System.err.println("body bytes: " + body.length + " gzip bytes: "
+                + compression.compress(body, 0, body.length, ContentEncoding.GZIP).length);
+    }
+
+    @Benchmark
+    public byte[] pooledDeflater() {
+        return compression.compress(body, 0, body.length, ContentEncoding.GZIP);
+    }
+
+    @Benchmark
+    public byte[] newDeflater() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.benchmarks;
+
+import com.example.demo.controller.TestController;
+import com.example.myspringboot.SpringApplication;
+import com.example.server.MyHttpServer;
+import com.example.server.ServerExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loopback requests against MyHttpServer with the TestController routes, for each server engine and executor mode.
+ * "none" is the default of the engine: the single dispatcher thread for the JDK engine and one thread per processor
+ * for the nio engine. The HttpClient keeps the connections alive, so both engines are compared with keep-alive.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class EndToEndBenchmark {
+
+    @Param({"jdk", "nio"})
+    private String engine;
+
+    @Param({"none", "fixed", "work-stealing", "virtual"})
+    private String executorMode;
+
+    private MyHttpServer server;
+    private HttpClient client;
+    private HttpRequest getRequest;
+    private HttpRequest postRequest;
+
+    @Setup
+    public void setup() throws IOException {
+        Benchmarks.silenceStdout();
+
+        server = new MyHttpServer(0, engine, 1024, 16 * 1024);
+        if (!executorMode.equals("none")) {
+            server.setExecutor(ServerExecutor.create(executorMode, 0, 10_000));
+        }
+        SpringApplication.extractHttpHandlers(server, Set.of(TestController.class));
+        server.startServer();
+
+        String baseUrl = "http://localhost:" + server.getPort() + "/v1/users";
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        getRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/get")).GET().build();
+        postRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/post?intParam=42&testParam=hello"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"first\":\"value1\",\"second\":\"value2\"}"))
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stopServer();
+    }
+
+    @Benchmark
+    public String get() throws Exception {
+        return client.send(getRequest, HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    @Benchmark
+    public String post() throws Exception {
+        return client.send(postRequest, HttpResponse.BodyHandlers.ofString()).body();
+    }
+}
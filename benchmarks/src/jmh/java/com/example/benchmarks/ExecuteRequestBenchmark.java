@@ -0,0 +1,84 @@
+package com.example.benchmarks;
+
+import com.example.enums.ClassScope;
+import com.example.myspringboot.InstanceProvider;
+import com.example.myspringboot.MethodInvoker;
+import com.example.myspringboot.MyRequestHandler;
+import com.example.myspringboot.ParameterBinder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MyRequestHandler.executeRequest for each controller scope, with 4 threads so the pooled scope is measured under
+ * contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class ExecuteRequestBenchmark {
+
+    @Param({ClassScope.SINGLETON, ClassScope.REQUEST, ClassScope.POOLED})
+    private String scope;
+
+    private MyRequestHandler handler;
+    private Object[] args;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        Class<?> controller;
+        switch (scope) {
+            case ClassScope.REQUEST:
+                controller = RequestController.class;
+                break;
+            case ClassScope.POOLED:
+                controller = PooledController.class;
+                break;
+            default:
+                controller = SingletonController.class;
+        }
+
+        Method method = controller.getMethod("sum", int.class, int.class);
+        handler = new MyRequestHandler(InstanceProvider.forClass(controller), MethodInvoker.compile(method),
+                ParameterBinder.resolve(method), "GET");
+        args = new Object[]{20, 22};
+    }
+
+    @Benchmark
+    public Object executeRequest() throws Exception {
+        return handler.executeRequest(args);
+    }
+
+    public static class SingletonController {
+
+        private final int[] state = new int[64];
+
+        public int sum(int first, int second) {
+            return first + second + state.length;
+        }
+    }
+
+    @com.example.myspringannotations.Scope(ClassScope.REQUEST)
+    public static class RequestController extends SingletonController {
+    }
+
+    @com.example.myspringannotations.Scope(value = ClassScope.POOLED, max = 8)
+    public static class PooledController extends SingletonController {
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.benchmarks;
+
+import com.example.codec.ContentCodecs;
+import com.example.codec.CodecRegistry;
+import com.example.demo.model.User;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same payloads written and read with each format of ContentCodecs, selected with the Accept / Content-Type
+ * header of the requests. The payload sizes are printed in the setup, so CPU and bytes on the wire can be compared.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatBenchmark {
+
+    @Param({"application/json", "application/x-jackson-smile", "application/cbor"})
+    private String mediaType;
+
+    private ObjectWriter usersWriter;
+    private ObjectReader usersReader;
+    private ObjectWriter valuesWriter;
+    private ObjectReader valuesReader;
+    private User[] users;
+    private List<String> values;
+    private byte[] usersBytes;
+    private byte[] valuesBytes;
+
+    @Setup
+    public void setup() throws IOException {
+        ContentCodecs codecs = ContentCodecs.getDefault();
+        CodecRegistry registry = codecs.getRegistry(codecs.forContentType(mediaType));
+
+        usersWriter = registry.writerFor(User[].class);
+        usersReader = registry.readerFor(User[].class);
+        valuesWriter = registry.writerFor(new TypeReference<List<String>>() {}.getType());
+        valuesReader = registry.readerFor(new TypeReference<List<String>>() {}.getType());
+
+        users = new User[100];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = new User(i, "user" + i, "user" + i + "@example.com", i % 2 == 0, i * 1.5, List.of("user"));
+        }
+        values = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            values.add("value" + i + ":processed");
+        }
+        usersBytes = usersWriter.writeValueAsBytes(users);
+        valuesBytes = valuesWriter.writeValueAsBytes(values);
+
+        System.err.println(mediaType + " payload bytes: users=" + usersBytes.length + " values=" + valuesBytes.length);
+    }
+
+    @Benchmark
+    public byte[] serializeUsers() throws IOException {
+        return usersWriter.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public User[] deserializeUsers() throws IOException {
+        return usersReader.readValue(usersBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeValues() throws IOException {
+        return valuesWriter.writeValueAsBytes(values);
+    }
+
+    @Benchmark
+    public List<String> deserializeValues() throws IOException {
+        return valuesReader.readValue(valuesBytes);
+    }
+}
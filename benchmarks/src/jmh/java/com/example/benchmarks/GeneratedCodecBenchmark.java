@@ -0,0 +1,89 @@
+package com.example.benchmarks;
+
+import com.example.codec.CodecRegistry;
+import com.example.codec.GeneratedCodecs;
+import com.example.demo.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The demo User DTO written and read with the plain ObjectMapper ("reflective") and with the codecs generated by
+ * the CodecProcessor ("generated"), on the same payloads. The demo app is compiled with the codecs enabled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratedCodecBenchmark {
+
+    @Param({"reflective", "generated"})
+    private String codec;
+
+    private ObjectWriter userWriter;
+    private ObjectReader userReader;
+    private ObjectWriter usersWriter;
+    private ObjectReader usersReader;
+    private User user;
+    private User[] users;
+    private byte[] userBytes;
+    private byte[] usersBytes;
+
+    @Setup
+    public void setup() throws IOException {
+        CodecRegistry registry = new CodecRegistry(new ObjectMapper());
+        if (codec.equals("generated") && GeneratedCodecs.register(registry, User.class.getClassLoader()) == 0) {
+            throw new IllegalStateException("The demo app was compiled without generated codecs");
+        }
+
+        userWriter = registry.writerFor(User.class);
+        userReader = registry.readerFor(User.class);
+        usersWriter = registry.writerFor(User[].class);
+        usersReader = registry.readerFor(User[].class);
+
+        user = new User(42, "Ada Lovelace", "ada@example.com", true, 97.5, List.of("admin", "user"));
+        users = new User[100];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = new User(i, "user" + i, "user" + i + "@example.com", i % 2 == 0, i * 1.5, List.of("user"));
+        }
+        userBytes = userWriter.writeValueAsBytes(user);
+        usersBytes = usersWriter.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public byte[] serializeUser() throws IOException {
+        return userWriter.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public User deserializeUser() throws IOException {
+        return userReader.readValue(userBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeUsers() throws IOException {
+        return usersWriter.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public User[] deserializeUsers() throws IOException {
+        return usersReader.readValue(usersBytes);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.benchmarks;
+
+import com.example.demo.controller.TestController;
+import com.example.myspringboot.MethodInvoker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Invocation of TestController.getRequest: reflective Method.invoke (previous request path) against the precompiled
+ * MethodInvoker.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvokerBenchmark {
+
+    private TestController controller;
+    private Method method;
+    private MethodInvoker invoker;
+    private Object[] args;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        Benchmarks.silenceStdout();
+
+        controller = new TestController();
+        method = TestController.class.getMethod("getRequest", int.class, String.class, Map.class);
+        invoker = MethodInvoker.compile(method);
+        args = new Object[]{1, "value", Map.of("key", "value")};
+    }
+
+    @Benchmark
+    public Object reflectiveInvoke() throws Exception {
+        return method.invoke(controller, args);
+    }
+
+    @Benchmark
+    public Object precompiledInvoker() throws Exception {
+        return invoker.invoke(controller, args);
+    }
+}
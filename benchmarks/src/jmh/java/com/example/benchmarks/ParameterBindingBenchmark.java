@@ -0,0 +1,81 @@
+package com.example.benchmarks;
+
+import com.example.demo.controller.TestController;
+import com.example.myspringannotations.RequestBody;
+import com.example.myspringannotations.RequestParam;
+import com.example.myspringboot.ParameterBinder;
+import com.example.server.PathVariables;
+import com.example.server.QueryParams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parameter binding of TestController.getRequest, the same work done by MyRequestHandler.handleRequestParams:
+ * query string parsing, @RequestParam conversion and @RequestBody deserialization.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParameterBindingBenchmark {
+
+    private static final String URI = "/v1/users/post?intParam=42&testParam=hello%20world";
+
+    private Method method;
+    private ParameterBinder[] binders;
+    private BenchmarkExchange exchange;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        method = TestController.class.getMethod("getRequest", int.class, String.class, Map.class);
+        binders = ParameterBinder.resolve(method);
+        exchange = new BenchmarkExchange("POST", URI,
+                "{\"first\":\"value1\",\"second\":\"value2\"}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public Object[] bindParams() throws IOException {
+        exchange.reset();
+        QueryParams requestParams = QueryParams.parse(exchange.getRequestURI().getRawQuery());
+
+        Object[] values = new Object[binders.length];
+        for (int index = 0; index < binders.length; index++) {
+            values[index] = binders[index].bind(exchange, requestParams, PathVariables.EMPTY);
+        }
+        return values;
+    }
+
+    @Benchmark
+    public QueryParams parseQuery() {
+        return QueryParams.parse(exchange.getRequestURI().getRawQuery());
+    }
+
+    /**
+     * Annotation lookups that were done for each request before the binders were resolved at startup.
+     */
+    @Benchmark
+    public void annotationLookups(Blackhole blackhole) {
+        for (Parameter param : method.getParameters()) {
+            blackhole.consume(param.getAnnotation(RequestParam.class));
+            blackhole.consume(param.getAnnotation(RequestBody.class));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.benchmarks;
+
+import com.example.server.PathVariables;
+import com.example.server.RouteTrie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Route lookup in the routing trie, with up to 10k registered routes. Half of the routes are literal paths and the
+ * other half contain a path variable.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteLookupBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int routes;
+
+    private RouteTrie trie;
+    private int[] offsets;
+    private String literalPath;
+    private String variablePath;
+    private String missingPath;
+
+    @Setup
+    public void setup() {
+        trie = new RouteTrie();
+        offsets = new int[RouteTrie.MAX_PATH_VARIABLES * 2];
+
+        for (int i = 0; i < routes / 2; i++) {
+            trie.addRoute("GET", "/api/v1/service" + i + "/items", (exchange, pathVariables) -> { });
+            trie.addRoute("GET", "/api/v1/service" + i + "/items/{id}", (exchange, pathVariables) -> { });
+        }
+
+        int last = Math.max(0, routes / 2 - 1);
+        literalPath = "/api/v1/service" + last + "/items";
+        variablePath = "/api/v1/service" + last + "/items/12345";
+        missingPath = "/api/v1/service" + last + "/unknown";
+    }
+
+    @Benchmark
+    public RouteTrie.Node literalRoute() {
+        return trie.find(literalPath, offsets);
+    }
+
+    @Benchmark
+    public PathVariables variableRoute() {
+        RouteTrie.Node node = trie.find(variablePath, offsets);
+        return node.getRoute("GET").pathVariables(variablePath, offsets);
+    }
+
+    @Benchmark
+    public RouteTrie.Node missingRoute() {
+        return trie.find(missingPath, offsets);
+    }
+}
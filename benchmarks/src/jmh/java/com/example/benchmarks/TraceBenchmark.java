@@ -0,0 +1,68 @@
+package com.example.benchmarks;
+
+import com.example.demo.controller.TestController;
+import com.example.myspringboot.InstanceProvider;
+import com.example.myspringboot.MethodInvoker;
+import com.example.myspringboot.MyRequestHandler;
+import com.example.myspringboot.ParameterBinder;
+import com.example.trace.TraceRecorder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the trace mode on a whole request of TestController.getRequest: no sampling, 1% of the requests and
+ * every request traced, each traced request reads the allocation counter of the thread once per phase.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TraceBenchmark {
+
+    @Param({"0", "0.01", "1"})
+    private String sampleRate;
+
+    private MyRequestHandler handler;
+    private BenchmarkExchange exchange;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        TraceRecorder.setDefault(new TraceRecorder(Double.parseDouble(sampleRate), 1024, false));
+
+        Method method = TestController.class.getMethod("getRequest", int.class, String.class, Map.class);
+        handler = new MyRequestHandler(InstanceProvider.forClass(TestController.class), MethodInvoker.compile(method),
+                ParameterBinder.resolve(method), "POST");
+        handler.setRequestPath("/v1/users/post");
+        exchange = new BenchmarkExchange("POST", "/v1/users/post?intParam=42&testParam=hello",
+                "{\"first\":\"value1\",\"second\":\"value2\"}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TearDown
+    public void tearDown() {
+        TraceRecorder.setDefault(new TraceRecorder(0, 1024, false));
+    }
+
+    @Benchmark
+    public int handle() throws IOException {
+        handler.handle(exchange.reset());
+        return exchange.getResponseCode();
+    }
+}
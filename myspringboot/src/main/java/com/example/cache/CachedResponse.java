@@ -0,0 +1,97 @@
+package com.example.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Serialized response stored in a ResponseCache, with its ETag computed once when it is stored.
+ *
+ * The compressed variants of the body are stored with it, each variant has its own ETag (the ETag of the body with
+ * the encoding as suffix) because a strong validator must be different for each content encoding.
+ */
+public final class CachedResponse {
+
+    private final byte[] body;
+    private final String etag;
+    private final Map<String, byte[]> encodedBodies;
+    private final Map<String, String> encodedEtags;
+    private final long size;
+    private final long expiresAt;
+
+    CachedResponse(byte[] body, Map<String, byte[]> encodedBodies, long expiresAt) {
+        this.body = body;
+        this.encodedBodies = encodedBodies;
+        this.expiresAt = expiresAt;
+
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        String tag = Integer.toHexString(body.length) + "-" + Long.toHexString(crc.getValue());
+        this.etag = "\"" + tag + "\"";
+
+        long size = body.length;
+        this.encodedEtags = new HashMap<>(4);
+        for (Map.Entry<String, byte[]> variant : encodedBodies.entrySet()) {
+            encodedEtags.put(variant.getKey(), "\"" + tag + "-" + variant.getKey() + "\"");
+            size += variant.getValue().length;
+        }
+        this.size = size;
+    }
+
+    /**
+     * Check an If-None-Match header against the ETag of the response, weak validators (W/) are compared by
+     * their value as the header is only used for GET requests.
+     *
+     * @param ifNoneMatch value of the If-None-Match header, it can be null.
+     * @param encoding content encoding of the response, null for the body without compression.
+     * @return true when the client already has this response.
+     */
+    public boolean matches(String ifNoneMatch, String encoding) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        String etag = getEtag(encoding);
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean isExpired(long now) {
+        return expiresAt != 0 && now - expiresAt >= 0;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * @param encoding content encoding, null for the body without compression.
+     * @return the body with the encoding, or null when that variant is not stored.
+     */
+    public byte[] getBody(String encoding) {
+        return encoding == null ? body : encodedBodies.get(encoding);
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public String getEtag(String encoding) {
+        return encoding == null ? etag : encodedEtags.get(encoding);
+    }
+
+    /**
+     * @return size in bytes of the body and its compressed variants.
+     */
+    public long getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of serialized responses of one endpoint.
+ *
+ * The entries are split in segments by the hash of the key, each segment is an LRU map with its own lock, so
+ * requests with different keys rarely wait for each other. Each segment keeps a share of the max entries and
+ * max bytes, when a new response does not fit the least recently used responses of its segment are evicted.
+ * Expired responses are removed when they are read.
+ */
+public class ResponseCache {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final long ttlNanos;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param ttlSeconds seconds that a response stays in the cache, 0 means until it is evicted.
+     * @param maxEntries max responses in the cache.
+     * @param maxBytes max size in bytes of all the responses.
+     */
+    public ResponseCache(long ttlSeconds, int maxEntries, long maxBytes) {
+        if (ttlSeconds < 0 || maxEntries <= 0 || maxBytes <= 0) {
+            throw new RuntimeException("Invalid cache configuration, ttl: " + ttlSeconds + " maxEntries: " + maxEntries
+                    + " maxBytes: " + maxBytes);
+        }
+
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        // power of two, so the segment is selected with a mask, and at least one entry per segment
+        int segmentCount = Math.min(MAX_SEGMENTS, Integer.highestOneBit(maxEntries));
+        this.segments = new Segment[segmentCount];
+        for (int index = 0; index < segmentCount; index++) {
+            segments[index] = new Segment((maxEntries + segmentCount - 1) / segmentCount,
+                    (maxBytes + segmentCount - 1) / segmentCount);
+        }
+    }
+
+    /**
+     * @param key normalized request params.
+     * @return cached response, or null when it is not cached or it expired.
+     */
+    public CachedResponse get(Object key) {
+        Segment segment = segmentFor(key);
+        CachedResponse response;
+        synchronized (segment) {
+            response = segment.get(key);
+            if (response != null && response.isExpired(System.nanoTime())) {
+                segment.remove(key);
+                response = null;
+            }
+        }
+
+        if (response == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return response;
+    }
+
+    /**
+     * Store a serialized response, a response bigger than the space of its segment is returned but not stored.
+     *
+     * @param key normalized request params.
+     * @param body serialized response.
+     * @return the cached response with its ETag.
+     */
+    public CachedResponse put(Object key, byte[] body) {
+        return put(key, body, Map.of());
+    }
+
+    /**
+     * Same as {@link #put(Object, byte[])} with the compressed variants of the body, they count in the max bytes.
+     *
+     * @param key normalized request params.
+     * @param body serialized response.
+     * @param encodedBodies compressed bodies by content encoding.
+     * @return the cached response with its ETags.
+     */
+    public CachedResponse put(Object key, byte[] body, Map<String, byte[]> encodedBodies) {
+        // an expiration of 0 means no expiration, so the lowest bit of a real expiration is always set
+        CachedResponse response = new CachedResponse(body, encodedBodies,
+                ttlNanos == 0 ? 0 : (System.nanoTime() + ttlNanos) | 1);
+        Segment segment = segmentFor(key);
+
+        synchronized (segment) {
+            if (response.getSize() <= segment.maxBytes) {
+                segment.add(key, response);
+            }
+        }
+        return response;
+    }
+
+    private Segment segmentFor(Object key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRatio() {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public long getBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                bytes += segment.bytes;
+            }
+        }
+        return bytes;
+    }
+
+    public int getSize() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * LRU map in access order, it is only used while holding its lock.
+     */
+    private final class Segment extends LinkedHashMap<Object, CachedResponse> {
+
+        private final int maxEntries;
+        private final long maxBytes;
+        private long bytes;
+
+        Segment(int maxEntries, long maxBytes) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+            this.maxBytes = maxBytes;
+        }
+
+        void add(Object key, CachedResponse response) {
+            CachedResponse previous = put(key, response);
+            if (previous != null) {
+                bytes -= previous.getSize();
+            }
+            bytes += response.getSize();
+
+            // the iteration starts with the least recently used response
+            Iterator<Map.Entry<Object, CachedResponse>> eldest = entrySet().iterator();
+            while ((size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+                CachedResponse evicted = eldest.next().getValue();
+                eldest.remove();
+                bytes -= evicted.getSize();
+                evictions.increment();
+            }
+        }
+
+        @Override
+        public CachedResponse remove(Object key) {
+            CachedResponse removed = super.remove(key);
+            if (removed != null) {
+                bytes -= removed.getSize();
+            }
+            return removed;
+        }
+    }
+}
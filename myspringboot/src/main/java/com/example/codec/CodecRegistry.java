@@ -0,0 +1,117 @@
+package com.example.codec;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Framework codec registry, it holds the single configured ObjectMapper of the app and caches one ObjectReader
+ * and ObjectWriter per type.
+ *
+ * Handlers resolve their readers and writers when they are created, in that way Jackson keeps its serializer and
+ * deserializer caches between requests. The hit/miss counters can be used to confirm that nothing is resolved
+ * again once the app is running: after startup only the hits should grow.
+ */
+public class CodecRegistry {
+
+    private static final CodecRegistry DEFAULT = new CodecRegistry(new ObjectMapper());
+
+    private final ObjectMapper objectMapper;
+    private final Map<Type, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<Type, ObjectWriter> writers = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CodecRegistry(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public static CodecRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Get the reader for a type, generic types like List&lt;String&gt; keep their type params.
+     *
+     * @param type param type, usually Parameter.getParameterizedType().
+     * @return cached reader.
+     */
+    public ObjectReader readerFor(Type type) {
+        ObjectReader reader = readers.get(type);
+        if (reader != null) {
+            hits.increment();
+            return reader;
+        }
+
+        misses.increment();
+        return readers.computeIfAbsent(type, key -> objectMapper.readerFor(constructType(key)));
+    }
+
+    /**
+     * Get the writer for a declared return type. Types that can be subclassed are written with an untyped writer,
+     * that way the runtime type of the response is serialized and not only the fields of the declared type.
+     *
+     * @param type method return type, usually Method.getGenericReturnType().
+     * @return cached writer.
+     */
+    public ObjectWriter writerFor(Type type) {
+        ObjectWriter writer = writers.get(type);
+        if (writer != null) {
+            hits.increment();
+            return writer;
+        }
+
+        misses.increment();
+        return writers.computeIfAbsent(type, key -> {
+            JavaType javaType = constructType(key);
+            return isStaticType(javaType) ? objectMapper.writerFor(javaType) : objectMapper.writer();
+        });
+    }
+
+    /**
+     * Register a Jackson module in the mapper, like the generated codecs. It must be called before the handlers are
+     * created: readers and writers resolved before keep the previous configuration, so the cached ones are dropped.
+     *
+     * @param module Jackson module.
+     */
+    public void registerModule(Module module) {
+        objectMapper.registerModule(module);
+        readers.clear();
+        writers.clear();
+    }
+
+    private JavaType constructType(Type type) {
+        return objectMapper.getTypeFactory().constructType(type);
+    }
+
+    private static boolean isStaticType(JavaType javaType) {
+        Class<?> rawClass = javaType.getRawClass();
+
+        return rawClass.isPrimitive()
+                || rawClass.isArray()
+                || Modifier.isFinal(rawClass.getModifiers())
+                || Collection.class.isAssignableFrom(rawClass)
+                || Map.class.isAssignableFrom(rawClass);
+    }
+
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+}
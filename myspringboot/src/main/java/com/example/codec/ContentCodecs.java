@@ -0,0 +1,169 @@
+package com.example.codec;
+
+import com.example.util.Constants;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Codecs of the app by media type, used for content negotiation: the Accept header selects the format of the
+ * response and the Content-Type header the format of the request body.
+ *
+ * Each format has its own CodecRegistry, the handlers resolve one reader or writer per format when they are created
+ * and select one of them by index for each request. JSON is always the codec 0 and it is used when the request has
+ * no Accept or Content-Type header. A request that only accepts formats that are not registered receives a 406, and
+ * a request body of a media type that is not registered a 415. By default JSON, Smile and CBOR are registered, other
+ * Jackson formats can be added with {@link #register(String, CodecRegistry)} before the handlers are created.
+ */
+public class ContentCodecs {
+
+    public static final int JSON = 0;
+    // no registered format is accepted by the request, or its body has a media type that is not registered
+    public static final int UNSUPPORTED = -1;
+
+    private static final ContentCodecs DEFAULT = new ContentCodecs(CodecRegistry.getDefault());
+
+    private final List<String> mediaTypes = new ArrayList<>();
+    private final List<CodecRegistry> registries = new ArrayList<>();
+
+    public ContentCodecs(CodecRegistry jsonRegistry) {
+        register(Constants.APP_JSON, jsonRegistry);
+        register(Constants.APP_SMILE, new CodecRegistry(new ObjectMapper(new SmileFactory())));
+        register(Constants.APP_CBOR, new CodecRegistry(new ObjectMapper(new CBORFactory())));
+    }
+
+    public static ContentCodecs getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Add a format, or replace the registry of a registered media type.
+     *
+     * @param mediaType media type of the format, like application/cbor.
+     * @param registry codec registry with a mapper of the format.
+     */
+    public void register(String mediaType, CodecRegistry registry) {
+        int codec = mediaTypes.indexOf(mediaType);
+        if (codec >= 0) {
+            registries.set(codec, registry);
+        } else {
+            mediaTypes.add(mediaType);
+            registries.add(registry);
+        }
+    }
+
+    /**
+     * Select the format of the response with the Accept header. Each registered format takes the quality of the most
+     * specific media range that matches it (application/cbor, then application/*, then *&#47;*), the format with the
+     * highest quality is used and on a tie the first registered one, so "*&#47;*" selects JSON. A format with q=0 is
+     * refused: "application/json;q=0, *&#47;*" selects Smile.
+     *
+     * @param accept Accept header of the request, it can be null.
+     * @return codec index, or UNSUPPORTED when no registered format is acceptable.
+     */
+    public int forAccept(String accept) {
+        if (accept == null || accept.isEmpty()) {
+            return JSON;
+        }
+
+        String[] ranges = accept.split(Constants.COMMA);
+        double[] qualities = new double[ranges.length];
+        for (int index = 0; index < ranges.length; index++) {
+            int params = ranges[index].indexOf(';');
+            qualities[index] = params >= 0 ? quality(ranges[index].substring(params + 1)) : 1;
+            ranges[index] = (params >= 0 ? ranges[index].substring(0, params) : ranges[index]).trim();
+        }
+
+        int selected = UNSUPPORTED;
+        double selectedQuality = 0;
+        for (int codec = 0; codec < mediaTypes.size(); codec++) {
+            double quality = quality(mediaTypes.get(codec), ranges, qualities);
+            if (quality > selectedQuality) {
+                selected = codec;
+                selectedQuality = quality;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * @return quality of the most specific range that matches the media type, 0 when no range matches it.
+     */
+    private static double quality(String mediaType, String[] ranges, double[] qualities) {
+        int matched = -1;
+        double quality = 0;
+        for (int index = 0; index < ranges.length; index++) {
+            int specificity = specificity(mediaType, ranges[index]);
+            if (specificity > matched) {
+                matched = specificity;
+                quality = qualities[index];
+            }
+        }
+        return quality;
+    }
+
+    /**
+     * @return 2 when the range is the media type, 1 for its type/*, 0 for *&#47;* and -1 when the range does not match.
+     */
+    private static int specificity(String mediaType, String range) {
+        if (range.equalsIgnoreCase(mediaType)) {
+            return 2;
+        } else if (range.equals("*/*")) {
+            return 0;
+        } else if (range.endsWith("/*") && mediaType.regionMatches(true, 0, range, 0, range.length() - 1)) {
+            return 1;
+        }
+        return -1;
+    }
+
+    private static double quality(String params) {
+        for (String param : params.split(";")) {
+            param = param.trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2));
+                } catch (NumberFormatException e) {
+                    return 1;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Select the format of a request body, the params of the media type, like charset, are ignored. A body without
+     * Content-Type is read as JSON.
+     *
+     * @param contentType Content-Type header of the request, it can be null.
+     * @return codec index, or UNSUPPORTED when the media type is not registered.
+     */
+    public int forContentType(String contentType) {
+        if (contentType == null) {
+            return JSON;
+        }
+
+        int params = contentType.indexOf(';');
+        String mediaType = (params >= 0 ? contentType.substring(0, params) : contentType).trim();
+        for (int codec = 0; codec < mediaTypes.size(); codec++) {
+            if (mediaTypes.get(codec).equalsIgnoreCase(mediaType)) {
+                return codec;
+            }
+        }
+        return UNSUPPORTED;
+    }
+
+    public int size() {
+        return mediaTypes.size();
+    }
+
+    public String getMediaType(int codec) {
+        return mediaTypes.get(codec);
+    }
+
+    public CodecRegistry getRegistry(int codec) {
+        return registries.get(codec);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.codec;
+
+import com.example.util.Constants;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+/**
+ * Loads the JSON codecs generated at compile time by the CodecProcessor, they are listed in
+ * {@value Constants#CODEC_INDEX}. Every jar can contain its own index, all of them are loaded.
+ */
+public final class GeneratedCodecs {
+
+    private static final String MODULE_NAME = "myspringboot-generated-codecs";
+    private static final String SERIALIZER = "$Serializer";
+    private static final String DESERIALIZER = "$Deserializer";
+
+    private GeneratedCodecs() {
+    }
+
+    /**
+     * Register the generated codecs in the registry, an app compiled without the option has no index and nothing
+     * is registered.
+     *
+     * @param registry codec registry of the app.
+     * @param classLoader class loader of the app.
+     * @return number of types with a generated codec.
+     */
+    public static int register(CodecRegistry registry, ClassLoader classLoader) {
+        SimpleModule module = new SimpleModule(MODULE_NAME);
+        int count = 0;
+
+        try {
+            for (URL resource : Collections.list(classLoader.getResources(Constants.CODEC_INDEX))) {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.openStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        String[] columns = line.split(Constants.TAB);
+                        if (columns.length == 2) {
+                            addCodec(module, classLoader, columns[0], columns[1]);
+                            count++;
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error while reading codec index: " + e);
+        }
+
+        if (count > 0) {
+            registry.registerModule(module);
+        }
+        return count;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void addCodec(SimpleModule module, ClassLoader classLoader, String typeName, String codecName) {
+        try {
+            Class type = Class.forName(typeName, false, classLoader);
+            JsonSerializer serializer = (JsonSerializer) Class.forName(codecName + SERIALIZER, true, classLoader)
+                    .getConstructor().newInstance();
+            JsonDeserializer deserializer = (JsonDeserializer) Class.forName(codecName + DESERIALIZER, true, classLoader)
+                    .getConstructor().newInstance();
+
+            module.addSerializer(type, serializer);
+            module.addDeserializer(type, deserializer);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Error while loading generated codec: " + codecName + " : " + e);
+        }
+    }
+}
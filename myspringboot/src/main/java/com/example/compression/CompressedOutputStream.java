@@ -0,0 +1,106 @@
+package com.example.compression;
+
+import com.example.enums.ContentEncoding;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Output stream that compresses with gzip or deflate into another stream, using a Deflater of the DeflaterPool.
+ *
+ * GZIPOutputStream and DeflaterOutputStream always create their own Deflater, so the gzip header and trailer are
+ * written here around the raw deflate data. Closing the stream finishes the compressed data, returns the Deflater
+ * to the pool and closes the target stream.
+ */
+public final class CompressedOutputStream extends OutputStream {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+    // the buffer is written to the target before deflate returns, so the streams of a thread can share it
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+    // magic number, deflate method, no flags, no modification time, no extra flags, unknown OS
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final OutputStream out;
+    private final boolean gzip;
+    private final Deflater deflater;
+    private final CRC32 crc;
+    private boolean closed;
+
+    /**
+     * @param out target stream.
+     * @param encoding ContentEncoding.GZIP or ContentEncoding.DEFLATE.
+     * @param level compression level.
+     */
+    public CompressedOutputStream(OutputStream out, String encoding, int level) throws IOException {
+        this.out = out;
+        this.gzip = ContentEncoding.GZIP.equals(encoding);
+        this.deflater = DeflaterPool.acquire(level, gzip);
+        this.crc = gzip ? new CRC32() : null;
+
+        if (gzip) {
+            out.write(GZIP_HEADER);
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (gzip) {
+            crc.update(bytes, offset, length);
+        }
+
+        deflater.setInput(bytes, offset, length);
+        while (!deflater.needsInput()) {
+            deflate();
+        }
+    }
+
+    private void deflate() throws IOException {
+        byte[] buffer = BUFFERS.get();
+        int length = deflater.deflate(buffer, 0, buffer.length, Deflater.NO_FLUSH);
+        if (length > 0) {
+            out.write(buffer, 0, length);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflate();
+            }
+            if (gzip) {
+                writeInt((int) crc.getValue());
+                writeInt((int) deflater.getBytesRead());
+            }
+        } finally {
+            DeflaterPool.release(deflater, gzip);
+        }
+        out.close();
+    }
+
+    /**
+     * Little endian int of the gzip trailer.
+     */
+    private void writeInt(int value) throws IOException {
+        out.write(value & 0xff);
+        out.write((value >>> 8) & 0xff);
+        out.write((value >>> 16) & 0xff);
+        out.write((value >>> 24) & 0xff);
+    }
+}
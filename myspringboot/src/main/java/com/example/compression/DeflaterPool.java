@@ -0,0 +1,50 @@
+package com.example.compression;
+
+import java.util.zip.Deflater;
+
+/**
+ * Deflaters reused by the thread that compresses the response, a Deflater keeps native memory so creating one per
+ * request is expensive. Each thread keeps one Deflater for gzip (raw deflate data) and one for deflate (zlib data).
+ *
+ * A Deflater is taken out of its slot while it is used, so a compression started while another one is running in
+ * the same thread gets its own Deflater and never shares the state of the first one.
+ */
+final class DeflaterPool {
+
+    private static final ThreadLocal<Deflater[]> DEFLATERS = ThreadLocal.withInitial(() -> new Deflater[2]);
+
+    private DeflaterPool() {
+    }
+
+    /**
+     * @param level compression level.
+     * @param nowrap true for the raw deflate data of gzip, false for the zlib data of deflate.
+     * @return a Deflater ready to compress a new body.
+     */
+    static Deflater acquire(int level, boolean nowrap) {
+        Deflater[] slots = DEFLATERS.get();
+        int slot = nowrap ? 1 : 0;
+        Deflater deflater = slots[slot];
+        if (deflater == null) {
+            return new Deflater(level, nowrap);
+        }
+
+        slots[slot] = null;
+        deflater.setLevel(level);
+        return deflater;
+    }
+
+    /**
+     * Return a Deflater to the slot of the thread, when the slot is already taken the Deflater is released.
+     */
+    static void release(Deflater deflater, boolean nowrap) {
+        Deflater[] slots = DEFLATERS.get();
+        int slot = nowrap ? 1 : 0;
+        if (slots[slot] == null) {
+            deflater.reset();
+            slots[slot] = deflater;
+        } else {
+            deflater.end();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.compression;
+
+import com.example.enums.ContentEncoding;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compression of the response bodies with gzip or deflate, selected with the Accept-Encoding header.
+ *
+ * Bodies smaller than the min size are sent as they are, for them the compressed headers and the CPU time cost
+ * more than the bytes saved. The Deflaters are reused by each thread, see DeflaterPool. The default configuration
+ * is disabled, it is replaced at startup with the values of the @Compression annotation of the main class.
+ */
+public class ResponseCompression {
+
+    private static volatile ResponseCompression defaultCompression = new ResponseCompression(false, 1024, 6);
+
+    private final boolean enabled;
+    private final int minSize;
+    private final int level;
+
+    /**
+     * @param enabled false sends every body without compression.
+     * @param minSize min size in bytes of a body to be compressed.
+     * @param level compression level from 1 to 9.
+     */
+    public ResponseCompression(boolean enabled, int minSize, int level) {
+        if (minSize < 0 || level < 1 || level > 9) {
+            throw new RuntimeException("Invalid compression configuration, minSize: " + minSize + " level: " + level);
+        }
+
+        this.enabled = enabled;
+        this.minSize = minSize;
+        this.level = level;
+    }
+
+    public static ResponseCompression getDefault() {
+        return defaultCompression;
+    }
+
+    public static void setDefault(ResponseCompression compression) {
+        defaultCompression = compression;
+    }
+
+    /**
+     * Select the encoding of a response, gzip is preferred when the client accepts gzip and deflate with the same
+     * quality, example: "deflate, gzip;q=0.5" selects deflate and "br, *" selects gzip.
+     *
+     * @param acceptEncoding Accept-Encoding header of the request, it can be null.
+     * @return ContentEncoding.GZIP, ContentEncoding.DEFLATE or null when the body must not be compressed.
+     */
+    public String select(String acceptEncoding) {
+        if (!enabled || acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+
+        double gzip = -1;
+        double deflate = -1;
+        double any = -1;
+        for (String coding : acceptEncoding.split(",")) {
+            int params = coding.indexOf(';');
+            String name = (params >= 0 ? coding.substring(0, params) : coding).trim();
+            double quality = params >= 0 ? quality(coding.substring(params + 1)) : 1;
+
+            if (name.equalsIgnoreCase(ContentEncoding.GZIP)) {
+                gzip = quality;
+            } else if (name.equalsIgnoreCase(ContentEncoding.DEFLATE)) {
+                deflate = quality;
+            } else if (name.equals("*")) {
+                any = quality;
+            }
+        }
+
+        // the codings that are not listed get the quality of *
+        gzip = gzip < 0 ? any : gzip;
+        deflate = deflate < 0 ? any : deflate;
+        if (gzip > 0 && gzip >= deflate) {
+            return ContentEncoding.GZIP;
+        }
+        return deflate > 0 ? ContentEncoding.DEFLATE : null;
+    }
+
+    private static double quality(String params) {
+        for (String param : params.split(";")) {
+            param = param.trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * @param length size in bytes of the body.
+     * @return true when a body of this size is compressed.
+     */
+    public boolean shouldCompress(int length) {
+        return enabled && length >= minSize;
+    }
+
+    /**
+     * Compress a body that is completely in memory.
+     *
+     * @param body bytes of the body.
+     * @param offset first byte of the body.
+     * @param length size of the body.
+     * @param encoding ContentEncoding.GZIP or ContentEncoding.DEFLATE.
+     * @return compressed body.
+     */
+    public byte[] compress(byte[] body, int offset, int length, String encoding) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, length / 4));
+        try (OutputStream os = new CompressedOutputStream(out, encoding, level)) {
+            os.write(body, offset, length);
+        } catch (IOException e) {
+            // the target is in memory, it does not throw
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Stream that compresses a body that is written while it is produced, like the chunked responses.
+     *
+     * @param out response body of the exchange.
+     * @param encoding ContentEncoding.GZIP or ContentEncoding.DEFLATE.
+     * @return stream that writes the compressed bytes into out, closing it closes out.
+     */
+    public OutputStream compressing(OutputStream out, String encoding) throws IOException {
+        return new CompressedOutputStream(out, encoding, level);
+    }
+
+    /**
+     * Compress a body with every supported encoding, used to store the compressed variants of a cached response
+     * so the hits are served without compressing again. A variant that is not smaller than the body is not kept.
+     *
+     * @param body serialized response.
+     * @return compressed bodies by encoding, empty when the body is not compressed.
+     */
+    public Map<String, byte[]> precompress(byte[] body) {
+        if (!shouldCompress(body.length)) {
+            return Map.of();
+        }
+
+        Map<String, byte[]> variants = new HashMap<>(4);
+        for (String encoding : new String[] {ContentEncoding.GZIP, ContentEncoding.DEFLATE}) {
+            byte[] compressed = compress(body, 0, body.length, encoding);
+            if (compressed.length < body.length) {
+                variants.put(encoding, compressed);
+            }
+        }
+        return variants;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+}
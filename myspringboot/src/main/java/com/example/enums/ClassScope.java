@@ -3,4 +3,5 @@ package com.example.enums;
 public class ClassScope {
     public final static String REQUEST = "request";
     public final static String SINGLETON = "singleton";
+    public final static String POOLED = "pooled";
 }
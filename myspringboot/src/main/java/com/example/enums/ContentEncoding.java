@@ -0,0 +1,7 @@
+package com.example.enums;
+
+public class ContentEncoding {
+    public final static String GZIP = "gzip";
+    public final static String DEFLATE = "deflate";
+    public final static String IDENTITY = "identity";
+}
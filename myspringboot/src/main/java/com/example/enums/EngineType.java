@@ -0,0 +1,6 @@
+package com.example.enums;
+
+public class EngineType {
+    public final static String JDK = "jdk";
+    public final static String NIO = "nio";
+}
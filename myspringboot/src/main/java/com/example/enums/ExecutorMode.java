@@ -0,0 +1,7 @@
+package com.example.enums;
+
+public class ExecutorMode {
+    public final static String VIRTUAL = "virtual";
+    public final static String FIXED = "fixed";
+    public final static String WORK_STEALING = "work-stealing";
+}
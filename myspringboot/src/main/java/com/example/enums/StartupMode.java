@@ -0,0 +1,7 @@
+package com.example.enums;
+
+public class StartupMode {
+    public final static String EAGER = "eager";
+    public final static String PARALLEL = "parallel";
+    public final static String LAZY = "lazy";
+}
@@ -0,0 +1,59 @@
+package com.example.limit;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Max concurrent requests split in striped semaphores.
+ *
+ * Each thread starts at its own stripe, so threads of the executor do not contend on a single semaphore, and it
+ * moves to the next stripes when its own is full. The permits of all the stripes add up to the limit.
+ */
+public class ConcurrencyLimiter {
+
+    private final Semaphore[] stripes;
+    private final int limit;
+
+    public ConcurrencyLimiter(int limit) {
+        if (limit <= 0) {
+            throw new RuntimeException("Invalid max concurrent: " + limit);
+        }
+
+        this.limit = limit;
+        int count = Math.min(limit, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) * 2);
+        this.stripes = new Semaphore[count];
+        for (int i = 0; i < count; i++) {
+            // the remainder goes to the first stripes
+            stripes[i] = new Semaphore(limit / count + (i < limit % count ? 1 : 0));
+        }
+    }
+
+    /**
+     * @return the stripe that gave the permit, to be passed to release, or -1 when all the stripes are full.
+     */
+    public int tryAcquire() {
+        int start = (int) (Thread.currentThread().getId() % stripes.length);
+        for (int i = 0; i < stripes.length; i++) {
+            int stripe = (start + i) % stripes.length;
+            if (stripes[stripe].tryAcquire()) {
+                return stripe;
+            }
+        }
+        return -1;
+    }
+
+    public void release(int stripe) {
+        stripes[stripe].release();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getAvailable() {
+        int available = 0;
+        for (Semaphore stripe : stripes) {
+            available += stripe.availablePermits();
+        }
+        return available;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.limit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket.
+ *
+ * The bucket is stored as a single timestamp, the time when it will be full again (the theoretical arrival time of
+ * the generic cell rate algorithm): each permit moves it one interval forward, and a permit is only given while
+ * the timestamp stays within the burst of the current time. Taking a permit is one CAS, there is no refill thread
+ * and no lock.
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    /**
+     * @param permitsPerSecond sustained permits per second.
+     * @param burst permits available at once when the bucket is full.
+     */
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst <= 0) {
+            throw new RuntimeException("Invalid rate limit, permitsPerSecond: " + permitsPerSecond + " burst: " + burst);
+        }
+
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / permitsPerSecond));
+        this.burstNanos = intervalNanos * burst;
+        // full at start
+        this.fullAt = new AtomicLong(System.nanoTime() - burstNanos);
+    }
+
+    /**
+     * @return true when a permit was taken, false when the bucket is empty.
+     */
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now - burstNanos) + intervalNanos;
+            if (next - now > 0) {
+                return false;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return seconds until the next permit, at least 1, used for the Retry-After header.
+     */
+    public long getRetryAfterSeconds() {
+        long wait = fullAt.get() + intervalNanos - System.nanoTime();
+        return Math.max(1, (wait + 999_999_999L) / 1_000_000_000L);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.metrics;
+
+import com.example.cache.ResponseCache;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of one endpoint (HTTP method + path), one histogram for each request phase.
+ */
+public class EndpointMetrics {
+
+    public static final int BIND = 0;
+    public static final int INVOKE = 1;
+    public static final int SERIALIZE = 2;
+    public static final int WRITE = 3;
+    public static final int TOTAL = 4;
+
+    static final String[] PHASES = {"bind", "invoke", "serialize", "write", "total"};
+
+    private final String method;
+    private final String path;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    // requests that started and did not complete their response yet, futures and streams included
+    private final LongAdder inFlight = new LongAdder();
+    // requests rejected by @RateLimit (429) and by @MaxConcurrent (503), they are not counted as requests
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder concurrencyRejected = new LongAdder();
+    // requests rejected with 413 because of the size of their body
+    private final LongAdder payloadTooLarge = new LongAdder();
+    private final LatencyHistogram[] phases = new LatencyHistogram[PHASES.length];
+    // only for @Cacheable endpoints
+    private volatile ResponseCache responseCache;
+
+    public EndpointMetrics(String method, String path) {
+        this.method = method;
+        this.path = path;
+        for (int index = 0; index < phases.length; index++) {
+            phases[index] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * A request started, it stays in flight until {@link #recordFinished()} is called.
+     */
+    public void recordRequest() {
+        requests.increment();
+        inFlight.increment();
+    }
+
+    /**
+     * The response of a request was completed, or the request failed.
+     */
+    public void recordFinished() {
+        inFlight.decrement();
+    }
+
+    public void recordError() {
+        errors.increment();
+    }
+
+    public void recordRateLimited() {
+        rateLimited.increment();
+    }
+
+    public void recordConcurrencyRejected() {
+        concurrencyRejected.increment();
+    }
+
+    public void recordPayloadTooLarge() {
+        payloadTooLarge.increment();
+    }
+
+    /**
+     * @param phase one of BIND, INVOKE, SERIALIZE, WRITE or TOTAL.
+     * @param nanos duration of the phase.
+     */
+    public void recordPhase(int phase, long nanos) {
+        phases[phase].record(nanos);
+    }
+
+    /**
+     * @param phase one of BIND, INVOKE, SERIALIZE, WRITE or TOTAL.
+     * @return name of the phase, like "bind".
+     */
+    public static String phaseName(int phase) {
+        return PHASES[phase];
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    public long getRateLimited() {
+        return rateLimited.sum();
+    }
+
+    public long getConcurrencyRejected() {
+        return concurrencyRejected.sum();
+    }
+
+    public long getPayloadTooLarge() {
+        return payloadTooLarge.sum();
+    }
+
+    public LatencyHistogram getPhase(int phase) {
+        return phases[phase];
+    }
+
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    public void setResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+}
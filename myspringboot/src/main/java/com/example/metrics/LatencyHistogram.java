@@ -0,0 +1,109 @@
+package com.example.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets (HDR style): each power of two is divided into
+ * {@link #SUB_BUCKETS} buckets, so the relative error is at most 25% for any value from 1 ns to hours.
+ *
+ * Recording only calculates the bucket with bit operations and increments an AtomicLongArray, it does not allocate.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * @param nanos duration in nanoseconds, negative values are recorded as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketIndex(value));
+        sum.add(value);
+    }
+
+    /**
+     * @return number of recorded values.
+     */
+    public long getCount() {
+        long count = 0;
+        for (int index = 0; index < BUCKETS; index++) {
+            count += counts.get(index);
+        }
+        return count;
+    }
+
+    /**
+     * @return sum of all recorded values in nanoseconds.
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Number of values lower or equal than the bound, the buckets that contain the bound are not counted, so the
+     * result can be lower than the real one (never higher).
+     *
+     * @param boundNanos upper bound in nanoseconds.
+     * @return cumulative count.
+     */
+    public long getCountAtOrBelow(long boundNanos) {
+        long count = 0;
+        for (int index = 0; index < BUCKETS; index++) {
+            if (bucketUpperBound(index) > boundNanos) {
+                break;
+            }
+            count += counts.get(index);
+        }
+        return count;
+    }
+
+    /**
+     * @param quantile value between 0 and 1, example: 0.99
+     * @return upper bound of the bucket that contains the quantile, in nanoseconds.
+     */
+    public long getValueAtQuantile(double quantile) {
+        long total = getCount();
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = (long) Math.ceil(total * quantile);
+        long count = 0;
+        for (int index = 0; index < BUCKETS; index++) {
+            count += counts.get(index);
+            if (count >= target) {
+                return bucketUpperBound(index);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        int shift = highestBit - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return ((shift + 1) << SUB_BUCKET_BITS) | subBucket;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long subBucket = index & (SUB_BUCKETS - 1);
+        long lowerBound = (SUB_BUCKETS | subBucket) << shift;
+        long upperBound = lowerBound + (1L << shift) - 1;
+        return upperBound < 0 ? Long.MAX_VALUE : upperBound;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.metrics;
+
+import com.example.server.PathVariables;
+import com.example.server.RouteHandler;
+import com.example.util.Constants;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Endpoint that exports the metrics of the app in Prometheus text format, it is registered by MyHttpServer in
+ * {@value Constants#METRICS_PATH}.
+ */
+public class MetricsHandler implements RouteHandler {
+
+    private static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final MetricsRegistry registry;
+
+    public MetricsHandler(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange, PathVariables pathVariables) throws IOException {
+        StringBuilder out = new StringBuilder(4096);
+        registry.writePrometheus(out);
+        byte[] response = out.toString().getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set(Constants.CONTENT_TYPE, PROMETHEUS_CONTENT_TYPE);
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(response);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.metrics;
+
+import com.example.cache.ResponseCache;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+
+/**
+ * Registry of the endpoint metrics of the app, the metrics are exported in Prometheus text format by the
+ * MetricsHandler.
+ */
+public class MetricsRegistry {
+
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+    private static final String PREFIX = "myspringboot_";
+    // bounds of the exported histogram buckets, in seconds
+    private static final String[] BUCKET_BOUNDS = {"0.0001", "0.00025", "0.0005", "0.001", "0.0025", "0.005", "0.01",
+            "0.025", "0.05", "0.1", "0.25", "0.5", "1", "2.5", "5", "10"};
+
+    // sorted by key, the output is stable between scrapes
+    private final Map<String, EndpointMetrics> endpoints = new ConcurrentSkipListMap<>();
+
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Get or create the metrics of an endpoint, it is called once per handler at startup.
+     *
+     * @param method HTTP method.
+     * @param path path of the endpoint.
+     * @return endpoint metrics.
+     */
+    public EndpointMetrics register(String method, String path) {
+        return endpoints.computeIfAbsent(method + " " + path, key -> new EndpointMetrics(method, path));
+    }
+
+    /**
+     * Write all the metrics in Prometheus text format (version 0.0.4).
+     *
+     * @param out output of the metrics.
+     */
+    public void writePrometheus(StringBuilder out) {
+        out.append("# HELP ").append(PREFIX).append("requests_total Requests handled by each endpoint.\n");
+        out.append("# TYPE ").append(PREFIX).append("requests_total counter\n");
+        for (EndpointMetrics endpoint : endpoints.values()) {
+            out.append(PREFIX).append("requests_total");
+            labels(out, endpoint, null, null).append(' ').append(endpoint.getRequests()).append('\n');
+        }
+
+        out.append("# HELP ").append(PREFIX).append("request_errors_total Requests that failed with an exception.\n");
+        out.append("# TYPE ").append(PREFIX).append("request_errors_total counter\n");
+        for (EndpointMetrics endpoint : endpoints.values()) {
+            out.append(PREFIX).append("request_errors_total");
+            labels(out, endpoint, null, null).append(' ').append(endpoint.getErrors()).append('\n');
+        }
+
+        out.append("# HELP ").append(PREFIX).append("requests_in_flight Requests that did not complete their response yet.\n");
+        out.append("# TYPE ").append(PREFIX).append("requests_in_flight gauge\n");
+        for (EndpointMetrics endpoint : endpoints.values()) {
+            out.append(PREFIX).append("requests_in_flight");
+            labels(out, endpoint, null, null).append(' ').append(endpoint.getInFlight()).append('\n');
+        }
+
+        out.append("# HELP ").append(PREFIX).append("rate_limited_total Requests rejected with 429 by @RateLimit.\n");
+        out.append("# TYPE ").append(PREFIX).append("rate_limited_total counter\n");
+        for (EndpointMetrics endpoint : endpoints.values()) {
+            out.append(PREFIX).append("rate_limited_total");
+            labels(out, endpoint, null, null).append(' ').append(endpoint.getRateLimited()).append('\n');
+        }
+
+        out.append("# HELP ").append(PREFIX).append("concurrency_rejected_total Requests rejected with 503 by @MaxConcurrent.\n");
+        out.append("# TYPE ").append(PREFIX).append("concurrency_rejected_total counter\n");
+        for (EndpointMetrics endpoint : endpoints.values()) {
+            out.append(PREFIX).append("concurrency_rejected_total");
+            labels(out, endpoint, null, null).append(' ').append(endpoint.getConcurrencyRejected()).append('\n');
+        }
+
+        out.append("# HELP ").append(PREFIX).append("payload_too_large_total Requests rejected with 413 because of the size of their body.\n");
+        out.append("# TYPE ").append(PREFIX).append("payload_too_large_total counter\n");
+        for (EndpointMetrics endpoint : endpoints.values()) {
+            out.append(PREFIX).append("payload_too_large_total");
+            labels(out, endpoint, null, null).append(' ').append(endpoint.getPayloadTooLarge()).append('\n');
+        }
+
+        writeCacheMetrics(out);
+
+        out.append("# HELP ").append(PREFIX).append("request_duration_seconds Duration of each request phase.\n");
+        out.append("# TYPE ").append(PREFIX).append("request_duration_seconds histogram\n");
+        for (EndpointMetrics endpoint : endpoints.values()) {
+            for (int phase = 0; phase < EndpointMetrics.PHASES.length; phase++) {
+                LatencyHistogram histogram = endpoint.getPhase(phase);
+                String phaseName = EndpointMetrics.PHASES[phase];
+
+                for (String bound : BUCKET_BOUNDS) {
+                    out.append(PREFIX).append("request_duration_seconds_bucket");
+                    labels(out, endpoint, phaseName, bound).append(' ')
+                            .append(histogram.getCountAtOrBelow((long) (Double.parseDouble(bound) * 1_000_000_000L))).append('\n');
+                }
+
+                long count = histogram.getCount();
+                out.append(PREFIX).append("request_duration_seconds_bucket");
+                labels(out, endpoint, phaseName, "+Inf").append(' ').append(count).append('\n');
+
+                out.append(PREFIX).append("request_duration_seconds_sum");
+                labels(out, endpoint, phaseName, null).append(' ').append(histogram.getSum() / 1_000_000_000.0).append('\n');
+                out.append(PREFIX).append("request_duration_seconds_count");
+                labels(out, endpoint, phaseName, null).append(' ').append(count).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Write the stats of the response caches of the @Cacheable endpoints.
+     */
+    private void writeCacheMetrics(StringBuilder out) {
+        writeCacheMetric(out, "cache_hits_total", "counter", "Requests answered from the response cache.", ResponseCache::getHits);
+        writeCacheMetric(out, "cache_misses_total", "counter", "Requests that invoked the cached method.", ResponseCache::getMisses);
+        writeCacheMetric(out, "cache_evictions_total", "counter", "Responses evicted from the response cache.", ResponseCache::getEvictions);
+        writeCacheMetric(out, "cache_hit_ratio", "gauge", "Hits divided by the lookups of the response cache.", ResponseCache::getHitRatio);
+        writeCacheMetric(out, "cache_bytes", "gauge", "Size in bytes of the cached responses.", ResponseCache::getBytes);
+    }
+
+    private void writeCacheMetric(StringBuilder out, String name, String type, String help, Function<ResponseCache, Number> value) {
+        out.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+        for (EndpointMetrics endpoint : endpoints.values()) {
+            ResponseCache cache = endpoint.getResponseCache();
+            if (cache != null) {
+                out.append(PREFIX).append(name);
+                labels(out, endpoint, null, null).append(' ').append(value.apply(cache)).append('\n');
+            }
+        }
+    }
+
+    private static StringBuilder labels(StringBuilder out, EndpointMetrics endpoint, String phase, String bucketBound) {
+        out.append("{method=\"").append(endpoint.getMethod()).append("\",path=\"").append(escape(endpoint.getPath())).append('"');
+        if (phase != null) {
+            out.append(",phase=\"").append(phase).append('"');
+        }
+        if (bucketBound != null) {
+            out.append(",le=\"").append(bucketBound).append('"');
+        }
+        return out.append('}');
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    public Map<String, EndpointMetrics> getEndpoints() {
+        return endpoints;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.myspringannotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Cache the serialized response of a GET method, keyed by the values of its @RequestParam and @PathVariable params.
+ * A cached response skips the invocation and the serialization, and it is sent with an ETag, so a client with
+ * If-None-Match receives a 304 without body.
+ *
+ * --> ttl: seconds that a response stays in the cache, 0 means until it is evicted.
+ * --> maxEntries: max responses in the cache of the method.
+ * --> maxBytes: max size in bytes of all the cached responses of the method.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Cacheable {
+    long ttl() default 60;
+    int maxEntries() default 1000;
+    long maxBytes() default 16 * 1024 * 1024;
+}
@@ -0,0 +1,22 @@
+package com.example.myspringannotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Compression of the response bodies, the encoding is selected with the Accept-Encoding header of each request.
+ * Without this annotation the bodies are never compressed, with it the bodies of at least minSize bytes are compressed.
+ *
+ * --> enabled: false sends every body without compression.
+ * --> minSize: min size in bytes of a body to be compressed, smaller bodies are sent as they are.
+ * --> level: compression level from 1 (fastest) to 9 (smallest).
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Compression {
+    boolean enabled() default true;
+    int minSize() default 1024;
+    int level() default 6;
+}
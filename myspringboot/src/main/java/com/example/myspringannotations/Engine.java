@@ -0,0 +1,24 @@
+package com.example.myspringannotations;
+
+import com.example.enums.EngineType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Server engine that accepts the connections and parses the HTTP requests, without this annotation the JDK
+ * HttpServer is used.
+ *
+ * --> value: one of EngineType values.
+ * --> backlog: max pending connections in the accept queue, 0 means the default of the system.
+ * --> bufferSize: size in bytes of the pooled buffers of the nio engine, a request head must fit in one buffer.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Engine {
+    String value() default EngineType.JDK;
+    int backlog() default 0;
+    int bufferSize() default 16 * 1024;
+}
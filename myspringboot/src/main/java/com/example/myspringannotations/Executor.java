@@ -0,0 +1,23 @@
+package com.example.myspringannotations;
+
+import com.example.enums.ExecutorMode;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Execution model of the server, without this annotation every request runs in the dispatcher thread of the server.
+ *
+ * --> mode: one of ExecutorMode values.
+ * --> size: number of threads for fixed and work-stealing modes, 0 means one per available processor.
+ * --> queueSize: max requests waiting for a thread in fixed mode, when the queue is full the request receives a 503.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Executor {
+    String mode() default ExecutorMode.FIXED;
+    int size() default 0;
+    int queueSize() default 1000;
+}
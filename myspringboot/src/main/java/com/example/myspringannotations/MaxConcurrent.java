@@ -0,0 +1,18 @@
+package com.example.myspringannotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Max requests of a controller method running at the same time, futures and streams count until their response
+ * is complete. The requests over the limit receive a 503 before their params are bound.
+ *
+ * --> value: max concurrent requests.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface MaxConcurrent {
+    int value();
+}
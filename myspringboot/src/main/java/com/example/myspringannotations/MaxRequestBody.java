@@ -0,0 +1,18 @@
+package com.example.myspringannotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Max size of the request bodies of the app, used by the @RequestBody params without their own maxBytes.
+ * Without this annotation the limit is 1 MB.
+ *
+ * --> bytes: max size in bytes of a request body.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface MaxRequestBody {
+    long bytes();
+}
@@ -0,0 +1,20 @@
+package com.example.myspringannotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Max rate of requests of a controller method, the requests over the rate receive a 429 before their params are
+ * bound, so a rejected request does not read nor deserialize its body.
+ *
+ * --> permitsPerSecond: sustained requests per second.
+ * --> burst: requests accepted at once after an idle period, 0 means one second of permits.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface RateLimit {
+    double permitsPerSecond();
+    int burst() default 0;
+}
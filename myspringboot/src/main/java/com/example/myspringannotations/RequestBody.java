@@ -5,8 +5,14 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+/**
+ * Deserialize the request body into the param.
+ *
+ * --> maxBytes: max size in bytes of the body, bigger bodies receive a 413. 0 means the limit of @MaxRequestBody.
+ */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.PARAMETER)
 public @interface RequestBody {
     String value() default "";
+    long maxBytes() default 0;
 }
@@ -9,4 +9,6 @@ import java.lang.annotation.Target;
 @Target(ElementType.TYPE)
 public @interface Scope {
     String value() default "singleton";
+    // max idle instances for pooled scope, 0 means one per available processor
+    int max() default 0;
 }
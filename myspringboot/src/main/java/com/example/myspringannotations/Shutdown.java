@@ -0,0 +1,19 @@
+package com.example.myspringannotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Graceful shutdown of the server when the JVM stops (SIGTERM, System.exit). The server stops accepting requests,
+ * waits for the requests in flight and then stops, the requests still in flight at the deadline are cut off and
+ * logged. Without this annotation the timeout is 30 seconds.
+ *
+ * --> timeout: max seconds to wait for the requests in flight.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Shutdown {
+    int timeout() default 30;
+}
@@ -0,0 +1,26 @@
+package com.example.myspringannotations;
+
+import com.example.enums.StartupMode;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * How the controllers and their request handlers are created at startup, without this annotation they are
+ * created one after the other before the server starts.
+ *
+ * --> mode: one of StartupMode values.
+ *     eager: controllers and handlers are created one after the other.
+ *     parallel: controllers and handlers are created concurrently in a ForkJoinPool.
+ *     lazy: the routes are registered at startup, each controller is created and each handler compiled when its
+ *     first request arrives.
+ * --> parallelism: threads of the pool in parallel mode, 0 means one per available processor.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Startup {
+    String mode() default StartupMode.EAGER;
+    int parallelism() default 0;
+}
@@ -0,0 +1,34 @@
+package com.example.myspringannotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Serve the files of a directory under a path, with ETag, Last-Modified (304) and Range (206) support. It can be
+ * repeated on the main class to serve several directories.
+ *
+ * --> path: path prefix of the files, like /assets, the controller routes inside it have priority.
+ * --> dir: directory of the files, relative to the working directory of the app.
+ * --> maxAge: seconds of the Cache-Control max-age header, -1 sends no Cache-Control.
+ * --> cacheFileSize: files up to this size in bytes are kept in memory, 0 always reads them from disk.
+ * --> cacheBytes: max size in bytes of all the files kept in memory.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Repeatable(StaticResources.List.class)
+public @interface StaticResources {
+    String path();
+    String dir();
+    int maxAge() default 3600;
+    int cacheFileSize() default 64 * 1024;
+    long cacheBytes() default 16 * 1024 * 1024;
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.TYPE)
+    @interface List {
+        StaticResources[] value();
+    }
+}
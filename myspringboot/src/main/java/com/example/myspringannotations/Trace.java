@@ -0,0 +1,23 @@
+package com.example.myspringannotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Trace a fraction of the requests: the duration and the bytes allocated by each phase (bind, invoke, serialize,
+ * write) are stored in a ring buffer and exposed in {@value com.example.util.Constants#TRACE_PATH}. Without this
+ * annotation no request is traced and the endpoint is not registered.
+ *
+ * --> sampleRate: fraction of the requests that are traced, from 0 to 1.
+ * --> bufferSize: traces kept in memory, the oldest ones are replaced.
+ * --> jfr: also emit each trace as a JFR event (com.example.RequestTrace) when a recording is running.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Trace {
+    double sampleRate() default 0.01;
+    int bufferSize() default 1024;
+    boolean jfr() default false;
+}
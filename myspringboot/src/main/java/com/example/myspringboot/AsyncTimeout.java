@@ -0,0 +1,28 @@
+package com.example.myspringboot;
+
+/**
+ * Max time that a controller method with an asynchronous response can keep its request open:
+ * --> CompletableFuture / CompletionStage: time until the future completes, then the request is answered with a 503.
+ * --> Flow.Publisher: time without a new item, then the stream is cut.
+ *
+ * Until then the request keeps its @MaxConcurrent permit and its controller instance, so a future that never
+ * completes cannot hold them forever. A value of 0 disables the timeout.
+ */
+public final class AsyncTimeout {
+
+    private static volatile long defaultMillis = 30_000;
+
+    private AsyncTimeout() {
+    }
+
+    public static long getDefaultMillis() {
+        return defaultMillis;
+    }
+
+    public static void setDefaultMillis(long millis) {
+        if (millis < 0) {
+            throw new RuntimeException("Invalid async timeout: " + millis);
+        }
+        defaultMillis = millis;
+    }
+}
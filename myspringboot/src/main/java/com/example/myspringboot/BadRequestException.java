@@ -0,0 +1,12 @@
+package com.example.myspringboot;
+
+/**
+ * A param of the request cannot be converted to the type of the controller param, example: /v1/users/abc for
+ * a @PathVariable("id") int id. The request is answered with a 400.
+ */
+public class BadRequestException extends RuntimeException {
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.myspringboot;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Request body that can not be read beyond a limit, reading the byte after the limit throws a
+ * PayloadTooLargeException instead of returning it.
+ */
+public final class BoundedInputStream extends FilterInputStream {
+
+    private final long maxBytes;
+    private long count;
+    private boolean exceeded;
+
+    public BoundedInputStream(InputStream in, long maxBytes) {
+        super(in);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int value = super.read();
+        if (value >= 0) {
+            count(1);
+        }
+        return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        // one byte more than the limit is requested, so a body of exactly maxBytes is not rejected
+        int read = super.read(buffer, offset, (int) Math.min(length, maxBytes - count + 1));
+        if (read > 0) {
+            count(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(Math.min(n, maxBytes - count + 1));
+        count(skipped);
+        return skipped;
+    }
+
+    private void count(long read) {
+        count += read;
+        if (count > maxBytes) {
+            exceeded = true;
+            throw new PayloadTooLargeException(maxBytes);
+        }
+    }
+
+    /**
+     * @return true when the body was longer than the limit, the parsers may wrap the exception of the limit.
+     */
+    public boolean isExceeded() {
+        return exceeded;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.myspringboot;
+
+import com.example.enums.ClassScope;
+import com.example.myspringannotations.Scope;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Provide the controller instance used by each request, depending on the controller scope:
+ * --> singleton: the same instance for every request.
+ * --> request: a new instance for each request, it is only visible to the thread that handles the request.
+ * --> pooled: instances are reused between requests, after each request the instance is reset (when it implements
+ *     {@link Resettable}) and returned to a pool of at most Scope.max() idle instances.
+ *
+ * The constructor is compiled once into a MethodHandle, so creating instances does not use reflection.
+ */
+public abstract class InstanceProvider {
+
+    private final String scope;
+
+    private InstanceProvider(String scope) {
+        this.scope = scope;
+    }
+
+    /**
+     * Create the provider of the controller of a route, with the scope that the RouteTable read for the controller.
+     * The routes of a controller share its provider.
+     *
+     * @param route any route of the controller.
+     * @return instance provider.
+     */
+    public static InstanceProvider forRoute(RouteDefinition route) {
+        return create(route.getController(), route.getScope(), route.getPoolSize());
+    }
+
+    /**
+     * Create the provider of a controller class outside of a route table, the scope is read from the @Scope
+     * annotation.
+     *
+     * @param clazz controller class.
+     * @return instance provider.
+     */
+    public static InstanceProvider forClass(Class<?> clazz) {
+        Scope scope = clazz.getAnnotation(Scope.class);
+        return create(clazz, scope != null ? scope.value() : ClassScope.SINGLETON, scope != null ? scope.max() : 0);
+    }
+
+    /**
+     * @param poolSize max idle instances of the pooled scope, 0 for one per available processor.
+     */
+    private static InstanceProvider create(Class<?> clazz, String scopeValue, int poolSize) {
+        MethodHandle constructor = compileConstructor(clazz);
+
+        switch (scopeValue) {
+            case ClassScope.SINGLETON:
+                return new Singleton(newInstance(constructor));
+            case ClassScope.REQUEST:
+                return new PerRequest(constructor);
+            case ClassScope.POOLED:
+                int max = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+                return new Pooled(constructor, max);
+            default:
+                throw new RuntimeException("Unknown scope: " + scopeValue + " for class: " + clazz.getName());
+        }
+    }
+
+    /**
+     * @return instance that will handle the current request.
+     */
+    public abstract Object acquire();
+
+    /**
+     * Called once the request finished using the instance.
+     *
+     * @param instance instance returned by acquire.
+     */
+    public abstract void release(Object instance);
+
+    public String getScope() {
+        return scope;
+    }
+
+    private static MethodHandle compileConstructor(Class<?> clazz) {
+        try {
+            return MethodHandles.publicLookup().unreflectConstructor(clazz.getDeclaredConstructor())
+                    .asType(MethodType.methodType(Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Error while compiling constructor for class: " + clazz.getName() + " : " + e);
+        }
+    }
+
+    private static Object newInstance(MethodHandle constructor) {
+        try {
+            return constructor.invokeExact();
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final class Singleton extends InstanceProvider {
+
+        private final Object instance;
+
+        Singleton(Object instance) {
+            super(ClassScope.SINGLETON);
+            this.instance = instance;
+        }
+
+        @Override
+        public Object acquire() {
+            return instance;
+        }
+
+        @Override
+        public void release(Object instance) {
+        }
+    }
+
+    private static final class PerRequest extends InstanceProvider {
+
+        private final MethodHandle constructor;
+
+        PerRequest(MethodHandle constructor) {
+            super(ClassScope.REQUEST);
+            this.constructor = constructor;
+        }
+
+        @Override
+        public Object acquire() {
+            return newInstance(constructor);
+        }
+
+        @Override
+        public void release(Object instance) {
+        }
+    }
+
+    private static final class Pooled extends InstanceProvider {
+
+        private final MethodHandle constructor;
+        private final ArrayBlockingQueue<Object> idle;
+
+        Pooled(MethodHandle constructor, int max) {
+            super(ClassScope.POOLED);
+            this.constructor = constructor;
+            this.idle = new ArrayBlockingQueue<>(max);
+        }
+
+        @Override
+        public Object acquire() {
+            Object instance = idle.poll();
+            return instance != null ? instance : newInstance(constructor);
+        }
+
+        @Override
+        public void release(Object instance) {
+            if (instance instanceof Resettable) {
+                ((Resettable) instance).reset();
+            }
+            // when the pool is full the instance is discarded
+            idle.offer(instance);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.myspringboot;
+
+import com.example.metrics.MetricsRegistry;
+import com.example.server.PathVariables;
+import com.example.server.RouteHandler;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+
+/**
+ * Route handler of the lazy startup mode, the route is registered at startup but the controller is created and
+ * the MyRequestHandler is compiled (invoker, binders and codecs) when the first request of the route arrives.
+ *
+ * The path variables are validated at startup, the rest of the validations of the handler (like @Cacheable) run
+ * with the first request: a handler that fails to compile answers that request with an error and is compiled
+ * again with the next one.
+ */
+final class LazyRequestHandler implements RouteHandler {
+
+    private final Controller controller;
+    private final RouteDefinition route;
+    private volatile MyRequestHandler handler;
+
+    LazyRequestHandler(Controller controller, RouteDefinition route) {
+        this.controller = controller;
+        this.route = route;
+        // the endpoint is exported with zero requests until it is used
+        MetricsRegistry.getDefault().register(route.getRequestType(), route.getPath());
+    }
+
+    @Override
+    public void handle(HttpExchange exchange, PathVariables pathVariables) throws IOException {
+        MyRequestHandler handler = this.handler;
+        if (handler == null) {
+            handler = resolve();
+        }
+        handler.handle(exchange, pathVariables);
+    }
+
+    /**
+     * The limit is read from the route, so the handler is not compiled by a request that is rejected.
+     */
+    @Override
+    public long getMaxBodyBytes() {
+        return RequestBodyLimit.resolve(route.getBodyMaxBytes());
+    }
+
+    /**
+     * Compile the handler once, the requests that arrive while it is compiled wait for it.
+     */
+    private synchronized MyRequestHandler resolve() {
+        if (handler == null) {
+            long start = System.nanoTime();
+            handler = MyRequestHandler.forRoute(route, controller.getInstanceProvider());
+
+            System.out.println("Lazy handler compiled for " + route.getRequestType() + " " + route.getPath() + " in "
+                    + (System.nanoTime() - start) / 1000 + " us");
+        }
+        return handler;
+    }
+
+    /**
+     * Instance provider of a controller class, shared by the lazy handlers of its methods so the controller is
+     * created once, by the first request of any of them.
+     */
+    static final class Controller {
+
+        // any route of the controller, they share its scope
+        private final RouteDefinition route;
+        private volatile InstanceProvider instanceProvider;
+
+        Controller(RouteDefinition route) {
+            this.route = route;
+        }
+
+        InstanceProvider getInstanceProvider() {
+            InstanceProvider provider = instanceProvider;
+            if (provider == null) {
+                synchronized (this) {
+                    provider = instanceProvider;
+                    if (provider == null) {
+                        provider = InstanceProvider.forRoute(route);
+                        instanceProvider = provider;
+                    }
+                }
+            }
+            return provider;
+        }
+    }
+}
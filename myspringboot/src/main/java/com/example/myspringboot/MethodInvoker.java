@@ -0,0 +1,72 @@
+package com.example.myspringboot;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Precompiled invoker for a controller method.
+ *
+ * The method is unreflected once at startup into a {@link MethodHandle} adapted to the generic shape
+ * (Object instance, Object[] args) -> Object, so every request goes through invokeExact instead of the
+ * reflective Method.invoke path (no access checks, no argument array validation per call).
+ */
+public final class MethodInvoker {
+
+    private static final MethodType GENERIC_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    private final Method method;
+    private final MethodHandle handle;
+
+    private MethodInvoker(Method method, MethodHandle handle) {
+        this.method = method;
+        this.handle = handle;
+    }
+
+    /**
+     * Build the invoker for a controller method.
+     *
+     * @param method public method found inside a controller class.
+     * @return invoker that can be called with the controller instance and the bound params.
+     */
+    public static MethodInvoker compile(Method method) {
+        try {
+            MethodHandle handle = MethodHandles.publicLookup().unreflect(method);
+
+            // static methods do not receive the instance, ignore it so both cases share the same shape
+            if (Modifier.isStatic(method.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+
+            // void methods return null, then spread the Object[] into the real parameters
+            handle = handle.asSpreader(Object[].class, method.getParameterCount()).asType(GENERIC_TYPE);
+
+            return new MethodInvoker(method, handle);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Error while compiling invoker for method: " + method + " : " + e);
+        }
+    }
+
+    /**
+     * Call the controller method.
+     *
+     * @param instance controller instance, ignored for static methods.
+     * @param args params already bound for this request.
+     * @return value returned by the controller method, null for void methods.
+     * @throws InvocationTargetException when the controller method throws an exception.
+     */
+    public Object invoke(Object instance, Object[] args) throws InvocationTargetException {
+        try {
+            return handle.invokeExact(instance, args);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+}
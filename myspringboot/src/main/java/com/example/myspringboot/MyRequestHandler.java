@@ -1,24 +1,41 @@
 package com.example.myspringboot;
 
-import com.example.enums.ClassScope;
+import com.example.cache.CachedResponse;
+import com.example.cache.ResponseCache;
+import com.example.codec.CodecRegistry;
+import com.example.codec.ContentCodecs;
+import com.example.compression.ResponseCompression;
+import com.example.limit.ConcurrencyLimiter;
+import com.example.limit.TokenBucket;
+import com.example.metrics.EndpointMetrics;
+import com.example.metrics.MetricsRegistry;
+import com.example.myspringannotations.Cacheable;
+import com.example.myspringannotations.MaxConcurrent;
+import com.example.myspringannotations.RateLimit;
 import com.example.myspringannotations.RequestBody;
-import com.example.myspringannotations.RequestParam;
+import com.example.server.PathVariables;
+import com.example.server.QueryParams;
+import com.example.server.RouteHandler;
+import com.example.trace.RequestTrace;
+import com.example.trace.TraceRecorder;
 import com.example.util.Constants;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * This class is used to handle an HTTP request, it contains a reference to the controller class, and one
@@ -28,242 +45,534 @@ import java.util.stream.Collectors;
  * @version 1
  * @created   November 30, 2023
  */
-public class MyRequestHandler implements HttpHandler {
+public class MyRequestHandler implements HttpHandler, RouteHandler {
 
-    private Object instance;
+    private final InstanceProvider instanceProvider;
     private final Method target;
+    private final MethodInvoker invoker;
+    private final ParameterBinder[] binders;
+    private final boolean hasResponse;
+    private final int responseKind;
+    // one writer per format of ContentCodecs, selected by the Accept header of each request
+    private final ObjectWriter[] responseWriters;
+    private final ContentCodecs codecs;
+    // only for @Cacheable methods
+    private final ResponseCache responseCache;
+    // only for @RateLimit and @MaxConcurrent methods
+    private final TokenBucket rateLimiter;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    // max size of the request body of the @RequestBody param, 0 for the default limit, -1 without body param
+    private final long bodyMaxBytes;
+    // metadata of the route, null when the handler was not created from a route table
+    private final RouteDefinition route;
+    private static final byte[] GENERIC_RESPONSE = "Method executed successfully".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] INTERNAL_ERROR_RESPONSE = "Internal Server Error".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NOT_MODIFIED_RESPONSE = new byte[0];
+    private static final byte[] TOO_MANY_REQUESTS_RESPONSE = "Too Many Requests".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] UNAVAILABLE_RESPONSE = "Service Unavailable".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PAYLOAD_TOO_LARGE_RESPONSE = "Payload Too Large".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BAD_REQUEST_RESPONSE = "Bad Request".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NOT_ACCEPTABLE_RESPONSE = "Not Acceptable".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] UNSUPPORTED_MEDIA_TYPE_RESPONSE = "Unsupported Media Type".getBytes(StandardCharsets.UTF_8);
+    private static final String CONNECTION = "Connection";
+    private static final String CLOSE = "close";
+    // response of a publisher method that returned null
+    private static final Flow.Publisher<Object> EMPTY_PUBLISHER = subscriber -> {
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        subscriber.onComplete();
+    };
+    private static final String VARY_COMPRESSED = Constants.ACCEPT + ", " + Constants.ACCEPT_ENCODING;
+
+    // kind of value returned by the controller method
+    private static final int SYNC_RESPONSE = ResponseCodec.SYNC_RESPONSE;
+    private static final int FUTURE_RESPONSE = ResponseCodec.FUTURE_RESPONSE;
+    private static final int PUBLISHER_RESPONSE = ResponseCodec.PUBLISHER_RESPONSE;
     private String requestType;
     private String requestPath;
-    private String scope;
-
-    // default primitive values
-    private final byte byteValue = 0;
-    private final short shortValue = 0;
-    private final int intValue = 0;
-    private final long longValue = 0L;
-    private final float floatValue = 0.0f;
-    private final double doubleValue = 0.0d;
-    private final boolean booleanValue = false;
-    private final char charValue = '\u0000';
-
-    public MyRequestHandler(Object instance, Method target, String requestType, String scope) {
-        this.instance = instance;
-        this.target = target;
+    // replaced by the registered metrics of the endpoint once the path is known
+    private EndpointMetrics metrics;
+
+    public MyRequestHandler(InstanceProvider instanceProvider, MethodInvoker invoker, ParameterBinder[] binders, String requestType) {
+        this(instanceProvider, invoker, binders, requestType, invoker.getMethod().getAnnotation(Cacheable.class),
+                invoker.getMethod().getAnnotation(RateLimit.class), invoker.getMethod().getAnnotation(MaxConcurrent.class), null);
+    }
+
+    /**
+     * Handler of a route of the route table, the cache configuration and the limits are read from the route
+     * instead of the annotations of the method.
+     */
+    public MyRequestHandler(InstanceProvider instanceProvider, MethodInvoker invoker, ParameterBinder[] binders, RouteDefinition route) {
+        this(instanceProvider, invoker, binders, route.getRequestType(), route.getCacheable(), route.getRateLimit(),
+                route.getMaxConcurrent(), route);
+    }
+
+    private MyRequestHandler(InstanceProvider instanceProvider, MethodInvoker invoker, ParameterBinder[] binders,
+                             String requestType, Cacheable cacheable, RateLimit rateLimit, MaxConcurrent maxConcurrent,
+                             RouteDefinition route) {
+        this.instanceProvider = instanceProvider;
+        this.route = route;
+        this.target = invoker.getMethod();
+        this.invoker = invoker;
+        this.binders = binders;
+        // the handlers of a route share the codec of the route table, and its writers
+        ResponseCodec responseCodec = route != null ? route.getResponseCodec() : ResponseCodec.of(target);
+        this.responseKind = responseCodec.getKind();
+        this.hasResponse = responseCodec.hasResponse();
+        this.codecs = ContentCodecs.getDefault();
+        this.responseWriters = responseCodec.getWriters(codecs);
         this.requestType = requestType;
-        this.scope = scope;
+        this.bodyMaxBytes = bodyMaxBytes();
+        this.responseCache = createResponseCache(cacheable);
+        // a burst of 0 means one second of permits
+        this.rateLimiter = rateLimit == null ? null : new TokenBucket(rateLimit.permitsPerSecond(),
+                rateLimit.burst() > 0 ? rateLimit.burst() : (int) Math.max(1, Math.ceil(rateLimit.permitsPerSecond())));
+        this.concurrencyLimiter = maxConcurrent == null ? null : new ConcurrencyLimiter(maxConcurrent.value());
+        this.metrics = new EndpointMetrics(requestType, target.getName());
+    }
+
+    /**
+     * Compile the handler of a route: the invoker of the method, one binder per param and the response writers.
+     * The handler is returned with its path, ready to be added to the server.
+     *
+     * @param route route definition of the route table.
+     * @param instanceProvider provider of the controller instances.
+     * @return request handler of the route.
+     */
+    static MyRequestHandler forRoute(RouteDefinition route, InstanceProvider instanceProvider) {
+        MyRequestHandler handler = new MyRequestHandler(instanceProvider, MethodInvoker.compile(route.getMethod()),
+                ParameterBinder.resolve(route), route);
+        handler.setRequestPath(route.getPath());
+        return handler;
+    }
+
+    /**
+     * Create the response cache of a @Cacheable method, only GET methods with a synchronous response and without
+     * request body can be cached, because the cache key is built from the params of the request.
+     */
+    private ResponseCache createResponseCache(Cacheable cacheable) {
+        if (cacheable == null) {
+            return null;
+        }
+
+        if (!Constants.GET.equals(requestType) || responseKind != SYNC_RESPONSE || !hasResponse) {
+            throw new RuntimeException("@Cacheable requires a GET method with a synchronous response: " + target);
+        }
+        if (bodyMaxBytes >= 0) {
+            throw new RuntimeException("@Cacheable method can not have a @RequestBody param: " + target);
+        }
+
+        return new ResponseCache(cacheable.ttl(), cacheable.maxEntries(), cacheable.maxBytes());
+    }
+
+    /**
+     * @return max size of the body of the @RequestBody param, 0 for the default limit, -1 when there is no such param.
+     */
+    private long bodyMaxBytes() {
+        if (route != null) {
+            return route.getBodyMaxBytes();
+        }
+
+        for (Parameter param : target.getParameters()) {
+            RequestBody requestBody = param.getAnnotation(RequestBody.class);
+            if (requestBody != null) {
+                return requestBody.maxBytes();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Methods without @RequestBody param do not read the body, it is limited by the default limit.
+     */
+    @Override
+    public long getMaxBodyBytes() {
+        return RequestBodyLimit.resolve(bodyMaxBytes);
     }
 
     @Override
     public void handle(HttpExchange exchange) throws IOException {
-        if(validateRequest(exchange)) {
+        handle(exchange, PathVariables.EMPTY);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange, PathVariables pathVariables) throws IOException {
+        // path and HTTP method were already validated by the RequestDispatcher of the server
+        EndpointMetrics metrics = this.metrics;
+
+        // the limits are checked before binding, a rejected request does not read nor deserialize its body
+        if (bodyMaxBytes >= 0 && RequestBodyLimit.exceeds(exchange.getRequestHeaders().getFirst(Constants.CONTENT_LENGTH),
+                RequestBodyLimit.resolve(bodyMaxBytes))) {
+            metrics.recordPayloadTooLarge();
+            sendPayloadTooLarge(exchange);
+            return;
+        }
+        // format of the response selected with the Accept header, streams are always NDJSON
+        int codec = hasResponse && responseKind != PUBLISHER_RESPONSE
+                ? codecs.forAccept(exchange.getRequestHeaders().getFirst(Constants.ACCEPT)) : ContentCodecs.JSON;
+        if (codec == ContentCodecs.UNSUPPORTED) {
+            metrics.recordError();
+            ResponseBodyStream.send(exchange, 406, NOT_ACCEPTABLE_RESPONSE);
             return;
         }
+        if (rateLimiter != null && !rateLimiter.tryAcquire()) {
+            metrics.recordRateLimited();
+            exchange.getResponseHeaders().set(Constants.RETRY_AFTER, Long.toString(rateLimiter.getRetryAfterSeconds()));
+            ResponseBodyStream.send(exchange, 429, TOO_MANY_REQUESTS_RESPONSE);
+            return;
+        }
+        int stripe = concurrencyLimiter != null ? concurrencyLimiter.tryAcquire() : -1;
+        if (concurrencyLimiter != null && stripe < 0) {
+            metrics.recordConcurrencyRejected();
+            ResponseBodyStream.send(exchange, 503, UNAVAILABLE_RESPONSE);
+            return;
+        }
+
+        metrics.recordRequest();
+        // null when the request is not sampled by the trace mode
+        RequestTrace trace = TraceRecorder.getDefault().start(requestType, requestPath);
+        long start = System.nanoTime();
+        // futures and publishers complete the request in other threads, they record when it finished
+        boolean completesLater = false;
 
         try {
-            Object objectResponse = null;
+            Object[] requestParam = handleRequestParams(exchange, pathVariables);
+            long bound = System.nanoTime();
+            recordPhase(trace, EndpointMetrics.BIND, bound - start);
 
-            Object[] requestParam = handleRequestParams(exchange);
+            if (responseCache != null) {
+                handleCached(exchange, requestParam, codec, start, bound, trace);
+                return;
+            }
 
-            // if method is not void means, we need to return data to the client
-            if(target.getReturnType().getSimpleName() != Constants.VOID) {
+            if (responseKind == SYNC_RESPONSE) {
                 // invoke the controller method and receive the response
-                objectResponse = executeRequest(requestParam);
-
-                // serialize the response
-                String jsonObject = serializeObject(objectResponse);
-
-                // configure the HTTP headers
-                exchange.getResponseHeaders().set(Constants.CONTENT_TYPE, Constants.APP_OCTET_STREAM);
-                exchange.sendResponseHeaders(200, jsonObject.length());
+                Object objectResponse = executeRequest(requestParam);
+                long invoked = System.nanoTime();
+                recordPhase(trace, EndpointMetrics.INVOKE, invoked - bound);
+                writeResponse(exchange, objectResponse, codec, start, invoked, trace);
+                return;
+            }
 
-                // send the serialized object to the client
-                try (OutputStream os = exchange.getResponseBody()) {
-                    os.write(jsonObject.getBytes());
+            // the instance is used until the future or the publisher completes, finishRequest releases it
+            Object instance = instanceProvider.acquire();
+            Object objectResponse;
+            try {
+                objectResponse = invoker.invoke(instance, requestParam);
+            } catch (InvocationTargetException | RuntimeException e) {
+                instanceProvider.release(instance);
+                throw e;
+            }
+            completesLater = true;
+
+            if (responseKind == FUTURE_RESPONSE) {
+                // the server thread is released now, the exchange is completed when the future completes or
+                // when the timeout expires, a late completion of the future is ignored
+                CompletableFuture<Object> futureResponse = new CompletableFuture<>();
+                if (objectResponse != null) {
+                    ((CompletionStage<?>) objectResponse).whenComplete((value, error) -> {
+                        if (error != null) {
+                            futureResponse.completeExceptionally(error);
+                        } else {
+                            futureResponse.complete(value);
+                        }
+                    });
+                } else {
+                    futureResponse.complete(null);
                 }
+                long timeout = AsyncTimeout.getDefaultMillis();
+                if (timeout > 0) {
+                    futureResponse.orTimeout(timeout, TimeUnit.MILLISECONDS);
+                }
+                futureResponse.whenComplete((value, error) -> completeFuture(exchange, value, error, codec, start, bound,
+                        stripe, trace, instance));
             } else {
-                // if method from controller do not contain a response, return a generic message
-                executeRequest(requestParam);
-
-                // generic message
-                String response = "Method executed successfully";
-                exchange.sendResponseHeaders(200, response.length());
-                try (OutputStream os = exchange.getResponseBody()) {
-                    os.write(response.getBytes());
+                recordPhase(trace, EndpointMetrics.INVOKE, System.nanoTime() - bound);
+                // the items are written by the publisher threads as they are produced, NDJSON is always JSON
+                // a method that returned null answers an empty stream
+                Flow.Publisher<?> publisher = objectResponse != null ? (Flow.Publisher<?>) objectResponse : EMPTY_PUBLISHER;
+                PublisherResponse response = new PublisherResponse(exchange, responseWriters[ContentCodecs.JSON],
+                        metrics, start, AsyncTimeout.getDefaultMillis(), () -> finishRequest(stripe, trace, instance));
+                try {
+                    publisher.subscribe(response);
+                } catch (RuntimeException e) {
+                    response.onError(e);
                 }
             }
+        } catch (PayloadTooLargeException e) {
+            // a chunked body reached the limit while it was deserialized, nothing was sent yet
+            metrics.recordPayloadTooLarge();
+            sendPayloadTooLarge(exchange);
+        } catch (BadRequestException e) {
+            // a param cannot be converted, the controller was not invoked and nothing was sent yet
+            metrics.recordError();
+            if (trace != null) {
+                trace.failed();
+            }
+            System.out.println(e);
+            ResponseBodyStream.send(exchange, 400, BAD_REQUEST_RESPONSE);
+        } catch (UnsupportedMediaTypeException e) {
+            // the body has a format that is not registered, the controller was not invoked and nothing was sent yet
+            metrics.recordError();
+            if (trace != null) {
+                trace.failed();
+            }
+            System.out.println(e);
+            ResponseBodyStream.send(exchange, 415, UNSUPPORTED_MEDIA_TYPE_RESPONSE);
         } catch (Exception e) {
+            metrics.recordError();
+            if (trace != null) {
+                trace.failed();
+            }
             System.out.println(e);
             throw new RuntimeException(e);
+        } finally {
+            if (!completesLater) {
+                finishRequest(stripe, trace, null);
+            }
         }
     }
 
-    public Object executeRequest(Object[] requestParam) throws InvocationTargetException, IllegalAccessException {
-        Object responseObject = this.target.invoke(instance, requestParam);
+    /**
+     * The rest of the body is not read, so the connection is closed after the response instead of being reused.
+     */
+    private static void sendPayloadTooLarge(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set(CONNECTION, CLOSE);
+        ResponseBodyStream.send(exchange, 413, PAYLOAD_TOO_LARGE_RESPONSE);
+    }
 
-        if(scope.equals(ClassScope.REQUEST)) {
-            try {
-                this.instance = this.instance.getClass().getDeclaredConstructor().newInstance();
-                System.out.println(ClassScope.REQUEST + ":Creating new instance for each request");
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
+    /**
+     * The response of a request was completed or failed, it releases the controller instance and the concurrency
+     * permit of the request and records its trace.
+     *
+     * @param stripe stripe of the concurrency permit, -1 for methods without @MaxConcurrent.
+     * @param trace trace of the request, null when it was not sampled.
+     * @param instance controller instance of an asynchronous response, null when it was already released.
+     */
+    private void finishRequest(int stripe, RequestTrace trace, Object instance) {
+        if (trace != null) {
+            trace.finish();
+        }
+        if (instance != null) {
+            instanceProvider.release(instance);
+        }
+        metrics.recordFinished();
+        if (stripe >= 0) {
+            concurrencyLimiter.release(stripe);
         }
-        return responseObject;
     }
 
     /**
-     * Extract request params from request return an object array, each element is a request param
+     * Send the response of the controller method.
      *
-     * @param exchange
-     * @return
+     * @param exchange current exchange.
+     * @param objectResponse value returned by the controller method (or by its future).
+     * @param codec format of the response, index of ContentCodecs.
+     * @param start time when the request started.
+     * @param invoked time when the controller method finished.
+     * @param trace trace of the request, null when it was not sampled.
+     * @throws IOException
      */
-    private Object[] handleRequestParams(HttpExchange exchange) throws IOException {
-        String queryString = exchange.getRequestURI().getQuery();
-        Map<String, List<String>> requestPathVariables = this.extractParams(queryString);
+    private void writeResponse(HttpExchange exchange, Object objectResponse, int codec, long start, long invoked,
+                               RequestTrace trace) throws IOException {
+        // if method is not void means, we need to return data to the client
+        if(hasResponse) {
+            // configure the HTTP headers
+            setContentHeaders(exchange, codec);
+
+            // serialize the response straight into the response body, small bodies are sent with their length
+            // in bytes and big bodies are sent with chunked encoding (then the serialize phase includes writes)
+            // the body is compressed when the client accepts it and it reaches the min size
+            String encoding = ResponseCompression.getDefault().select(exchange.getRequestHeaders().getFirst(Constants.ACCEPT_ENCODING));
+            ResponseBodyStream os = new ResponseBodyStream(exchange, 200, encoding);
+            responseWriters[codec].writeValue(os, objectResponse);
+            long serialized = System.nanoTime();
+            recordPhase(trace, EndpointMetrics.SERIALIZE, serialized - invoked);
+
+            os.close();
+            long written = System.nanoTime();
+            recordPhase(trace, EndpointMetrics.WRITE, written - serialized);
+            recordPhase(trace, EndpointMetrics.TOTAL, written - start);
+        } else {
+            // if method from controller do not contain a response, return a generic message
+            ResponseBodyStream.send(exchange, 200, GENERIC_RESPONSE);
+            long written = System.nanoTime();
+            recordPhase(trace, EndpointMetrics.WRITE, written - invoked);
+            recordPhase(trace, EndpointMetrics.TOTAL, written - start);
+        }
+    }
 
-        // read the parameters from our target method (the method inside the controller class)
-        Parameter[] parameters = this.target.getParameters();
-        // now we can create an object that can be used in the target method call
-        Object[] parameterValues = new Object[parameters.length];
-
-        int index = 0;
-        for (Parameter param: parameters) {
-            // verify if current param contains an annotation of the data that should be injected
-            RequestParam parameterAnnotation = param.getAnnotation(RequestParam.class);
-
-            if(parameterAnnotation != null) {
-                // verify if one of HTTP request params has the same name as current annotation RequestParam(value = "name")
-                if(requestPathVariables.containsKey(parameterAnnotation.value())
-                    && !requestPathVariables.get(parameterAnnotation.value()).get(0).isEmpty()) {
-                    // extract the request param and convert it into input stream
-                    InputStream inputParamStream = new ByteArrayInputStream(requestPathVariables.get(parameterAnnotation.value())
-                            .get(0).getBytes());
-                    // deserialize the param
-                    Object requestParam = deserializeObjectRequestObject(inputParamStream, param.getType(), Constants.REQUEST_PARAM);
-                    parameterValues[index] = requestParam;
-                } else {
-                    injectDefaultValue(parameterValues, index, param.getType());
-                }
+    /**
+     * Send the response of a @Cacheable method, the method is only invoked when the response of the same params
+     * is not cached yet. The key is the list of bound params and the format, so the order of the query params and
+     * the params that the method does not use do not change the key. The compressed variants are stored with the
+     * response, so a hit is never compressed again.
+     */
+    private void handleCached(HttpExchange exchange, Object[] requestParam, int codec, long start, long bound,
+                              RequestTrace trace) throws Exception {
+        ResponseCompression compression = ResponseCompression.getDefault();
+        Object[] keyParts = Arrays.copyOf(requestParam, requestParam.length + 1);
+        keyParts[requestParam.length] = codec;
+        Object key = Arrays.asList(keyParts);
+        CachedResponse cached = responseCache.get(key);
+        long serialized;
+
+        if (cached == null) {
+            Object objectResponse = executeRequest(requestParam);
+            long invoked = System.nanoTime();
+            recordPhase(trace, EndpointMetrics.INVOKE, invoked - bound);
+
+            byte[] body = responseWriters[codec].writeValueAsBytes(objectResponse);
+            cached = responseCache.put(key, body, compression.precompress(body));
+            serialized = System.nanoTime();
+            recordPhase(trace, EndpointMetrics.SERIALIZE, serialized - invoked);
+        } else {
+            serialized = bound;
+        }
 
-            // Extract request body
-            } else if (param.getAnnotation(RequestBody.class) != null) {
-                Object requestBody = deserializeObjectRequestObject(exchange.getRequestBody(), param.getType(), Constants.REQUEST_BODY);
-                parameterValues[index] = requestBody;
-            }  else {
-                injectDefaultValue(parameterValues, index, param.getType());
+        // the variant of the accepted encoding, small responses are only stored without compression
+        String encoding = compression.select(exchange.getRequestHeaders().getFirst(Constants.ACCEPT_ENCODING));
+        byte[] body = cached.getBody(encoding);
+        if (body == null) {
+            encoding = null;
+            body = cached.getBody();
+        }
+
+        // a 304 carries the same Vary as the 200, so caches keep one entry per format and encoding
+        setContentHeaders(exchange, codec);
+        exchange.getResponseHeaders().set(Constants.ETAG, cached.getEtag(encoding));
+        if (cached.matches(exchange.getRequestHeaders().getFirst(Constants.IF_NONE_MATCH), encoding)) {
+            // the client already has the response
+            ResponseBodyStream.send(exchange, 304, NOT_MODIFIED_RESPONSE);
+        } else {
+            if (encoding != null) {
+                exchange.getResponseHeaders().set(Constants.CONTENT_ENCODING, encoding);
             }
-            index++;
+            ResponseBodyStream.send(exchange, 200, body);
         }
-        return parameterValues;
+
+        long written = System.nanoTime();
+        recordPhase(trace, EndpointMetrics.WRITE, written - serialized);
+        recordPhase(trace, EndpointMetrics.TOTAL, written - start);
     }
 
     /**
-     * When the request param is empty, set the default value to each primitive variable, they cannot be null like a
-     * regular Object.
-     *
-     * @param parameterValues array that contains params.
-     * @param index index that is used to save a new param.
-     * @param paramType param used to select the default value to primitive variables.
+     * Content-Type of the selected format, the response depends on the Accept header (and on the Accept-Encoding
+     * header when compression is enabled) so caches must keep it too.
      */
-    private void injectDefaultValue(Object[] parameterValues, int index, Class paramType) {
-
-        if(paramType == byte.class) {
-            parameterValues[index] = byteValue;
-        } else if (paramType == short.class) {
-            parameterValues[index] = shortValue;
-        } else if (paramType == int.class) {
-            parameterValues[index] = intValue;
-        } else if (paramType == long.class) {
-            parameterValues[index] = longValue;
-        } else if (paramType == float.class) {
-            parameterValues[index] = floatValue;
-        } else if (paramType == double.class) {
-            parameterValues[index] = doubleValue;
-        } else if (paramType == boolean.class) {
-            parameterValues[index] = booleanValue;
-        } else if (paramType == char.class) {
-            parameterValues[index] = charValue;
-        } else if (paramType == String.class) {
-            parameterValues[index] = Constants.EMPTY_STRING;
-        } else {
-            parameterValues[index] = null;
-        }
+    private void setContentHeaders(HttpExchange exchange, int codec) {
+        exchange.getResponseHeaders().set(Constants.CONTENT_TYPE, codecs.getMediaType(codec));
+        exchange.getResponseHeaders().set(Constants.VARY,
+                ResponseCompression.getDefault().isEnabled() ? VARY_COMPRESSED : Constants.ACCEPT);
     }
 
     /**
-     * Deserialize an InputStream into a specific class.
-     *
-     * @param objectStream input stream that represents an object.
-     * @return
+     * Complete the exchange of a controller method that returned a CompletableFuture / CompletionStage, it runs in
+     * the thread that completed the future. A failed future is answered with a 500, and a future that did not
+     * complete before the AsyncTimeout with a 503.
      */
-    private Object deserializeObjectRequestObject(InputStream objectStream, Class myClass, String requestType) {
-        Object response = null;
+    private void completeFuture(HttpExchange exchange, Object value, Throwable error, int codec, long start, long bound,
+                                int stripe, RequestTrace trace, Object instance) {
+        long invoked = System.nanoTime();
+        recordPhase(trace, EndpointMetrics.INVOKE, invoked - bound);
 
-        if(objectStream == null) {
-            return null;
+        try {
+            if (error != null) {
+                metrics.recordError();
+                if (trace != null) {
+                    trace.failed();
+                }
+                System.out.println(error);
+                if (error instanceof TimeoutException) {
+                    ResponseBodyStream.send(exchange, 503, UNAVAILABLE_RESPONSE);
+                } else {
+                    ResponseBodyStream.send(exchange, 500, INTERNAL_ERROR_RESPONSE);
+                }
+                return;
+            }
+            writeResponse(exchange, value, codec, start, invoked, trace);
+        } catch (Exception e) {
+            metrics.recordError();
+            if (trace != null) {
+                trace.failed();
+            }
+            System.out.println(e);
+            exchange.close();
+        } finally {
+            finishRequest(stripe, trace, instance);
         }
+    }
 
-        try {
-            response = deserializeObject(objectStream, myClass);
-        } catch (IOException e) {
-            throw new RuntimeException("Error while deserializing " + requestType + " expected type: " + myClass.getTypeName() + " : " + e);
+    /**
+     * @param trace trace of the request, null when it was not sampled.
+     * @param phase one of BIND, INVOKE, SERIALIZE, WRITE or TOTAL.
+     * @param nanos duration of the phase.
+     */
+    private void recordPhase(RequestTrace trace, int phase, long nanos) {
+        metrics.recordPhase(phase, nanos);
+        if (trace != null) {
+            trace.phase(phase, nanos);
         }
+    }
 
-        return response;
+    public Object executeRequest(Object[] requestParam) throws InvocationTargetException {
+        // the instance stays in this method, so request and pooled instances are never shared between threads
+        Object instance = instanceProvider.acquire();
+        try {
+            return this.invoker.invoke(instance, requestParam);
+        } finally {
+            instanceProvider.release(instance);
+        }
     }
 
     /**
-     * Method used to extract params from query request.
-     * Example: key1=value1&key2=value2
+     * Extract request params from request return an object array, each element is a request param.
+     * The binders were resolved when the handler was created, so no annotation is read here.
      *
-     * @param queryString
-     * @return map that contains all the key:values
+     * @param exchange
+     * @param pathVariables variables extracted from the request path.
+     * @return
      */
-    private Map<String, List<String>> extractParams(String queryString) {
-        Map<String, List<String>> params = null;
-        if(queryString == null || queryString.isBlank()) {
-            return params;
-        }
+    private Object[] handleRequestParams(HttpExchange exchange, PathVariables pathVariables) throws IOException {
+        // the raw query is used, QueryParams decodes each name and value after splitting by & and =
+        QueryParams requestParams = QueryParams.parse(exchange.getRequestURI().getRawQuery());
+
+        // now we can create an object that can be used in the target method call
+        Object[] parameterValues = new Object[binders.length];
 
-        return Arrays.stream(queryString.split(Constants.AND))
-                .map(param -> param.split(Constants.EQUALS))
-                .collect(Collectors.groupingBy(
-                        entry -> entry[0],
-                        Collectors.mapping(entry -> entry.length > 1 ? entry[1] : Constants.EMPTY_STRING, Collectors.toList())
-                ));
+        for (int index = 0; index < binders.length; index++) {
+            parameterValues[index] = binders[index].bind(exchange, requestParams, pathVariables);
+        }
+        return parameterValues;
     }
 
     /**
-     * Validate common error and trow exception when request is incorrect.
+     * Deserialize an InputStream into a specific class, the stream is parsed directly without copying it into a String.
      *
-     * @param exchange object generated for every requests
-     * @return boolean - when error detected return true
-     * @throws IOException
+     * @param objectStream input stream that represents an object.
+     * @return
      */
-    private boolean validateRequest(HttpExchange exchange) throws IOException {
-        int errorCode = -1;
-        String errorResponse = Constants.EMPTY_STRING;
-
-        String currentPath = exchange.getRequestURI().getPath();
-        if(!this.requestPath.equals(currentPath)) {
-            errorCode = 404;
-            errorResponse = "Method not found";
-        }
-        if(!exchange.getRequestMethod().equals(requestType)) {
-            errorCode = 405;
-            errorResponse = "Method Not Allowed";
-        }
+    static Object deserializeObjectRequestObject(InputStream objectStream, ObjectReader reader, String requestType) {
+        Object response = null;
 
-        if (errorResponse != Constants.EMPTY_STRING) {
-            exchange.sendResponseHeaders(errorCode, errorResponse.length());
+        if(objectStream == null) {
+            return null;
+        }
 
-            try (OutputStream os = exchange.getResponseBody()) {
-                os.write(errorResponse.getBytes());
-            }
-            return true;
+        try {
+            response = reader.readValue(objectStream);
+        } catch (IOException e) {
+            throw new RuntimeException("Error while deserializing " + requestType + " expected type: " + reader.getValueType() + " : " + e);
         }
 
-        return false;
+        return response;
     }
 
     /**
@@ -273,8 +582,7 @@ public class MyRequestHandler implements HttpHandler {
      * @throws IOException
      */
     public static String serializeObject(Object object) throws IOException {
-        ObjectMapper objectMapper = new ObjectMapper();
-        return objectMapper.writeValueAsString(object);
+        return CodecRegistry.getDefault().getObjectMapper().writeValueAsString(object);
     }
 
     /**
@@ -284,14 +592,19 @@ public class MyRequestHandler implements HttpHandler {
      * @throws IOException
      */
     public static <T> T deserializeObject(InputStream inputStream, Class<T> myClass) throws IOException {
-        ObjectMapper objectMapper = new ObjectMapper();
-        String jsonInput = new String(inputStream.readAllBytes());
-
-        return objectMapper.readValue(jsonInput, myClass);
+        return CodecRegistry.getDefault().readerFor(myClass).readValue(inputStream);
     }
 
     public void setRequestPath(String requestPath) {
         this.requestPath = requestPath;
+        this.metrics = MetricsRegistry.getDefault().register(requestType, requestPath);
+        if (responseCache != null) {
+            metrics.setResponseCache(responseCache);
+        }
+    }
+
+    public String getRequestPath() {
+        return requestPath;
     }
 
     public Method getMethod() {
@@ -301,4 +614,23 @@ public class MyRequestHandler implements HttpHandler {
     public String getRequestType() {
         return requestType;
     }
+
+    public EndpointMetrics getMetrics() {
+        return metrics;
+    }
+
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * @return metadata of the route, null when the handler was not created from a route table.
+     */
+    public RouteDefinition getRoute() {
+        return route;
+    }
+
+    public String getScope() {
+        return instanceProvider.getScope();
+    }
 }
@@ -0,0 +1,100 @@
+package com.example.myspringboot;
+
+import com.example.myspringannotations.PathVariable;
+import com.example.myspringannotations.RequestBody;
+import com.example.myspringannotations.RequestParam;
+
+import java.lang.reflect.Parameter;
+import java.lang.reflect.Type;
+
+/**
+ * Where the value of a controller method param comes from, read once from the param annotations:
+ * --> query: @RequestParam, a param of the query string.
+ * --> path: @PathVariable, a variable of the request path.
+ * --> body: @RequestBody, the request body.
+ * --> none: no annotation, the default value of the type.
+ */
+public final class ParamDescriptor {
+
+    public static final String QUERY = "query";
+    public static final String PATH = "path";
+    public static final String BODY = "body";
+    public static final String NONE = "none";
+
+    private final String kind;
+    private final String name;
+    private final Class<?> type;
+    private final Type genericType;
+    // max size of a request body, 0 means the default limit
+    private final long maxBytes;
+
+    private ParamDescriptor(String kind, String name, Class<?> type, Type genericType, long maxBytes) {
+        this.kind = kind;
+        this.name = name;
+        this.type = type;
+        this.genericType = genericType;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @param param controller method param.
+     * @return descriptor of the param.
+     */
+    public static ParamDescriptor of(Parameter param) {
+        RequestParam requestParam = param.getAnnotation(RequestParam.class);
+        if (requestParam != null) {
+            return new ParamDescriptor(QUERY, requestParam.value(), param.getType(), param.getParameterizedType(), 0);
+        }
+
+        PathVariable pathVariable = param.getAnnotation(PathVariable.class);
+        if (pathVariable != null) {
+            return new ParamDescriptor(PATH, pathVariable.value(), param.getType(), param.getParameterizedType(), 0);
+        }
+
+        RequestBody requestBody = param.getAnnotation(RequestBody.class);
+        if (requestBody != null) {
+            if (requestBody.maxBytes() < 0) {
+                throw new RuntimeException("Invalid @RequestBody maxBytes: " + requestBody.maxBytes() + " of " + param);
+            }
+            return new ParamDescriptor(BODY, null, param.getType(), param.getParameterizedType(), requestBody.maxBytes());
+        }
+        return new ParamDescriptor(NONE, null, param.getType(), param.getParameterizedType(), 0);
+    }
+
+    /**
+     * @return one of QUERY, PATH, BODY or NONE.
+     */
+    public String getKind() {
+        return kind;
+    }
+
+    /**
+     * @return name of the query param or path variable, null for the other kinds.
+     */
+    public String getName() {
+        return name;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public Type getGenericType() {
+        return genericType;
+    }
+
+    /**
+     * @return max size in bytes of the request body, 0 when the default limit is used.
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return short description used by the route report, like "query intParam:int".
+     */
+    @Override
+    public String toString() {
+        return kind + (name != null ? " " + name : "") + ":" + type.getSimpleName();
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.myspringboot;
+
+import com.example.codec.ContentCodecs;
+import com.example.server.PathVariables;
+import com.example.server.QueryParams;
+import com.example.server.RouteTrie;
+import com.example.util.Constants;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+
+/**
+ * Resolve the value of one controller method param for the current request.
+ *
+ * Binders are resolved once per controller method when the handlers are created, in that way the request
+ * handler does not need to read the param annotations for each request.
+ */
+@FunctionalInterface
+public interface ParameterBinder {
+
+    /**
+     * @param exchange current HTTP exchange.
+     * @param requestParams params extracted from the query string.
+     * @param pathVariables variables extracted from the request path.
+     * @return value that will be injected in the controller method.
+     */
+    Object bind(HttpExchange exchange, QueryParams requestParams, PathVariables pathVariables) throws IOException;
+
+    /**
+     * Resolve one binder for each param of the method.
+     *
+     * @param method controller method.
+     * @return binders in the same order as the method params.
+     */
+    static ParameterBinder[] resolve(Method method) {
+        Parameter[] parameters = method.getParameters();
+        ParameterBinder[] binders = new ParameterBinder[parameters.length];
+
+        for (int index = 0; index < parameters.length; index++) {
+            binders[index] = forParameter(parameters[index]);
+        }
+        return binders;
+    }
+
+    /**
+     * Resolve one binder for each param of a route, from the descriptors of the route table.
+     *
+     * @param route route definition.
+     * @return binders in the same order as the method params.
+     */
+    static ParameterBinder[] resolve(RouteDefinition route) {
+        ParameterBinder[] binders = new ParameterBinder[route.getParamCount()];
+        String[] variableNames = RouteTrie.variableNames(route.getPath());
+
+        for (int index = 0; index < binders.length; index++) {
+            binders[index] = forDescriptor(route.getParam(index), variableNames);
+        }
+        return binders;
+    }
+
+    /**
+     * @param param controller method param.
+     * @return binder for the param.
+     */
+    static ParameterBinder forParameter(Parameter param) {
+        return forDescriptor(ParamDescriptor.of(param));
+    }
+
+    /**
+     * Select the binder of a param from its descriptor:
+     * --> @RequestParam: read the value from the query string, or the default value when missing.
+     * --> @PathVariable: read the value from the request path, like {id} in /v1/users/{id}.
+     * --> @RequestBody: deserialize the request body.
+     * --> no annotation: always inject the default value.
+     *
+     * @param param descriptor of the controller method param.
+     * @return binder for the param.
+     */
+    static ParameterBinder forDescriptor(ParamDescriptor param) {
+        return forDescriptor(param, null);
+    }
+
+    /**
+     * @param param descriptor of the controller method param.
+     * @param variableNames path variables of the route in path order, null when the path is not known, in that
+     *                      case the index of a path variable is searched for each request.
+     * @return binder for the param.
+     */
+    static ParameterBinder forDescriptor(ParamDescriptor param, String[] variableNames) {
+        Class<?> paramType = param.getType();
+        Object defaultValue = defaultValue(paramType);
+
+        if (ParamDescriptor.QUERY.equals(param.getKind())) {
+            String name = param.getName();
+            ValueConverter converter = ValueConverter.forType(paramType, param.getGenericType());
+            String typeName = param.getGenericType().getTypeName();
+
+            return (exchange, requestParams, pathVariables) -> {
+                // verify if one of HTTP request params has the same name as current annotation RequestParam(value = "name")
+                String value = requestParams.get(name);
+                if (value == null || value.isEmpty()) {
+                    return defaultValue;
+                }
+
+                // convert the request param into the param type
+                try {
+                    return converter.convert(value);
+                } catch (Exception e) {
+                    throw new BadRequestException("Error while deserializing " + Constants.REQUEST_PARAM + " expected type: "
+                            + typeName + " : " + e);
+                }
+            };
+        }
+
+        if (ParamDescriptor.PATH.equals(param.getKind())) {
+            return forPathVariable(param.getName(), paramType, indexOf(variableNames, param.getName()));
+        }
+
+        if (ParamDescriptor.BODY.equals(param.getKind())) {
+            // one reader per format, the reader keeps the generic type of the param, List<Integer> is not read as List<Object>
+            ContentCodecs codecs = ContentCodecs.getDefault();
+            ObjectReader[] readers = new ObjectReader[codecs.size()];
+            for (int codec = 0; codec < readers.length; codec++) {
+                readers[codec] = codecs.getRegistry(codec).readerFor(param.getGenericType());
+            }
+
+            long maxBytes = param.getMaxBytes();
+
+            // the format of the body is selected with the Content-Type header, JSON when it is missing
+            // the body is read through a bounded stream, a chunked body is cut off at the limit
+            return (exchange, requestParams, pathVariables) -> {
+                if (exchange.getRequestBody() == null) {
+                    return null;
+                }
+                String contentType = exchange.getRequestHeaders().getFirst(Constants.CONTENT_TYPE);
+                int codec = codecs.forContentType(contentType);
+                if (codec == ContentCodecs.UNSUPPORTED) {
+                    throw new UnsupportedMediaTypeException("Unsupported " + Constants.CONTENT_TYPE + ": " + contentType);
+                }
+                BoundedInputStream body = new BoundedInputStream(exchange.getRequestBody(), RequestBodyLimit.resolve(maxBytes));
+                try {
+                    return MyRequestHandler.deserializeObjectRequestObject(body, readers[codec], Constants.REQUEST_BODY);
+                } catch (RuntimeException e) {
+                    // the exception of the limit can arrive wrapped by the parser
+                    if (body.isExceeded() && !(e instanceof PayloadTooLargeException)) {
+                        throw new PayloadTooLargeException(RequestBodyLimit.resolve(maxBytes));
+                    }
+                    throw e;
+                }
+            };
+        }
+
+        return (exchange, requestParams, pathVariables) -> defaultValue;
+    }
+
+    /**
+     * Path variables are converted directly from the request path, numbers are parsed from the offsets of the
+     * variable without creating a String. The value is still boxed, the controller method is invoked with an
+     * Object[] of args.
+     *
+     * A value that cannot be converted, like /v1/users/abc for an int, is answered with a 400.
+     *
+     * @param name variable name.
+     * @param paramType type of the controller param.
+     * @param index position of the variable in the path of the route, -1 when it is not known.
+     * @return binder for the path variable.
+     */
+    private static ParameterBinder forPathVariable(String name, Class<?> paramType, int index) {
+        PathValue value = pathValue(name, paramType);
+        String typeName = paramType.getName();
+
+        return (exchange, requestParams, pathVariables) -> {
+            int variable = index >= 0 ? index : pathVariables.indexOf(name);
+            try {
+                return value.read(pathVariables, variable);
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Error while converting " + Constants.PATH_VARIABLE + " " + name
+                        + " expected type: " + typeName + " : " + e.getMessage());
+            }
+        };
+    }
+
+    private static PathValue pathValue(String name, Class<?> paramType) {
+        if (paramType == int.class || paramType == Integer.class) {
+            return PathVariables::getInt;
+        } else if (paramType == long.class || paramType == Long.class) {
+            return PathVariables::getLong;
+        } else if (paramType == short.class || paramType == Short.class) {
+            return PathVariables::getShort;
+        } else if (paramType == byte.class || paramType == Byte.class) {
+            return PathVariables::getByte;
+        } else if (paramType == boolean.class || paramType == Boolean.class) {
+            return PathVariables::getBoolean;
+        } else if (paramType == char.class || paramType == Character.class) {
+            return PathVariables::getChar;
+        } else if (paramType == double.class || paramType == Double.class) {
+            return (pathVariables, index) -> Double.parseDouble(pathVariables.getString(index));
+        } else if (paramType == float.class || paramType == Float.class) {
+            return (pathVariables, index) -> Float.parseFloat(pathVariables.getString(index));
+        } else if (paramType == String.class) {
+            return PathVariables::getString;
+        } else if (paramType.isEnum()) {
+            return (pathVariables, index) -> enumValue(paramType, pathVariables.getString(index));
+        }
+
+        throw new RuntimeException("Unsupported type for @PathVariable(\"" + name + "\"): " + paramType.getName());
+    }
+
+    private static int indexOf(String[] variableNames, String name) {
+        if (variableNames != null) {
+            for (int index = 0; index < variableNames.length; index++) {
+                if (variableNames[index].equals(name)) {
+                    return index;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Read one path variable by its position.
+     */
+    @FunctionalInterface
+    interface PathValue {
+        Object read(PathVariables pathVariables, int index);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object enumValue(Class<?> enumType, String value) {
+        return Enum.valueOf((Class<? extends Enum>) enumType, value);
+    }
+
+    /**
+     * When the request param is empty, set the default value to each primitive variable, they cannot be null like a
+     * regular Object.
+     *
+     * @param paramType param used to select the default value to primitive variables.
+     * @return default value for the type.
+     */
+    static Object defaultValue(Class<?> paramType) {
+        if (paramType == byte.class) {
+            return (byte) 0;
+        } else if (paramType == short.class) {
+            return (short) 0;
+        } else if (paramType == int.class) {
+            return 0;
+        } else if (paramType == long.class) {
+            return 0L;
+        } else if (paramType == float.class) {
+            return 0.0f;
+        } else if (paramType == double.class) {
+            return 0.0d;
+        } else if (paramType == boolean.class) {
+            return false;
+        } else if (paramType == char.class) {
+            return '\u0000';
+        } else if (paramType == String.class) {
+            return Constants.EMPTY_STRING;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.myspringboot;
+
+/**
+ * The request body is longer than the limit of its @RequestBody param, the request is answered with a 413.
+ */
+public class PayloadTooLargeException extends RuntimeException {
+
+    private final long maxBytes;
+
+    public PayloadTooLargeException(long maxBytes) {
+        super("Request body is larger than " + maxBytes + " bytes");
+        this.maxBytes = maxBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.myspringboot;
+
+import com.example.metrics.EndpointMetrics;
+import com.example.util.Constants;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Subscriber that streams the items of a Flow.Publisher returned by a controller method as NDJSON (one JSON value
+ * per line) with chunked encoding.
+ *
+ * Backpressure: one item is requested at a time and the next one is only requested after the previous item was
+ * written to the socket, so a slow client slows down the publisher instead of filling the memory.
+ *
+ * A publisher that does not send an item (or completes) within the timeout is cancelled and the stream is cut, so
+ * the request does not keep its concurrency permit and its controller instance forever.
+ *
+ * The items are written by the publisher thread and the timeout runs in another thread, so every write and the
+ * close of the exchange are done with the lock of the response. A failed or timed out stream is cut by closing the
+ * connection without the last chunk, so the client can not take it for a complete stream.
+ */
+final class PublisherResponse implements Flow.Subscriber<Object> {
+
+    private final HttpExchange exchange;
+    private final ObjectWriter itemWriter;
+    private final EndpointMetrics metrics;
+    private final long start;
+    // records the end of the request, and releases its concurrency permit
+    private final Runnable onFinished;
+    // max time without items, 0 without timeout
+    private final long timeoutMillis;
+    private final AtomicBoolean finished = new AtomicBoolean();
+    // serializes the writes of the publisher thread with the close of the timeout thread
+    private final Object lock = new Object();
+    private volatile Flow.Subscription subscription;
+    private volatile long lastItem;
+    private OutputStream body;
+
+    PublisherResponse(HttpExchange exchange, ObjectWriter itemWriter, EndpointMetrics metrics, long start,
+                      long timeoutMillis, Runnable onFinished) {
+        this.exchange = exchange;
+        this.itemWriter = itemWriter;
+        this.metrics = metrics;
+        this.start = start;
+        this.timeoutMillis = timeoutMillis;
+        this.onFinished = onFinished;
+        this.lastItem = System.nanoTime();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        synchronized (lock) {
+            try {
+                exchange.getResponseHeaders().set(Constants.CONTENT_TYPE, Constants.APP_NDJSON);
+                exchange.sendResponseHeaders(200, 0);
+                body = exchange.getResponseBody();
+            } catch (IOException e) {
+                subscription.cancel();
+                finish(true);
+                return;
+            }
+        }
+        if (timeoutMillis > 0) {
+            scheduleTimeout(timeoutMillis);
+        }
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(Object item) {
+        synchronized (lock) {
+            // the stream was cut by the timeout or an error, the late items are dropped
+            if (finished.get()) {
+                return;
+            }
+
+            try {
+                itemWriter.writeValue(body, item);
+                body.write('\n');
+                body.flush();
+            } catch (IOException e) {
+                // the client is gone, stop the publisher
+                subscription.cancel();
+                finish(true);
+                return;
+            }
+        }
+        lastItem = System.nanoTime();
+        subscription.request(1);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        // the status was already sent, the only way to report the error is to cut the stream
+        System.out.println(throwable);
+        finish(true);
+    }
+
+    @Override
+    public void onComplete() {
+        finish(false);
+    }
+
+    private void scheduleTimeout(long delayMillis) {
+        CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS).execute(this::checkTimeout);
+    }
+
+    /**
+     * Cut the stream when the last item is older than the timeout, otherwise check again when it would expire.
+     */
+    private void checkTimeout() {
+        if (finished.get()) {
+            return;
+        }
+
+        long idleMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastItem);
+        if (idleMillis < timeoutMillis) {
+            scheduleTimeout(timeoutMillis - idleMillis);
+            return;
+        }
+        System.out.println("Publisher response timed out after " + timeoutMillis + " ms");
+        finish(true);
+        subscription.cancel();
+    }
+
+    /**
+     * @param error true to cut the stream: the connection is closed without the last chunk.
+     */
+    private void finish(boolean error) {
+        // the publisher thread and the timeout can finish the response at the same time
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+
+        // waits for the item that is being written, the items after it see finished
+        synchronized (lock) {
+            if (error) {
+                // the exchanges of both engines close the connection instead of completing the response when their
+                // response body fails to close
+                exchange.setStreams(null, new AbortedBody());
+            }
+            exchange.close();
+        }
+        if (error) {
+            metrics.recordError();
+        }
+        metrics.recordPhase(EndpointMetrics.TOTAL, System.nanoTime() - start);
+        onFinished.run();
+    }
+
+    /**
+     * Body of a cut stream, it can not be written nor closed.
+     */
+    private static final class AbortedBody extends OutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            throw new IOException("The response was aborted");
+        }
+
+        @Override
+        public void close() throws IOException {
+            throw new IOException("The response was aborted");
+        }
+    }
+}
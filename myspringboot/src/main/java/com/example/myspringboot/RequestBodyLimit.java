@@ -0,0 +1,54 @@
+package com.example.myspringboot;
+
+/**
+ * Max size of the request bodies.
+ *
+ * A body is rejected with a 413 before it is read when its Content-Length is over the limit, and a body without
+ * Content-Length (chunked) is read through a BoundedInputStream that stops at the limit, so the memory used by a
+ * request never depends on what the client sends. The default limit is replaced at startup with the value of the
+ * @MaxRequestBody annotation of the main class.
+ */
+public final class RequestBodyLimit {
+
+    private static volatile long defaultMaxBytes = 1024 * 1024;
+
+    private RequestBodyLimit() {
+    }
+
+    public static long getDefaultMaxBytes() {
+        return defaultMaxBytes;
+    }
+
+    public static void setDefaultMaxBytes(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new RuntimeException("Invalid max request body: " + maxBytes);
+        }
+        defaultMaxBytes = maxBytes;
+    }
+
+    /**
+     * @param maxBytes limit of the @RequestBody param, 0 when it has no limit of its own.
+     * @return limit of the param, or the default limit.
+     */
+    public static long resolve(long maxBytes) {
+        return maxBytes > 0 ? maxBytes : defaultMaxBytes;
+    }
+
+    /**
+     * @param contentLength Content-Length header of the request, it can be null.
+     * @param maxBytes limit of the body.
+     * @return true when the declared length is over the limit.
+     */
+    static boolean exceeds(String contentLength, long maxBytes) {
+        if (contentLength == null) {
+            return false;
+        }
+
+        try {
+            return Long.parseLong(contentLength.trim()) > maxBytes;
+        } catch (NumberFormatException e) {
+            // an invalid length is rejected by the server before the handler
+            return false;
+        }
+    }
+}
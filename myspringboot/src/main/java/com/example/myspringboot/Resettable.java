@@ -0,0 +1,10 @@
+package com.example.myspringboot;
+
+/**
+ * Controllers with pooled scope can implement this interface to clear their request state before the instance is
+ * returned to the pool.
+ */
+public interface Resettable {
+
+    void reset();
+}
@@ -0,0 +1,141 @@
+package com.example.myspringboot;
+
+import com.example.compression.ResponseCompression;
+import com.example.util.Constants;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream used to write the response body of a request.
+ *
+ * The body is written into a byte buffer that is reused by the thread, so small responses are sent with the exact
+ * Content-Length in bytes. When the body grows beyond {@link #MAX_BUFFERED_BYTES} the headers are sent with chunked
+ * encoding and the rest of the body is written directly to the exchange, in that way a big response is never copied
+ * completely in memory.
+ *
+ * When the stream has a content encoding the body is compressed: a buffered body is compressed when it is closed,
+ * if it reaches the min size of the ResponseCompression, and a chunked body is compressed while it is written.
+ */
+final class ResponseBodyStream extends OutputStream {
+
+    static final int MAX_BUFFERED_BYTES = 64 * 1024;
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[INITIAL_BUFFER_SIZE]);
+
+    private final HttpExchange exchange;
+    private final int statusCode;
+    // null when the body is sent without compression
+    private final String encoding;
+    private final ResponseCompression compression;
+    private byte[] buffer;
+    private int count;
+    private OutputStream direct;
+    private boolean closed;
+
+    ResponseBodyStream(HttpExchange exchange, int statusCode) {
+        this(exchange, statusCode, null);
+    }
+
+    /**
+     * @param encoding content encoding selected with ResponseCompression.select, null to send the body as it is.
+     */
+    ResponseBodyStream(HttpExchange exchange, int statusCode, String encoding) {
+        this.exchange = exchange;
+        this.statusCode = statusCode;
+        this.encoding = encoding;
+        this.compression = ResponseCompression.getDefault();
+        this.buffer = BUFFERS.get();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (direct == null && count == buffer.length) {
+            ensureCapacity(count + 1);
+        }
+
+        if (direct != null) {
+            direct.write(b);
+        } else {
+            buffer[count++] = (byte) b;
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (direct == null && count + length > buffer.length) {
+            ensureCapacity(count + length);
+        }
+
+        if (direct != null) {
+            direct.write(bytes, offset, length);
+        } else {
+            System.arraycopy(bytes, offset, buffer, count, length);
+            count += length;
+        }
+    }
+
+    /**
+     * Grow the buffer until the max size, after that switch to chunked encoding.
+     */
+    private void ensureCapacity(int required) throws IOException {
+        if (required > MAX_BUFFERED_BYTES) {
+            if (encoding != null) {
+                exchange.getResponseHeaders().set(Constants.CONTENT_ENCODING, encoding);
+            }
+            exchange.sendResponseHeaders(statusCode, 0);
+            direct = encoding != null
+                    ? compression.compressing(exchange.getResponseBody(), encoding) : exchange.getResponseBody();
+            direct.write(buffer, 0, count);
+            count = 0;
+            return;
+        }
+
+        byte[] newBuffer = new byte[Math.min(MAX_BUFFERED_BYTES, Math.max(required, buffer.length * 2))];
+        System.arraycopy(buffer, 0, newBuffer, 0, count);
+        buffer = newBuffer;
+        BUFFERS.set(newBuffer);
+    }
+
+    /**
+     * Send the buffered body with its length in bytes, or finish the chunked body.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (direct != null) {
+            direct.close();
+            return;
+        }
+
+        if (encoding != null && compression.shouldCompress(count)) {
+            byte[] compressed = compression.compress(buffer, 0, count, encoding);
+            // a body that does not get smaller, like random data, is sent as it is
+            if (compressed.length < count) {
+                exchange.getResponseHeaders().set(Constants.CONTENT_ENCODING, encoding);
+                send(exchange, statusCode, compressed);
+                return;
+            }
+        }
+
+        exchange.sendResponseHeaders(statusCode, count == 0 ? -1 : count);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(buffer, 0, count);
+        }
+    }
+
+    /**
+     * Write a small fixed response, like the generic messages, with its length in bytes.
+     */
+    static void send(HttpExchange exchange, int statusCode, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(statusCode, body.length == 0 ? -1 : body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+}
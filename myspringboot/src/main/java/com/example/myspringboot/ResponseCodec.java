@@ -0,0 +1,119 @@
+package com.example.myspringboot;
+
+import com.example.codec.ContentCodecs;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * How the value returned by a route method is written: the kind of response (value, CompletableFuture or
+ * Flow.Publisher), the type of the written value and its writers, one per format of ContentCodecs.
+ *
+ * It is part of the RouteDefinition, so the handlers of a route share the same writers. The writers are resolved
+ * by the first handler that needs them, in the lazy startup mode the routes without requests never resolve them.
+ */
+public final class ResponseCodec {
+
+    // kind of value returned by the controller method
+    static final int SYNC_RESPONSE = 0;
+    static final int FUTURE_RESPONSE = 1;
+    static final int PUBLISHER_RESPONSE = 2;
+
+    private final int kind;
+    private final Type valueType;
+    private final boolean hasResponse;
+    private volatile Writers writers;
+
+    private ResponseCodec(int kind, Type valueType) {
+        this.kind = kind;
+        this.valueType = valueType;
+        this.hasResponse = valueType != void.class && valueType != Void.class;
+    }
+
+    /**
+     * @param method controller method.
+     * @return codec of the return type of the method.
+     */
+    static ResponseCodec of(Method method) {
+        int kind = kind(method.getReturnType());
+        // for CompletableFuture<T> and Flow.Publisher<T> the response is the type T
+        Type valueType = kind == SYNC_RESPONSE ? method.getGenericReturnType() : typeArgument(method.getGenericReturnType());
+        return new ResponseCodec(kind, valueType);
+    }
+
+    int getKind() {
+        return kind;
+    }
+
+    /**
+     * @return type of the written value, like User for CompletableFuture&lt;User&gt;.
+     */
+    public Type getValueType() {
+        return valueType;
+    }
+
+    /**
+     * @return false for void methods, and futures of Void.
+     */
+    public boolean hasResponse() {
+        return hasResponse;
+    }
+
+    /**
+     * Resolve the writers of the value type once for the codecs, Jackson keeps its serializers cached inside them.
+     * AUTO_CLOSE_TARGET is disabled: the response is only completed when the serialization finished without errors.
+     *
+     * @param codecs formats of the app.
+     * @return one writer per format of the codecs, null values when the method has no response.
+     */
+    ObjectWriter[] getWriters(ContentCodecs codecs) {
+        Writers resolved = writers;
+        if (resolved == null || resolved.codecs != codecs) {
+            ObjectWriter[] objectWriters = new ObjectWriter[codecs.size()];
+            if (hasResponse || kind == PUBLISHER_RESPONSE) {
+                for (int codec = 0; codec < objectWriters.length; codec++) {
+                    objectWriters[codec] = codecs.getRegistry(codec).writerFor(valueType).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                }
+            }
+            // two handlers can resolve them at the same time, both results are the same
+            resolved = new Writers(codecs, objectWriters);
+            writers = resolved;
+        }
+        return resolved.writers;
+    }
+
+    private static int kind(Class<?> returnType) {
+        if (CompletionStage.class.isAssignableFrom(returnType)) {
+            return FUTURE_RESPONSE;
+        } else if (Flow.Publisher.class.isAssignableFrom(returnType)) {
+            return PUBLISHER_RESPONSE;
+        }
+        return SYNC_RESPONSE;
+    }
+
+    private static Type typeArgument(Type type) {
+        if (type instanceof ParameterizedType) {
+            return ((ParameterizedType) type).getActualTypeArguments()[0];
+        }
+        return Object.class;
+    }
+
+    /**
+     * Writers resolved for one instance of ContentCodecs.
+     */
+    private static final class Writers {
+
+        private final ContentCodecs codecs;
+        private final ObjectWriter[] writers;
+
+        Writers(ContentCodecs codecs, ObjectWriter[] writers) {
+            this.codecs = codecs;
+            this.writers = writers;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.myspringboot;
+
+import com.example.myspringannotations.Cacheable;
+import com.example.myspringannotations.MaxConcurrent;
+import com.example.myspringannotations.RateLimit;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+
+/**
+ * Metadata of one route, everything that the registration needs from the annotations of the controller: HTTP method,
+ * full path, scope of the controller, param descriptors, response codec, cache configuration and limits.
+ *
+ * It is created by the RouteTable and never changes, the handlers compiled from it do not read annotations again.
+ */
+public final class RouteDefinition {
+
+    private final Class<?> controller;
+    private final Method method;
+    private final String requestType;
+    private final String path;
+    private final String scope;
+    // max idle instances of a pooled controller, 0 for the default
+    private final int poolSize;
+    private final ParamDescriptor[] params;
+    private final ResponseCodec responseCodec;
+    // null when the method is not @Cacheable
+    private final Cacheable cacheable;
+    // null when the method has no @RateLimit / @MaxConcurrent
+    private final RateLimit rateLimit;
+    private final MaxConcurrent maxConcurrent;
+
+    RouteDefinition(Class<?> controller, Method method, String requestType, String path, String scope, int poolSize,
+                    ParamDescriptor[] params, Cacheable cacheable, RateLimit rateLimit, MaxConcurrent maxConcurrent) {
+        this.controller = controller;
+        this.method = method;
+        this.requestType = requestType;
+        this.path = path;
+        this.scope = scope;
+        this.poolSize = poolSize;
+        this.params = params;
+        this.responseCodec = ResponseCodec.of(method);
+        this.cacheable = cacheable;
+        this.rateLimit = rateLimit;
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    public Class<?> getController() {
+        return controller;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public String getRequestType() {
+        return requestType;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    /**
+     * @return max idle instances of a pooled controller, 0 for one per available processor.
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getParamCount() {
+        return params.length;
+    }
+
+    public ParamDescriptor getParam(int index) {
+        return params[index];
+    }
+
+    /**
+     * @return copy of the param descriptors, in the order of the method params.
+     */
+    public ParamDescriptor[] getParams() {
+        return params.clone();
+    }
+
+    /**
+     * @return max size of the body of the @RequestBody param, 0 for the default limit, -1 when there is no such param.
+     */
+    public long getBodyMaxBytes() {
+        for (ParamDescriptor param : params) {
+            if (ParamDescriptor.BODY.equals(param.getKind())) {
+                return param.getMaxBytes();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return declared return type of the method, like CompletableFuture&lt;User&gt;.
+     */
+    public Type getResponseType() {
+        return method.getGenericReturnType();
+    }
+
+    /**
+     * @return kind, value type and writers of the response of the method.
+     */
+    public ResponseCodec getResponseCodec() {
+        return responseCodec;
+    }
+
+    public Cacheable getCacheable() {
+        return cacheable;
+    }
+
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    public MaxConcurrent getMaxConcurrent() {
+        return maxConcurrent;
+    }
+}
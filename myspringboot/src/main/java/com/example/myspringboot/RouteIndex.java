@@ -0,0 +1,150 @@
+package com.example.myspringboot;
+
+import com.example.util.Constants;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Route index generated at compile time by the RouteIndexProcessor.
+ *
+ * It contains the controllers and routes of the app, in this way the startup does not need to scan the classpath,
+ * and the RouteTable is built from the route lines without searching the mapping methods of each controller.
+ * Every jar can contain its own index, all of them are loaded.
+ */
+public class RouteIndex {
+
+    private static final Map<String, Class<?>> PRIMITIVES = Map.of("boolean", boolean.class, "byte", byte.class,
+            "short", short.class, "char", char.class, "int", int.class, "long", long.class, "float", float.class,
+            "double", double.class);
+
+    private final List<String[]> controllers = new ArrayList<>();
+    private final List<String[]> routes = new ArrayList<>();
+
+    private RouteIndex() {
+    }
+
+    /**
+     * Load the route index files from the classpath.
+     *
+     * @param classLoader class loader of the app.
+     * @return index or null when the app was compiled without the annotation processor.
+     */
+    public static RouteIndex load(ClassLoader classLoader) {
+        try {
+            Enumeration<URL> resources = classLoader.getResources(Constants.ROUTE_INDEX);
+            if (!resources.hasMoreElements()) {
+                return null;
+            }
+
+            RouteIndex index = new RouteIndex();
+            for (URL resource : Collections.list(resources)) {
+                index.read(resource);
+            }
+            return index;
+        } catch (IOException e) {
+            throw new RuntimeException("Error while reading route index: " + e);
+        }
+    }
+
+    private void read(URL resource) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.openStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // split with limit -1 keeps the empty columns, like a route without params
+                String[] columns = line.split(Constants.TAB, -1);
+
+                if (columns[0].equals(Constants.INDEX_CONTROLLER)) {
+                    controllers.add(columns);
+                } else if (columns[0].equals(Constants.INDEX_ROUTE)) {
+                    routes.add(columns);
+                }
+            }
+        }
+    }
+
+    /**
+     * Load the controller classes found in the index.
+     *
+     * @param packageToScan only the controllers inside this package are returned, like the Reflections scan.
+     * @param classLoader class loader of the app.
+     * @return controller classes.
+     */
+    public Set<Class<?>> getControllers(String packageToScan, ClassLoader classLoader) {
+        Set<Class<?>> clazzes = new LinkedHashSet<>();
+
+        for (String[] controller : controllers) {
+            String className = controller[1];
+            if (!className.startsWith(packageToScan)) {
+                continue;
+            }
+
+            try {
+                clazzes.add(Class.forName(className, false, classLoader));
+            } catch (ClassNotFoundException e) {
+                throw new RuntimeException("Controller from route index not found: " + className);
+            }
+        }
+        return clazzes;
+    }
+
+    /**
+     * @return controller lines: controller, className, url, scope, poolSize.
+     */
+    public List<String[]> getControllerEntries() {
+        return Collections.unmodifiableList(controllers);
+    }
+
+    /**
+     * @return route lines: route, className, httpMethod, path, methodName, paramTypes, paramBindings.
+     */
+    public List<String[]> getRouteEntries() {
+        return Collections.unmodifiableList(routes);
+    }
+
+    /**
+     * Find the method of a route line, by its name and param types.
+     *
+     * @param route route line of the index.
+     * @param clazz controller class of the route.
+     * @return controller method.
+     */
+    public static Method getMethod(String[] route, Class<?> clazz) {
+        String methodName = route[4];
+        String[] typeNames = route[5].isEmpty() ? new String[0] : route[5].split(Constants.COMMA);
+        Class<?>[] paramTypes = new Class<?>[typeNames.length];
+
+        try {
+            for (int index = 0; index < typeNames.length; index++) {
+                paramTypes[index] = typeForName(typeNames[index], clazz.getClassLoader());
+            }
+            return clazz.getMethod(methodName, paramTypes);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            throw new RuntimeException("Route index is out of date, method not found: " + clazz.getName() + "."
+                    + methodName + "(" + route[5] + ") : " + e);
+        }
+    }
+
+    /**
+     * @param typeName type name written by the RouteIndexProcessor, like int, java.lang.String or java.lang.String[].
+     */
+    private static Class<?> typeForName(String typeName, ClassLoader classLoader) throws ClassNotFoundException {
+        if (typeName.endsWith("[]")) {
+            return typeForName(typeName.substring(0, typeName.length() - 2), classLoader).arrayType();
+        }
+
+        Class<?> primitive = PRIMITIVES.get(typeName);
+        return primitive != null ? primitive : Class.forName(typeName, false, classLoader);
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.myspringboot;
+
+import com.example.enums.ClassScope;
+import com.example.myspringannotations.Cacheable;
+import com.example.myspringannotations.GetMapping;
+import com.example.myspringannotations.MaxConcurrent;
+import com.example.myspringannotations.PostMapping;
+import com.example.myspringannotations.PutMapping;
+import com.example.myspringannotations.RateLimit;
+import com.example.myspringannotations.RequestMapping;
+import com.example.myspringannotations.Scope;
+import com.example.util.Constants;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routes of the app, built with one pass over the controllers: each class annotation, method annotation and param
+ * annotation is read once. The table is immutable and it is shared by the registration of the handlers (eager,
+ * parallel and lazy), the handlers themselves and the startup report.
+ *
+ * When the app was compiled with the RouteIndexProcessor the routes are read from the route index, only the method
+ * of each route is searched by reflection. Without index, or for a controller missing from it, the methods of the
+ * controller are scanned for mapping annotations.
+ *
+ * The routes are kept in the order of the controllers, the routes of one controller are next to each other.
+ */
+public final class RouteTable {
+
+    private final RouteDefinition[] routes;
+    private final int controllers;
+
+    private RouteTable(RouteDefinition[] routes, int controllers) {
+        this.routes = routes;
+        this.controllers = controllers;
+    }
+
+    /**
+     * Read the routes of the controller classes, the path variables of each route are validated.
+     *
+     * @param clazzes controller classes.
+     * @return route table.
+     */
+    public static RouteTable build(Collection<Class<?>> clazzes) {
+        List<RouteDefinition> routes = new ArrayList<>();
+
+        for (Class<?> clazz : clazzes) {
+            RequestMapping requestMapping = clazz.getAnnotation(RequestMapping.class);
+            String clazzUrl = requestMapping != null ? requestMapping.url() : Constants.EMPTY_STRING;
+            Scope scope = clazz.getAnnotation(Scope.class);
+            String scopeValue = scope != null ? scope.value() : ClassScope.SINGLETON;
+            int poolSize = scope != null ? scope.max() : 0;
+
+            for (Method method : clazz.getMethods()) {
+                // one route for each mapping annotation of the method
+                for (Annotation annotation : method.getAnnotations()) {
+                    if (annotation instanceof GetMapping) {
+                        routes.add(describeRoute(clazz, method, Constants.GET, clazzUrl + ((GetMapping) annotation).path(), scopeValue, poolSize));
+                    } else if (annotation instanceof PostMapping) {
+                        routes.add(describeRoute(clazz, method, Constants.POST, clazzUrl + ((PostMapping) annotation).path(), scopeValue, poolSize));
+                    } else if (annotation instanceof PutMapping) {
+                        routes.add(describeRoute(clazz, method, Constants.PUT, clazzUrl + ((PutMapping) annotation).path(), scopeValue, poolSize));
+                    }
+                }
+            }
+        }
+        return new RouteTable(routes.toArray(new RouteDefinition[0]), clazzes.size());
+    }
+
+    /**
+     * Read the routes of the controller classes from the route index, the controllers that are not in the index are
+     * read with their annotations.
+     *
+     * @param index route index generated at compile time.
+     * @param clazzes controller classes.
+     * @return route table.
+     */
+    public static RouteTable build(RouteIndex index, Collection<Class<?>> clazzes) {
+        Map<String, String[]> controllers = new HashMap<>();
+        for (String[] controller : index.getControllerEntries()) {
+            controllers.put(controller[1], controller);
+        }
+        Map<String, List<String[]>> routesByController = new HashMap<>();
+        for (String[] route : index.getRouteEntries()) {
+            routesByController.computeIfAbsent(route[1], className -> new ArrayList<>()).add(route);
+        }
+
+        List<RouteDefinition> routes = new ArrayList<>();
+        for (Class<?> clazz : clazzes) {
+            String[] controller = controllers.get(clazz.getName());
+            if (controller == null) {
+                routes.addAll(build(List.of(clazz)).getRoutes());
+                continue;
+            }
+
+            // controller line: controller, className, url, scope, poolSize
+            // route line: route, className, httpMethod, path, methodName, paramTypes, paramBindings
+            // an index without poolSize uses the default pool
+            int poolSize = controller.length > 4 ? Integer.parseInt(controller[4]) : 0;
+            for (String[] route : routesByController.getOrDefault(clazz.getName(), Collections.emptyList())) {
+                routes.add(describeRoute(clazz, RouteIndex.getMethod(route, clazz), route[2], controller[2] + route[3],
+                        controller[3], poolSize));
+            }
+        }
+        return new RouteTable(routes.toArray(new RouteDefinition[0]), clazzes.size());
+    }
+
+    /**
+     * Read the params, the cache configuration and the limits of a route method.
+     */
+    private static RouteDefinition describeRoute(Class<?> clazz, Method method, String requestType, String path,
+                                                 String scope, int poolSize) {
+        ParamDescriptor[] params = describeParams(method);
+        validatePathVariables(method, params, path);
+        return new RouteDefinition(clazz, method, requestType, path, scope, poolSize, params, method.getAnnotation(Cacheable.class),
+                method.getAnnotation(RateLimit.class), method.getAnnotation(MaxConcurrent.class));
+    }
+
+    private static ParamDescriptor[] describeParams(Method method) {
+        Parameter[] parameters = method.getParameters();
+        ParamDescriptor[] params = new ParamDescriptor[parameters.length];
+        for (int index = 0; index < parameters.length; index++) {
+            params[index] = ParamDescriptor.of(parameters[index]);
+        }
+        return params;
+    }
+
+    /**
+     * Verify that each @PathVariable param of the method is declared in the path, example: @PathVariable("id")
+     * requires a path like /v1/users/{id}
+     */
+    private static void validatePathVariables(Method method, ParamDescriptor[] params, String path) {
+        for (ParamDescriptor param : params) {
+            if (ParamDescriptor.PATH.equals(param.getKind()) && !path.contains("{" + param.getName() + "}")) {
+                throw new RuntimeException("Path variable: " + param.getName() + " not found in path: " + path
+                        + " for method: " + method);
+            }
+        }
+    }
+
+    public int size() {
+        return routes.length;
+    }
+
+    public RouteDefinition get(int index) {
+        return routes[index];
+    }
+
+    public List<RouteDefinition> getRoutes() {
+        return Collections.unmodifiableList(Arrays.asList(routes));
+    }
+
+    /**
+     * @return routes grouped by controller class, in the order of the table.
+     */
+    public Map<Class<?>, List<RouteDefinition>> byController() {
+        Map<Class<?>, List<RouteDefinition>> byController = new LinkedHashMap<>();
+        for (RouteDefinition route : routes) {
+            byController.computeIfAbsent(route.getController(), clazz -> new ArrayList<>()).add(route);
+        }
+        return byController;
+    }
+
+    /**
+     * Startup report with one line per route, sorted by path:
+     * method, path, controller method with its params, scope of the controller, response type and cache.
+     *
+     * @return report, one line per route.
+     */
+    public String report() {
+        RouteDefinition[] sorted = routes.clone();
+        Arrays.sort(sorted, (first, second) -> {
+            int byPath = first.getPath().compareTo(second.getPath());
+            return byPath != 0 ? byPath : first.getRequestType().compareTo(second.getRequestType());
+        });
+
+        int methodWidth = 0;
+        int pathWidth = 0;
+        for (RouteDefinition route : sorted) {
+            methodWidth = Math.max(methodWidth, route.getRequestType().length());
+            pathWidth = Math.max(pathWidth, route.getPath().length());
+        }
+
+        StringBuilder report = new StringBuilder();
+        report.append("Route table: ").append(routes.length).append(" routes in ").append(controllers).append(" controllers\n");
+        for (RouteDefinition route : sorted) {
+            report.append("  ").append(pad(route.getRequestType(), methodWidth))
+                    .append("  ").append(pad(route.getPath(), pathWidth))
+                    .append("  ").append(route.getController().getSimpleName()).append('.').append(route.getMethod().getName())
+                    .append('(');
+            for (int index = 0; index < route.getParamCount(); index++) {
+                report.append(index > 0 ? ", " : "").append(route.getParam(index));
+            }
+            report.append(')')
+                    .append(" scope=").append(route.getScope());
+            if (ClassScope.POOLED.equals(route.getScope()) && route.getPoolSize() > 0) {
+                report.append('(').append(route.getPoolSize()).append(')');
+            }
+            report.append(" returns=").append(typeName(route.getResponseType()));
+            if (route.getCacheable() != null) {
+                report.append(" cache=").append(route.getCacheable().ttl()).append('s');
+            }
+            if (route.getRateLimit() != null) {
+                report.append(" rate=").append(route.getRateLimit().permitsPerSecond()).append("/s");
+            }
+            if (route.getMaxConcurrent() != null) {
+                report.append(" maxConcurrent=").append(route.getMaxConcurrent().value());
+            }
+            report.append('\n');
+        }
+        return report.toString();
+    }
+
+    private static String pad(String value, int width) {
+        StringBuilder padded = new StringBuilder(value);
+        while (padded.length() < width) {
+            padded.append(' ');
+        }
+        return padded.toString();
+    }
+
+    /**
+     * Type name without the packages, like CompletableFuture&lt;String&gt;.
+     */
+    private static String typeName(Type type) {
+        if (type instanceof Class) {
+            return ((Class<?>) type).getSimpleName();
+        }
+        if (type instanceof ParameterizedType) {
+            ParameterizedType parameterizedType = (ParameterizedType) type;
+            StringBuilder name = new StringBuilder(typeName(parameterizedType.getRawType())).append('<');
+            Type[] arguments = parameterizedType.getActualTypeArguments();
+            for (int index = 0; index < arguments.length; index++) {
+                name.append(index > 0 ? ", " : "").append(typeName(arguments[index]));
+            }
+            return name.append('>').toString();
+        }
+        return type.getTypeName();
+    }
+}
@@ -1,15 +1,27 @@
 package com.example.myspringboot;
 
-import com.example.enums.ClassScope;
+import com.example.codec.CodecRegistry;
+import com.example.codec.ContentCodecs;
+import com.example.codec.GeneratedCodecs;
+import com.example.compression.ResponseCompression;
+import com.example.enums.EngineType;
+import com.example.enums.StartupMode;
+import com.example.myspringannotations.Compression;
+import com.example.myspringannotations.Engine;
+import com.example.myspringannotations.Executor;
+import com.example.myspringannotations.MaxRequestBody;
 import com.example.myspringannotations.RequestMapping;
 import com.example.myspringannotations.Port;
-import com.example.myspringannotations.GetMapping;
-import com.example.myspringannotations.PostMapping;
-import com.example.myspringannotations.PutMapping;
-import com.example.myspringannotations.Scope;
+import com.example.myspringannotations.Shutdown;
+import com.example.myspringannotations.Startup;
+import com.example.myspringannotations.StaticResources;
+import com.example.myspringannotations.Trace;
 import com.example.myspringannotations.SpringBootApplication;
 
+import com.example.resources.StaticResourceHandler;
 import com.example.server.MyHttpServer;
+import com.example.server.ServerExecutor;
+import com.example.trace.TraceRecorder;
 import com.example.util.Constants;
 import org.reflections.Reflections;
 
@@ -17,9 +29,15 @@ import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
-import java.util.Arrays;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  *  This class searches for classes that contains Mapping methods,
@@ -35,6 +53,7 @@ import java.util.Set;
 public class SpringApplication {
 
     private static MyHttpServer myHttpServer;
+    private static RouteTable routeTable;
 
     /**
      * Method that initialize My-SpringBootApplication
@@ -44,6 +63,7 @@ public class SpringApplication {
      * @throws IOException
      */
     public static void runApp(Class<?> mainClass, String[] args) {
+        StartupTimer timer = new StartupTimer();
         String packagePath = null;
         int port;
 
@@ -68,21 +88,112 @@ public class SpringApplication {
         }
         System.out.println("Selected port: " + port + " for current app.");
 
-        // Scan selected package to search controller classes
-        Set<Class<?>> clazzes = getClassesWithAnnotation(packagePath, RequestMapping.class);
+        ServerExecutor executor = null;
+        if (mainClass.isAnnotationPresent(Executor.class)) {
+            Executor executorAnnotation = mainClass.getAnnotation(Executor.class);
+            executor = ServerExecutor.create(executorAnnotation.mode(), executorAnnotation.size(), executorAnnotation.queueSize());
+
+            System.out.println("Executor mode: " + executorAnnotation.mode());
+        }
+
+        Engine engine = mainClass.getAnnotation(Engine.class);
+        String engineType = engine != null ? engine.value() : EngineType.JDK;
+        System.out.println("Server engine: " + engineType);
+
+        if (mainClass.isAnnotationPresent(Compression.class)) {
+            Compression compression = mainClass.getAnnotation(Compression.class);
+            ResponseCompression.setDefault(new ResponseCompression(compression.enabled(), compression.minSize(), compression.level()));
+        }
+        ResponseCompression responseCompression = ResponseCompression.getDefault();
+        System.out.println("Response compression: " + (responseCompression.isEnabled()
+                ? "min size " + responseCompression.getMinSize() + " bytes, level " + responseCompression.getLevel() : "disabled"));
+
+        if (mainClass.isAnnotationPresent(MaxRequestBody.class)) {
+            RequestBodyLimit.setDefaultMaxBytes(mainClass.getAnnotation(MaxRequestBody.class).bytes());
+        }
+        System.out.println("Max request body: " + RequestBodyLimit.getDefaultMaxBytes() + " bytes");
+
+        if (mainClass.isAnnotationPresent(Trace.class)) {
+            Trace trace = mainClass.getAnnotation(Trace.class);
+            TraceRecorder.setDefault(new TraceRecorder(trace.sampleRate(), trace.bufferSize(), trace.jfr()));
+        }
+        TraceRecorder traceRecorder = TraceRecorder.getDefault();
+        System.out.println("Request tracing: " + (traceRecorder.getSampleRate() > 0
+                ? "sample rate " + traceRecorder.getSampleRate() + ", buffer " + traceRecorder.getBuffer().getCapacity()
+                + (traceRecorder.isJfr() ? ", JFR events" : "") + (TraceRecorder.isAllocationSupported() ? "" : ", no allocation counters")
+                : "disabled"));
+
+        Startup startup = mainClass.getAnnotation(Startup.class);
+        String startupMode = startup != null ? startup.mode() : StartupMode.EAGER;
+        System.out.println("Startup mode: " + startupMode);
+        timer.phase("configuration");
+
+        // Search controller classes, from the route index generated at compile time or scanning the selected package
+        RouteIndex routeIndex = RouteIndex.load(mainClass.getClassLoader());
+        Set<Class<?>> clazzes = findControllers(routeIndex, mainClass.getClassLoader(), packagePath);
+        timer.phase("controller scan");
+
+        // codecs generated at compile time, they must be registered before the handlers resolve their codecs
+        // the generated serializers only use the Jackson streaming API, so they are used by every format
+        ContentCodecs contentCodecs = ContentCodecs.getDefault();
+        int generatedCodecs = 0;
+        for (int codec = 0; codec < contentCodecs.size(); codec++) {
+            generatedCodecs = GeneratedCodecs.register(contentCodecs.getRegistry(codec), mainClass.getClassLoader());
+        }
+        System.out.println("Generated codecs registered: " + generatedCodecs);
+        timer.phase("codec registration");
 
         // create server
         try {
-            myHttpServer = new MyHttpServer(port);
+            myHttpServer = engine != null
+                    ? new MyHttpServer(port, engine.value(), engine.backlog(), engine.bufferSize())
+                    : new MyHttpServer(port);
+            if (executor != null) {
+                myHttpServer.setExecutor(executor);
+            }
+            if (mainClass.isAnnotationPresent(Trace.class)) {
+                myHttpServer.addTraceEndpoint();
+            }
         } catch (IOException e) {
             throw new RuntimeException("Error while creating server: " + e);
         }
+        timer.phase("server creation");
+
+        // read the routes of the controllers once, the table is used by every startup mode and by the report
+        routeTable = routeIndex != null ? RouteTable.build(routeIndex, clazzes) : RouteTable.build(clazzes);
+        System.out.print(routeTable.report());
+        timer.phase("route table");
 
         // search for controller classes and add the request handlers to the server.
-        extractHttpHandlers(clazzes);
+        extractHttpHandlers(myHttpServer, routeTable, startupMode, startup != null ? startup.parallelism() : 0, timer);
+        System.out.println("Codecs resolved at startup: " + CodecRegistry.getDefault().getMisses());
+        timer.phase("handlers (" + startupMode + ")");
+
+        for (StaticResources resources : mainClass.getAnnotationsByType(StaticResources.class)) {
+            StaticResourceHandler handler = new StaticResourceHandler(resources.path(), Path.of(resources.dir()),
+                    resources.maxAge(), resources.cacheFileSize(), resources.cacheBytes());
+            myHttpServer.addStaticResources(handler);
+            System.out.println("Static resources: " + handler.getPath() + "/* -> " + handler.getRoot());
+        }
+
+        // drain the server when the JVM stops, so a rolling deploy does not cut the requests in flight
+        Shutdown shutdown = mainClass.getAnnotation(Shutdown.class);
+        int shutdownTimeout = shutdown != null ? shutdown.timeout() : 30;
+        MyHttpServer server = myHttpServer;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> server.drain(shutdownTimeout * 1000L), "shutdown-drain"));
+        System.out.println("Shutdown timeout: " + shutdownTimeout + " seconds");
 
         // start server
         myHttpServer.startServer();
+        timer.phase("server start");
+        timer.finish();
+    }
+
+    /**
+     * @return routes of the app started by runApp, null before it starts.
+     */
+    public static RouteTable getRouteTable() {
+        return routeTable;
     }
 
     /**
@@ -116,43 +227,149 @@ public class SpringApplication {
      * @param clazzes List of classes found in the package specified, these classes might be controllers (that's what we are searching for)
      */
     public static void extractHttpHandlers(Set<Class<?>> clazzes) {
-        clazzes.stream().forEach(clazz -> {
-            Object instance;
-
-            // create instance of each class found
-            try {
-                instance = clazz.getDeclaredConstructor().newInstance();
-            }  catch (Exception e) {
-                throw new RuntimeException(e);
-            }
+        extractHttpHandlers(myHttpServer, clazzes);
+    }
+
+    /**
+     * Same as {@link #extractHttpHandlers(Set)} but the handlers are added to the given server, it can be used to
+     * register controllers in a server that was not created by runApp (benchmarks, embedded servers).
+     *
+     * @param server server that will receive the request handlers.
+     * @param clazzes controller classes.
+     */
+    public static void extractHttpHandlers(MyHttpServer server, Set<Class<?>> clazzes) {
+        extractHttpHandlers(server, clazzes, StartupMode.EAGER, 0);
+    }
+
+    /**
+     * Same as {@link #extractHttpHandlers(MyHttpServer, Set)} with the startup mode, see @Startup.
+     *
+     * @param server server that will receive the request handlers.
+     * @param clazzes controller classes.
+     * @param mode one of StartupMode values.
+     * @param parallelism threads used in parallel mode, 0 means one per available processor.
+     */
+    public static void extractHttpHandlers(MyHttpServer server, Set<Class<?>> clazzes, String mode, int parallelism) {
+        extractHttpHandlers(server, RouteTable.build(clazzes), mode, parallelism, new StartupTimer());
+    }
+
+    private static void extractHttpHandlers(MyHttpServer server, RouteTable routeTable, String mode, int parallelism,
+                                            StartupTimer timer) {
+        // the routes are always added from this thread and in the order of the route table, so every mode builds
+        // the same routing trie and reports the same route conflicts
+        switch (mode) {
+            case StartupMode.EAGER:
+                routeTable.byController().forEach((clazz, routes) -> addRoutes(server, createHandlers(clazz, routes, timer)));
+                break;
+            case StartupMode.PARALLEL:
+                createHandlersInParallel(routeTable, parallelism, timer).forEach(myHandlers -> addRoutes(server, myHandlers));
+                break;
+            case StartupMode.LAZY:
+                routeTable.byController().forEach((clazz, routes) -> addLazyRoutes(server, clazz, routes));
+                break;
+            default:
+                throw new RuntimeException("Unknown startup mode: " + mode);
+        }
+    }
+
+    /**
+     * Create the instance provider of a controller class and the request handlers of its routes.
+     * It does not change the server, so it can run in any thread.
+     *
+     * @param clazz controller class.
+     * @param routes routes of the class.
+     * @param timer receives the time spent creating the controller and compiling its handlers.
+     * @return request handlers of the class, with their paths.
+     */
+    private static List<MyRequestHandler> createHandlers(Class<?> clazz, List<RouteDefinition> routes, StartupTimer timer) {
+        long start = System.nanoTime();
+        // create the instance provider of each class found, it depends on the scope of the class
+        InstanceProvider instanceProvider = InstanceProvider.forRoute(routes.get(0));
+        long created = System.nanoTime();
+        timer.recordInstantiate(created - start);
+
+        // one request handler per route, those handlers will listen HTTP request calls for each controller method
+        List<MyRequestHandler> myHandlers = new ArrayList<>(routes.size());
+        for (RouteDefinition route : routes) {
+            myHandlers.add(MyRequestHandler.forRoute(route, instanceProvider));
+        }
+        timer.recordCompile(myHandlers.size(), System.nanoTime() - created);
+        return myHandlers;
+    }
+
+    /**
+     * Create the handlers of every controller in a ForkJoinPool, one task per controller. The pool only lives during
+     * the startup. The first error of a controller is thrown once every task finished.
+     *
+     * @return handlers of each controller, in the order of the route table.
+     */
+    private static List<List<MyRequestHandler>> createHandlersInParallel(RouteTable routeTable, int parallelism,
+                                                                         StartupTimer timer) {
+        List<Callable<List<MyRequestHandler>>> tasks = new ArrayList<>();
+        routeTable.byController().forEach((clazz, routes) -> tasks.add(() -> createHandlers(clazz, routes, timer)));
 
-            // get all the request handlers from current class, those handlers will listen HTTP request calls for each controller method
-            Set<MyRequestHandler> myHandlers = getMethodsWithAnnotation(clazz, instance);
-
-            if (myHandlers!= null && !myHandlers.isEmpty()) {
-                RequestMapping classRequestPath = clazz.getAnnotation(RequestMapping.class);
-                String clazzUrl = classRequestPath.url();
-
-                // Extract the corresponding path for each method, in this way our handlers can listen those specific paths
-                // and then call the required controller method which needs to handle that request.
-                myHandlers.forEach(myHandler -> {
-                    String handlerPath = "";
-
-                    if(myHandler.getMethod().getAnnotation(GetMapping.class) != null) {
-                        handlerPath = clazzUrl + myHandler.getMethod().getAnnotation(GetMapping.class).path();
-                    } else if (myHandler.getMethod().getAnnotation(PostMapping.class) != null) {
-                        handlerPath = clazzUrl + myHandler.getMethod().getAnnotation(PostMapping.class).path();
-                    } else if (myHandler.getMethod().getAnnotation(PutMapping.class) != null) {
-                        handlerPath = clazzUrl + myHandler.getMethod().getAnnotation(PutMapping.class).path();
-                    } else {
-                        throw new RuntimeException("No path found for current handler: " + myHandler.getMethod());
-                    }
-
-                    myHandler.setRequestPath(handlerPath);
-                    myHttpServer.addContext(myHandler, handlerPath);
-                });
+        ForkJoinPool pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        try {
+            List<List<MyRequestHandler>> handlers = new ArrayList<>(tasks.size());
+            for (Future<List<MyRequestHandler>> future : pool.invokeAll(tasks)) {
+                handlers.add(future.get());
+            }
+            return handlers;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
             }
-        });
+            throw new RuntimeException("Error while creating request handlers: " + e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while creating request handlers");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void addRoutes(MyHttpServer server, List<MyRequestHandler> myHandlers) {
+        myHandlers.forEach(myHandler -> server.addRoute(myHandler, myHandler.getRequestPath()));
+    }
+
+    /**
+     * Register the routes of a controller class without creating the controller nor compiling its handlers, that
+     * happens with the first request of each route, see LazyRequestHandler.
+     */
+    private static void addLazyRoutes(MyHttpServer server, Class<?> clazz, List<RouteDefinition> routes) {
+        LazyRequestHandler.Controller controller = new LazyRequestHandler.Controller(routes.get(0));
+        for (RouteDefinition route : routes) {
+            server.addRoute(route.getRequestType(), route.getPath(), new LazyRequestHandler(controller, route));
+        }
+    }
+
+    /**
+     * Find the controller classes of the app. When the app was compiled with the RouteIndexProcessor the classes are
+     * read from the generated route index, otherwise the package is scanned with Reflections.
+     *
+     * @param mainClass main class, its class loader is used to read the index.
+     * @param packageToScan base package of the controllers.
+     * @return controller classes.
+     */
+    public static Set<Class<?>> findControllers(Class<?> mainClass, String packageToScan) {
+        return findControllers(RouteIndex.load(mainClass.getClassLoader()), mainClass.getClassLoader(), packageToScan);
+    }
+
+    private static Set<Class<?>> findControllers(RouteIndex routeIndex, ClassLoader classLoader, String packageToScan) {
+        long start = System.nanoTime();
+        Set<Class<?>> clazzes;
+        String source;
+        if (routeIndex != null) {
+            clazzes = routeIndex.getControllers(packageToScan, classLoader);
+            source = "route index";
+        } else {
+            clazzes = getClassesWithAnnotation(packageToScan, RequestMapping.class);
+            source = "classpath scan";
+        }
+
+        System.out.println("Found " + clazzes.size() + " controllers with " + source + " in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return clazzes;
     }
 
     public static Set<Class<?>> getClassesWithAnnotation(String packageToScan, Class<? extends Annotation> annotation) {
@@ -161,55 +378,25 @@ public class SpringApplication {
     }
 
     /**
-     * Iterate class methods and select all the methods that contains GetRequest, PostRequest or PutRequest annotations
-     * in this way we can create a request handler for each method, each request handler will be added to a server
-     * and then our server will be able to listen HTTP and know exactly which request will call which method inside the
-     * current instance.
-     * Annotations being searched for:
-     * --> @GetRequest
-     * --> @PostRequest
-     * --> @PutRequest
+     * Create a request handler for each method of the class that contains GetMapping, PostMapping or PutMapping
+     * annotations, in this way we can create a request handler for each method, each request handler will be added
+     * to a server and then our server will be able to listen HTTP and know exactly which request will call which
+     * method inside the current instance. The routes are read with the RouteTable.
      *
      * @param clazz current class in which we can search for request methods.
-     * @param instance Instance of current Clazz.
+     * @param instanceProvider provides the instances of current Clazz.
      * @return Set that contains a request handler for each HTTP request handler method
      */
-    public static Set<MyRequestHandler> getMethodsWithAnnotation(Class<?> clazz, Object instance){
+    public static Set<MyRequestHandler> getMethodsWithAnnotation(Class<?> clazz, InstanceProvider instanceProvider){
         Set<MyRequestHandler> methodsWithAnnotation = new HashSet<>();
 
-        Arrays.stream(clazz.getMethods()).forEach(method -> {
-            Arrays.stream(method.getAnnotations()).forEach(annotation -> {
-
-                String annotationName = annotation.annotationType().getSimpleName();
-                // If current annotation is for Post, Put or Get, then create a new request handler
-                if(Constants.HTTP_REQUEST_TYPES.get(annotationName) != null) {
-                    //System.out.println("----> Method inside class contains the annotation: " + annotation.toString());
-                    String requestType = Constants.HTTP_REQUEST_TYPES.get(annotationName);
-
-                    /* The new request handler will contain the params:
-                        --> instance: we can use this class with to call ir manipulate the methods inside this controller.
-                        --> method: represent the current http request method found inside the controller class,
-                                    we need this method to be able to call it when an HTTP call match this method path + type.
-                        --> requestType: this is required to remember with HTTP request type will be handled in this method,
-                                         in this way can can validate if someone use it the correct path but not the correct
-                                         HTTP request method
-                     */
-                    methodsWithAnnotation.add(new MyRequestHandler(instance, method, requestType, extractScope(clazz)));
-                }
-
-            });
-        });
+        /* The method is compiled here, once, into an invoker and one binder per param, so the
+           request path does not need to read annotations or use reflection for each call.
+         */
+        for (RouteDefinition route : RouteTable.build(Set.of(clazz)).getRoutes()) {
+            methodsWithAnnotation.add(MyRequestHandler.forRoute(route, instanceProvider));
+        }
 
         return methodsWithAnnotation;
     }
-
-    private static String extractScope(Class<?> clazz) {
-        Scope scope = clazz.getAnnotation(Scope.class);
-
-        if (scope != null) {
-            return scope.value();
-        } else {
-            return ClassScope.SINGLETON;
-        }
-    }
 }
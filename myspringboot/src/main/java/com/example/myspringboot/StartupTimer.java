@@ -0,0 +1,53 @@
+package com.example.myspringboot;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timing of the startup phases, each phase is logged when it finishes so a slow boot shows where the time goes.
+ *
+ * Creating controllers and compiling handlers can run in many threads, their time is summed over all the threads
+ * (CPU time spent, not wall time) and logged with the phase that contains them.
+ */
+final class StartupTimer {
+
+    private final long start = System.nanoTime();
+    private long phaseStart = start;
+    private final LongAdder instantiateNanos = new LongAdder();
+    private final LongAdder compileNanos = new LongAdder();
+    private final LongAdder controllers = new LongAdder();
+    private final LongAdder handlers = new LongAdder();
+
+    /**
+     * Log the time since the previous phase finished.
+     *
+     * @param phase name of the phase that finished now.
+     */
+    void phase(String phase) {
+        long now = System.nanoTime();
+        System.out.println("Startup phase " + phase + ": " + millis(now - phaseStart) + " ms");
+        phaseStart = now;
+    }
+
+    void recordInstantiate(long nanos) {
+        controllers.increment();
+        instantiateNanos.add(nanos);
+    }
+
+    void recordCompile(int count, long nanos) {
+        handlers.add(count);
+        compileNanos.add(nanos);
+    }
+
+    /**
+     * Log the time of the controllers and handlers created so far, and the total time of the startup.
+     */
+    void finish() {
+        System.out.println("Startup: " + controllers.sum() + " controllers created in " + millis(instantiateNanos.sum())
+                + " ms, " + handlers.sum() + " handlers compiled in " + millis(compileNanos.sum()) + " ms (summed over threads)");
+        System.out.println("Started in " + millis(System.nanoTime() - start) + " ms");
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / 1_000_000.0);
+    }
+}
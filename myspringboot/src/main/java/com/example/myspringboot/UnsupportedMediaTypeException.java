@@ -0,0 +1,12 @@
+package com.example.myspringboot;
+
+/**
+ * The request body has a Content-Type that is not registered in ContentCodecs, example: application/xml for a
+ * @RequestBody param. The request is answered with a 415.
+ */
+public class UnsupportedMediaTypeException extends RuntimeException {
+
+    public UnsupportedMediaTypeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.myspringboot;
+
+import com.example.codec.CodecRegistry;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.lang.reflect.Type;
+
+/**
+ * Convert the text value of a request param into the type of the controller param.
+ *
+ * Primitives, boxed types, enums and String are converted directly, Jackson is only used for complex types like
+ * lists or objects, in that case the value must be valid JSON.
+ */
+@FunctionalInterface
+public interface ValueConverter {
+
+    Object convert(String value) throws Exception;
+
+    /**
+     * Select the converter of a type when the binders are resolved.
+     *
+     * @param type raw type of the param.
+     * @param genericType generic type of the param, used by Jackson for complex types.
+     * @return converter for the type.
+     */
+    static ValueConverter forType(Class<?> type, Type genericType) {
+        if (type == String.class || type == Object.class || type == CharSequence.class) {
+            return value -> value;
+        } else if (type == int.class || type == Integer.class) {
+            return Integer::valueOf;
+        } else if (type == long.class || type == Long.class) {
+            return Long::valueOf;
+        } else if (type == double.class || type == Double.class) {
+            return Double::valueOf;
+        } else if (type == float.class || type == Float.class) {
+            return Float::valueOf;
+        } else if (type == boolean.class || type == Boolean.class) {
+            return ValueConverter::booleanValue;
+        } else if (type == short.class || type == Short.class) {
+            return Short::valueOf;
+        } else if (type == byte.class || type == Byte.class) {
+            return Byte::valueOf;
+        } else if (type == char.class || type == Character.class) {
+            return value -> {
+                if (value.length() != 1) {
+                    throw new IllegalArgumentException("Expected a single character: " + value);
+                }
+                return value.charAt(0);
+            };
+        } else if (type.isEnum()) {
+            return value -> enumValue(type, value);
+        }
+
+        ObjectReader reader = CodecRegistry.getDefault().readerFor(genericType);
+        return reader::readValue;
+    }
+
+    /**
+     * Boolean.valueOf returns false for any text, only true or false (ignoring case) are accepted here, the same
+     * way the numeric converters reject invalid numbers.
+     */
+    static Boolean booleanValue(String value) {
+        if ("true".equalsIgnoreCase(value)) {
+            return Boolean.TRUE;
+        } else if ("false".equalsIgnoreCase(value)) {
+            return Boolean.FALSE;
+        }
+        throw new IllegalArgumentException("Expected true or false: " + value);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object enumValue(Class<?> enumType, String value) {
+        return Enum.valueOf((Class<? extends Enum>) enumType, value);
+    }
+}
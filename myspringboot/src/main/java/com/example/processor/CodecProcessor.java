@@ -0,0 +1,537 @@
+package com.example.processor;
+
+import com.example.myspringannotations.GetMapping;
+import com.example.myspringannotations.PostMapping;
+import com.example.myspringannotations.PutMapping;
+import com.example.myspringannotations.RequestBody;
+import com.example.myspringannotations.RequestMapping;
+import com.example.util.Constants;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Annotation processor that generates JSON serializers and deserializers for the types used by the controllers,
+ * it is disabled by default: the app enables it with the compiler option -A{@value #OPTION}=true.
+ *
+ * The types of the @RequestBody params and of the return values of the mapping methods are collected (also the
+ * type arguments, like List&lt;User&gt;, and the types of their properties). For each bean type a class
+ * TypeNameJsonCodec is generated next to it, with a Serializer and a Deserializer that read and write the
+ * properties with direct calls to the getters and setters instead of Jackson's reflective bean introspection.
+ * The generated classes are listed in {@value Constants#CODEC_INDEX}, at startup they are registered in the
+ * CodecRegistry. Format (tab separated): typeName  codecName
+ *
+ * Only simple beans are generated, the rest of the types keep the default Jackson codecs:
+ * --> public class, not abstract and without type params, with a public constructor without params.
+ * --> every property that is written has a setter or a public field.
+ * --> no Jackson annotations in the class or its members.
+ */
+@SupportedAnnotationTypes("com.example.myspringannotations.RequestMapping")
+@SupportedOptions(CodecProcessor.OPTION)
+public class CodecProcessor extends AbstractProcessor {
+
+    static final String OPTION = "myspringboot.generatedCodecs";
+    private static final String CODEC_SUFFIX = "JsonCodec";
+    private static final String JACKSON_PACKAGE = "com.fasterxml.jackson";
+
+    // sorted by type name, the generated index is the same between builds
+    private final Map<String, String> codecs = new TreeMap<>();
+    private final Set<String> visited = new HashSet<>();
+    private final List<Element> originatingElements = new ArrayList<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (!Boolean.parseBoolean(processingEnv.getOptions().get(OPTION))) {
+            return false;
+        }
+
+        for (Element element : roundEnv.getElementsAnnotatedWith(RequestMapping.class)) {
+            if (element.getKind() == ElementKind.CLASS) {
+                originatingElements.add(element);
+                collectTypes((TypeElement) element);
+            }
+        }
+
+        if (roundEnv.processingOver() && !codecs.isEmpty()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    private void collectTypes(TypeElement controller) {
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(controller))) {
+            if (!method.getModifiers().contains(Modifier.PUBLIC) || (method.getAnnotation(GetMapping.class) == null
+                    && method.getAnnotation(PostMapping.class) == null && method.getAnnotation(PutMapping.class) == null)) {
+                continue;
+            }
+
+            visit(method.getReturnType(), controller);
+            for (VariableElement param : method.getParameters()) {
+                if (param.getAnnotation(RequestBody.class) != null) {
+                    visit(param.asType(), controller);
+                }
+            }
+        }
+    }
+
+    /**
+     * Generate the codec of a type if it is a simple bean, then visit its type arguments and property types.
+     */
+    private void visit(TypeMirror type, TypeElement controller) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            visit(((ArrayType) type).getComponentType(), controller);
+            return;
+        }
+        if (type.getKind() != TypeKind.DECLARED) {
+            return;
+        }
+
+        DeclaredType declaredType = (DeclaredType) type;
+        for (TypeMirror typeArgument : declaredType.getTypeArguments()) {
+            visit(typeArgument, controller);
+        }
+
+        TypeElement typeElement = (TypeElement) declaredType.asElement();
+        String typeName = processingEnv.getElementUtils().getBinaryName(typeElement).toString();
+        if (!visited.add(typeName) || !isSimpleBean(typeElement)) {
+            return;
+        }
+
+        Map<String, Property> properties = properties(typeElement);
+        for (Property property : properties.values()) {
+            if (property.getter != null && property.setter == null) {
+                // read-only property, Jackson can still set some of them (collections), so the default codec is kept
+                return;
+            }
+        }
+
+        String codecName = writeCodec(typeElement, properties, controller);
+        if (codecName != null) {
+            codecs.put(typeName, codecName);
+        }
+        for (Property property : properties.values()) {
+            visit(property.type, controller);
+        }
+    }
+
+    private boolean isSimpleBean(TypeElement type) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        if (type.getKind() != ElementKind.CLASS || packageName.startsWith("java.") || packageName.startsWith("javax.")
+                || !type.getModifiers().contains(Modifier.PUBLIC) || type.getModifiers().contains(Modifier.ABSTRACT)
+                || !type.getTypeParameters().isEmpty()
+                || (type.getNestingKind() != NestingKind.TOP_LEVEL && !type.getModifiers().contains(Modifier.STATIC))) {
+            return false;
+        }
+
+        boolean defaultConstructor = false;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                defaultConstructor = true;
+            }
+        }
+        if (!defaultConstructor) {
+            return false;
+        }
+
+        for (TypeElement current = type; current != null; current = superclass(current)) {
+            if (hasJacksonAnnotation(current)) {
+                return false;
+            }
+            for (Element member : current.getEnclosedElements()) {
+                if (hasJacksonAnnotation(member)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean hasJacksonAnnotation(Element element) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (annotation.getAnnotationType().toString().startsWith(JACKSON_PACKAGE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement superElement = (TypeElement) ((DeclaredType) superclass).asElement();
+        return superElement.getQualifiedName().contentEquals(Object.class.getName()) ? null : superElement;
+    }
+
+    /**
+     * Properties found with the same rules as Jackson: public fields, getX / isX getters and setX setters, getters
+     * and setters replace the fields with the same name. The super classes are read first, and the properties follow
+     * the order of the fields.
+     */
+    private Map<String, Property> properties(TypeElement type) {
+        List<TypeElement> hierarchy = new ArrayList<>();
+        for (TypeElement current = type; current != null; current = superclass(current)) {
+            hierarchy.add(0, current);
+        }
+
+        Map<String, Property> properties = new LinkedHashMap<>();
+        for (TypeElement current : hierarchy) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                    continue;
+                }
+
+                // private fields only keep the order of the properties, like in Jackson
+                String name = field.getSimpleName().toString();
+                Property property = properties.computeIfAbsent(name, key -> new Property(name, field.asType()));
+                if (modifiers.contains(Modifier.PUBLIC)) {
+                    property.getter = "value." + name;
+                    if (!modifiers.contains(Modifier.FINAL)) {
+                        property.setter = "value." + name + " = %s";
+                    }
+                }
+            }
+
+            for (ExecutableElement method : ElementFilter.methodsIn(current.getEnclosedElements())) {
+                if (!method.getModifiers().contains(Modifier.PUBLIC) || method.getModifiers().contains(Modifier.STATIC)) {
+                    continue;
+                }
+
+                String methodName = method.getSimpleName().toString();
+                int params = method.getParameters().size();
+                TypeMirror returnType = method.getReturnType();
+
+                if (params == 0 && methodName.startsWith("get") && methodName.length() > 3
+                        && returnType.getKind() != TypeKind.VOID && !methodName.equals("getClass")) {
+                    property(properties, methodName.substring(3), returnType).getter = "value." + methodName + "()";
+                } else if (params == 0 && methodName.startsWith("is") && methodName.length() > 2
+                        && returnType.getKind() == TypeKind.BOOLEAN) {
+                    property(properties, methodName.substring(2), returnType).getter = "value." + methodName + "()";
+                } else if (params == 1 && methodName.startsWith("set") && methodName.length() > 3) {
+                    property(properties, methodName.substring(3), method.getParameters().get(0).asType()).setter =
+                            "value." + methodName + "(%s)";
+                }
+            }
+        }
+        return properties;
+    }
+
+    private static Property property(Map<String, Property> properties, String suffix, TypeMirror type) {
+        String name = propertyName(suffix);
+        Property property = properties.get(name);
+        if (property == null || !property.type.toString().equals(type.toString())) {
+            // a getter or setter with another type than the field replaces it
+            property = new Property(name, type);
+            properties.put(name, property);
+        }
+        return property;
+    }
+
+    /**
+     * Default Jackson naming: the leading upper case letters are lower cased, getURL is "url" and getName is "name".
+     */
+    private static String propertyName(String suffix) {
+        StringBuilder name = new StringBuilder(suffix);
+        for (int index = 0; index < name.length() && Character.isUpperCase(name.charAt(index)); index++) {
+            name.setCharAt(index, Character.toLowerCase(name.charAt(index)));
+        }
+        return name.toString();
+    }
+
+    private String writeCodec(TypeElement type, Map<String, Property> properties, TypeElement controller) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String typeName = type.getQualifiedName().toString();
+        String codecSimpleName = processingEnv.getElementUtils().getBinaryName(type).toString()
+                .substring(packageName.isEmpty() ? 0 : packageName.length() + 1).replace('$', '_') + CODEC_SUFFIX;
+        String codecName = packageName.isEmpty() ? codecSimpleName : packageName + "." + codecSimpleName;
+
+        StringBuilder source = new StringBuilder(4096);
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import com.fasterxml.jackson.core.JsonGenerator;\n")
+                .append("import com.fasterxml.jackson.core.JsonParser;\n")
+                .append("import com.fasterxml.jackson.core.JsonToken;\n")
+                .append("import com.fasterxml.jackson.core.type.TypeReference;\n")
+                .append("import com.fasterxml.jackson.databind.DeserializationContext;\n")
+                .append("import com.fasterxml.jackson.databind.JsonDeserializer;\n")
+                .append("import com.fasterxml.jackson.databind.JsonMappingException;\n")
+                .append("import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;\n")
+                .append("import com.fasterxml.jackson.databind.SerializerProvider;\n")
+                .append("import com.fasterxml.jackson.databind.deser.std.StdDeserializer;\n")
+                .append("import com.fasterxml.jackson.databind.ser.std.StdSerializer;\n\n")
+                .append("import java.io.IOException;\n\n");
+        source.append("/**\n * JSON codec of ").append(typeName).append(", generated by ")
+                .append(getClass().getName()).append(".\n */\n");
+        source.append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n");
+        source.append("public final class ").append(codecSimpleName).append(" {\n\n");
+        source.append("    private ").append(codecSimpleName).append("() {\n    }\n\n");
+
+        writeSerializer(source, typeName, properties);
+        source.append('\n');
+        writeDeserializer(source, typeName, properties);
+        source.append("}\n");
+
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(codecName, type, controller);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source.toString());
+            }
+            return codecName;
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Error while writing codec of " + typeName + ": " + e);
+            return null;
+        }
+    }
+
+    private void writeSerializer(StringBuilder source, String typeName, Map<String, Property> properties) {
+        source.append("    public static final class Serializer extends StdSerializer<").append(typeName).append("> {\n\n");
+        source.append("        public Serializer() {\n            super(").append(typeName).append(".class);\n        }\n\n");
+        source.append("        @Override\n");
+        source.append("        public void serialize(").append(typeName)
+                .append(" value, JsonGenerator gen, SerializerProvider provider) throws IOException {\n");
+        source.append("            gen.writeStartObject(value);\n");
+
+        for (Property property : properties.values()) {
+            if (property.getter == null) {
+                continue;
+            }
+
+            String name = "\"" + property.name + "\"";
+            switch (property.type.getKind()) {
+                case INT:
+                case LONG:
+                case FLOAT:
+                case DOUBLE:
+                    source.append("            gen.writeNumberField(").append(name).append(", ").append(property.getter).append(");\n");
+                    break;
+                case SHORT:
+                case BYTE:
+                    source.append("            gen.writeNumberField(").append(name).append(", (int) ").append(property.getter).append(");\n");
+                    break;
+                case BOOLEAN:
+                    source.append("            gen.writeBooleanField(").append(name).append(", ").append(property.getter).append(");\n");
+                    break;
+                case CHAR:
+                    source.append("            gen.writeStringField(").append(name).append(", String.valueOf(").append(property.getter).append("));\n");
+                    break;
+                default:
+                    source.append("            gen.writeFieldName(").append(name).append(");\n");
+                    if (isString(property.type)) {
+                        source.append("            String ").append(property.variable()).append(" = ").append(property.getter).append(";\n");
+                        source.append("            if (").append(property.variable()).append(" == null) {\n");
+                        source.append("                gen.writeNull();\n");
+                        source.append("            } else {\n");
+                        source.append("                gen.writeString(").append(property.variable()).append(");\n");
+                        source.append("            }\n");
+                    } else {
+                        // collections, nested beans (with their generated codec) and the rest of the types
+                        source.append("            provider.defaultSerializeValue(").append(property.getter).append(", gen);\n");
+                    }
+            }
+        }
+
+        source.append("            gen.writeEndObject();\n");
+        source.append("        }\n    }\n");
+    }
+
+    private void writeDeserializer(StringBuilder source, String typeName, Map<String, Property> properties) {
+        source.append("    public static final class Deserializer extends StdDeserializer<").append(typeName)
+                .append("> implements ResolvableDeserializer {\n\n");
+
+        // generic property types are read with a TypeReference, so the type params are not lost
+        for (Property property : properties.values()) {
+            if (property.setter != null && isGeneric(property.type)) {
+                source.append("        private static final TypeReference<").append(property.type)
+                        .append("> ").append(property.typeReference()).append(" = new TypeReference<>() {\n        };\n");
+            }
+        }
+        for (Property property : properties.values()) {
+            if (property.setter != null && usesDeserializer(property.type)) {
+                source.append("        private JsonDeserializer<Object> ").append(property.deserializer()).append(";\n");
+            }
+        }
+
+        source.append("\n        public Deserializer() {\n            super(").append(typeName).append(".class);\n        }\n\n");
+
+        // the deserializers of the properties are resolved once, like the bean deserializers of Jackson
+        source.append("        @Override\n");
+        source.append("        public void resolve(DeserializationContext ctxt) throws JsonMappingException {\n");
+        for (Property property : properties.values()) {
+            if (property.setter != null && usesDeserializer(property.type)) {
+                String javaType = isGeneric(property.type)
+                        ? "ctxt.getTypeFactory().constructType(" + property.typeReference() + ")"
+                        : "ctxt.constructType(" + processingEnv.getTypeUtils().erasure(property.type) + ".class)";
+                source.append("            ").append(property.deserializer()).append(" = ctxt.findContextualValueDeserializer(")
+                        .append(javaType).append(", null);\n");
+            }
+        }
+        source.append("        }\n\n");
+
+        source.append("        @Override\n");
+        source.append("        @SuppressWarnings(\"unchecked\")\n");
+        source.append("        public ").append(typeName)
+                .append(" deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {\n");
+        source.append("            JsonToken token = p.currentToken();\n");
+        source.append("            if (token == JsonToken.START_OBJECT) {\n");
+        source.append("                token = p.nextToken();\n");
+        source.append("            } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {\n");
+        source.append("                return (").append(typeName).append(") ctxt.handleUnexpectedToken(").append(typeName).append(".class, p);\n");
+        source.append("            }\n\n");
+        source.append("            ").append(typeName).append(" value = new ").append(typeName).append("();\n");
+        source.append("            for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {\n");
+        source.append("                String name = p.currentName();\n");
+        source.append("                p.nextToken();\n");
+        source.append("                switch (name) {\n");
+
+        for (Property property : properties.values()) {
+            if (property.setter == null) {
+                continue;
+            }
+            source.append("                    case \"").append(property.name).append("\":\n");
+            source.append("                        ").append(String.format(property.setter, readExpression(property))).append(";\n");
+            source.append("                        break;\n");
+        }
+
+        source.append("                    default:\n");
+        source.append("                        ctxt.handleUnknownProperty(p, this, value, name);\n");
+        source.append("                }\n");
+        source.append("            }\n");
+        source.append("            return value;\n");
+        source.append("        }\n    }\n");
+    }
+
+    private String readExpression(Property property) {
+        TypeMirror type = property.type;
+        switch (type.getKind()) {
+            case INT:
+                return "_parseIntPrimitive(p, ctxt)";
+            case LONG:
+                return "_parseLongPrimitive(p, ctxt)";
+            case FLOAT:
+                return "_parseFloatPrimitive(p, ctxt)";
+            case DOUBLE:
+                return "_parseDoublePrimitive(p, ctxt)";
+            case SHORT:
+                return "_parseShortPrimitive(p, ctxt)";
+            case BYTE:
+                return "_parseBytePrimitive(p, ctxt)";
+            case BOOLEAN:
+                return "_parseBooleanPrimitive(p, ctxt)";
+            case CHAR:
+                return "ctxt.readValue(p, char.class)";
+            default:
+                break;
+        }
+
+        String read;
+        if (isString(type)) {
+            read = "p.currentToken() == JsonToken.VALUE_STRING ? p.getText() : ctxt.readValue(p, String.class)";
+        } else {
+            read = "(" + type + ") " + property.deserializer() + ".deserialize(p, ctxt)";
+        }
+        return "p.currentToken() == JsonToken.VALUE_NULL ? null : " + read;
+    }
+
+    /**
+     * @return true when the property is read with a deserializer resolved by Jackson.
+     */
+    private static boolean usesDeserializer(TypeMirror type) {
+        return !type.getKind().isPrimitive() && !isString(type);
+    }
+
+    private static boolean isString(TypeMirror type) {
+        return type.toString().equals(String.class.getName());
+    }
+
+    private static boolean isGeneric(TypeMirror type) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            return isGeneric(((ArrayType) type).getComponentType());
+        }
+        return type.getKind() == TypeKind.DECLARED && !((DeclaredType) type).getTypeArguments().isEmpty();
+    }
+
+    private void writeIndex() {
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                    Constants.CODEC_INDEX, originatingElements.toArray(new Element[0]));
+
+            try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, String> codec : codecs.entrySet()) {
+                    writer.write(codec.getKey());
+                    writer.write(Constants.TAB);
+                    writer.write(codec.getValue());
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Error while writing codec index: " + e);
+        }
+    }
+
+    /**
+     * Property of a bean, the getter is an expression and the setter a statement with %s for the new value.
+     */
+    private static final class Property {
+
+        private final String name;
+        private final TypeMirror type;
+        private String getter;
+        private String setter;
+
+        Property(String name, TypeMirror type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        String variable() {
+            return "_" + name;
+        }
+
+        String typeReference() {
+            return "TYPE_" + name.toUpperCase();
+        }
+
+        String deserializer() {
+            return "_" + name + "Deserializer";
+        }
+    }
+}
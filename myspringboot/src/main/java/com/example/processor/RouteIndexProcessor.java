@@ -0,0 +1,171 @@
+package com.example.processor;
+
+import com.example.enums.ClassScope;
+import com.example.myspringannotations.GetMapping;
+import com.example.myspringannotations.PathVariable;
+import com.example.myspringannotations.PostMapping;
+import com.example.myspringannotations.PutMapping;
+import com.example.myspringannotations.RequestBody;
+import com.example.myspringannotations.RequestMapping;
+import com.example.myspringannotations.RequestParam;
+import com.example.myspringannotations.Scope;
+import com.example.util.Constants;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+/**
+ * Annotation processor that generates the route index of the app at compile time.
+ *
+ * For each class annotated with @RequestMapping it writes one controller line and one route line per mapping
+ * method into {@value Constants#ROUTE_INDEX}. At startup SpringApplication reads this file instead of scanning the
+ * classpath with Reflections. Format (tab separated):
+ * --> controller  className  url  scope
+ * --> route  className  httpMethod  path  methodName  paramTypes  paramBindings
+ */
+@SupportedAnnotationTypes("com.example.myspringannotations.RequestMapping")
+public class RouteIndexProcessor extends AbstractProcessor {
+
+    // sorted by class name, the generated file is the same between builds
+    private final Map<String, List<String>> controllers = new TreeMap<>();
+    private final List<Element> originatingElements = new ArrayList<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(RequestMapping.class)) {
+            if (element.getKind() == ElementKind.CLASS) {
+                TypeElement controller = (TypeElement) element;
+                controllers.put(binaryName(controller), indexLines(controller));
+                originatingElements.add(controller);
+            }
+        }
+
+        if (roundEnv.processingOver() && !controllers.isEmpty()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    private List<String> indexLines(TypeElement controller) {
+        List<String> lines = new ArrayList<>();
+        String className = binaryName(controller);
+        Scope scope = controller.getAnnotation(Scope.class);
+
+        lines.add(String.join(Constants.TAB, Constants.INDEX_CONTROLLER, className,
+                controller.getAnnotation(RequestMapping.class).url(), scope != null ? scope.value() : ClassScope.SINGLETON,
+                Integer.toString(scope != null ? scope.max() : 0)));
+
+        // getAllMembers includes inherited methods, the same methods that Class.getMethods() returns at runtime
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(controller))) {
+            if (!method.getModifiers().contains(Modifier.PUBLIC)) {
+                continue;
+            }
+
+            // one route for each mapping annotation of the method, like RouteTable.build without index
+            List<String[]> mappings = new ArrayList<>();
+            if (method.getAnnotation(GetMapping.class) != null) {
+                mappings.add(new String[]{Constants.HTTP_REQUEST_TYPES.get(Constants.GET_MAPPING), method.getAnnotation(GetMapping.class).path()});
+            }
+            if (method.getAnnotation(PostMapping.class) != null) {
+                mappings.add(new String[]{Constants.HTTP_REQUEST_TYPES.get(Constants.POST_MAPPING), method.getAnnotation(PostMapping.class).path()});
+            }
+            if (method.getAnnotation(PutMapping.class) != null) {
+                mappings.add(new String[]{Constants.HTTP_REQUEST_TYPES.get(Constants.PUT_MAPPING), method.getAnnotation(PutMapping.class).path()});
+            }
+            if (mappings.isEmpty()) {
+                continue;
+            }
+
+            StringJoiner paramTypes = new StringJoiner(Constants.COMMA);
+            StringJoiner paramBindings = new StringJoiner(Constants.COMMA);
+            for (VariableElement param : method.getParameters()) {
+                paramTypes.add(typeName(param.asType()));
+                paramBindings.add(binding(param));
+            }
+
+            for (String[] mapping : mappings) {
+                lines.add(String.join(Constants.TAB, Constants.INDEX_ROUTE, className, mapping[0], mapping[1],
+                        method.getSimpleName().toString(), paramTypes.toString(), paramBindings.toString()));
+            }
+        }
+        return lines;
+    }
+
+    private void writeIndex() {
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                    Constants.ROUTE_INDEX, originatingElements.toArray(new Element[0]));
+
+            try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (List<String> lines : controllers.values()) {
+                    for (String line : lines) {
+                        writer.write(line);
+                        writer.write('\n');
+                    }
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Error while writing route index: " + e);
+        }
+    }
+
+    private String binding(VariableElement param) {
+        if (param.getAnnotation(RequestParam.class) != null) {
+            return RequestParam.class.getSimpleName() + "(" + param.getAnnotation(RequestParam.class).value() + ")";
+        } else if (param.getAnnotation(PathVariable.class) != null) {
+            return PathVariable.class.getSimpleName() + "(" + param.getAnnotation(PathVariable.class).value() + ")";
+        } else if (param.getAnnotation(RequestBody.class) != null) {
+            return RequestBody.class.getSimpleName();
+        }
+        return Constants.NONE;
+    }
+
+    /**
+     * Name of the erased type, in the format used by Class.getName(), for arrays the "[]" suffix is used.
+     */
+    private String typeName(TypeMirror type) {
+        TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+
+        if (erased.getKind() == TypeKind.ARRAY) {
+            return typeName(((ArrayType) erased).getComponentType()) + "[]";
+        } else if (erased.getKind() == TypeKind.DECLARED) {
+            return binaryName((TypeElement) ((DeclaredType) erased).asElement());
+        }
+        return erased.toString();
+    }
+
+    private String binaryName(TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+}
@@ -0,0 +1,377 @@
+package com.example.resources;
+
+import com.example.cache.CachedResponse;
+import com.example.cache.ResponseCache;
+import com.example.metrics.EndpointMetrics;
+import com.example.metrics.MetricsRegistry;
+import com.example.server.FileTransferExchange;
+import com.example.server.PathVariables;
+import com.example.server.RouteHandler;
+import com.example.util.Constants;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Handler of the files of one @StaticResources directory, registered as a prefix route of the server.
+ *
+ * --> GET and HEAD only, other methods receive a 405.
+ * --> ETag (size and modification time) and Last-Modified, validated with If-None-Match and If-Modified-Since (304).
+ * --> one byte range per request (206), If-Range is compared with the ETag, several ranges send the whole file.
+ *
+ * Small files are kept in memory, in a ResponseCache keyed by the file and its ETag, so a modified file is read
+ * again. Bigger files are streamed from disk: on the nio engine with FileChannel.transferTo, without copying them
+ * into the heap, and on the JDK server through a per-thread read buffer, because its response stream only accepts
+ * byte arrays.
+ */
+public class StaticResourceHandler implements RouteHandler {
+
+    // buffer of each thread to copy big files to a response stream, reused by every request of the thread
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final ThreadLocal<ByteBuffer> READ_BUFFERS = ThreadLocal.withInitial(() -> ByteBuffer.allocate(READ_BUFFER_SIZE));
+    // max small files kept in memory by each handler, the memory is also limited by cacheBytes
+    private static final int MAX_CACHED_FILES = 4096;
+    private static final long[] NOT_SATISFIABLE = new long[0];
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+    private static final byte[] NOT_FOUND_RESPONSE = "Resource not found".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NOT_ALLOWED_RESPONSE = "Method Not Allowed".getBytes(StandardCharsets.UTF_8);
+    private static final Map<String, String> CONTENT_TYPES = new HashMap<>();
+
+    static {
+        CONTENT_TYPES.put("html", "text/html; charset=utf-8");
+        CONTENT_TYPES.put("htm", "text/html; charset=utf-8");
+        CONTENT_TYPES.put("css", "text/css; charset=utf-8");
+        CONTENT_TYPES.put("js", "text/javascript; charset=utf-8");
+        CONTENT_TYPES.put("mjs", "text/javascript; charset=utf-8");
+        CONTENT_TYPES.put("json", Constants.APP_JSON);
+        CONTENT_TYPES.put("map", Constants.APP_JSON);
+        CONTENT_TYPES.put("txt", "text/plain; charset=utf-8");
+        CONTENT_TYPES.put("csv", "text/csv; charset=utf-8");
+        CONTENT_TYPES.put("xml", "application/xml");
+        CONTENT_TYPES.put("svg", "image/svg+xml");
+        CONTENT_TYPES.put("png", "image/png");
+        CONTENT_TYPES.put("jpg", "image/jpeg");
+        CONTENT_TYPES.put("jpeg", "image/jpeg");
+        CONTENT_TYPES.put("gif", "image/gif");
+        CONTENT_TYPES.put("webp", "image/webp");
+        CONTENT_TYPES.put("ico", "image/x-icon");
+        CONTENT_TYPES.put("woff", "font/woff");
+        CONTENT_TYPES.put("woff2", "font/woff2");
+        CONTENT_TYPES.put("pdf", "application/pdf");
+        CONTENT_TYPES.put("wasm", "application/wasm");
+    }
+
+    private final String path;
+    private final Path root;
+    private final String cacheControl;
+    private final int cacheFileSize;
+    // null when cacheFileSize is 0
+    private final ResponseCache cache;
+    private final EndpointMetrics metrics;
+
+    /**
+     * @param path path prefix of the files, like /assets.
+     * @param dir directory of the files.
+     * @param maxAge seconds of the Cache-Control max-age header, -1 sends no Cache-Control.
+     * @param cacheFileSize files up to this size in bytes are kept in memory, 0 always reads them from disk.
+     * @param cacheBytes max size in bytes of all the files kept in memory.
+     */
+    public StaticResourceHandler(String path, Path dir, int maxAge, int cacheFileSize, long cacheBytes) {
+        this.path = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+        this.root = dir.toAbsolutePath().normalize();
+        if (!Files.isDirectory(root)) {
+            throw new RuntimeException("@StaticResources directory not found: " + root);
+        }
+
+        this.cacheControl = maxAge >= 0 ? "max-age=" + maxAge : null;
+        this.cacheFileSize = cacheFileSize;
+        this.cache = cacheFileSize > 0 ? new ResponseCache(0, MAX_CACHED_FILES, cacheBytes) : null;
+        this.metrics = MetricsRegistry.getDefault().register(Constants.GET, this.path + "/*");
+        if (cache != null) {
+            metrics.setResponseCache(cache);
+        }
+    }
+
+    @Override
+    public void handle(HttpExchange exchange, PathVariables pathVariables) throws IOException {
+        String method = exchange.getRequestMethod();
+        boolean head = Constants.HEAD.equals(method);
+        if (!head && !Constants.GET.equals(method)) {
+            exchange.getResponseHeaders().set("Allow", Constants.GET + ", " + Constants.HEAD);
+            send(exchange, 405, NOT_ALLOWED_RESPONSE);
+            return;
+        }
+
+        metrics.recordRequest();
+        long start = System.nanoTime();
+        try {
+            serve(exchange, head);
+            metrics.recordPhase(EndpointMetrics.TOTAL, System.nanoTime() - start);
+        } catch (IOException | RuntimeException e) {
+            metrics.recordError();
+            throw e;
+        } finally {
+            metrics.recordFinished();
+        }
+    }
+
+    private void serve(HttpExchange exchange, boolean head) throws IOException {
+        Path file = resolve(exchange.getRequestURI().getPath());
+        BasicFileAttributes attributes = file != null ? readAttributes(file) : null;
+        if (attributes == null || !attributes.isRegularFile()) {
+            send(exchange, 404, NOT_FOUND_RESPONSE);
+            return;
+        }
+
+        long size = attributes.size();
+        // HTTP dates have seconds, the comparisons of If-Modified-Since use the same precision
+        long lastModified = attributes.lastModifiedTime().toMillis() / 1000 * 1000;
+        String etag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+
+        Headers requestHeaders = exchange.getRequestHeaders();
+        Headers responseHeaders = exchange.getResponseHeaders();
+        responseHeaders.set(Constants.ETAG, etag);
+        responseHeaders.set(Constants.LAST_MODIFIED, HTTP_DATE.format(Instant.ofEpochMilli(lastModified)));
+        responseHeaders.set(Constants.ACCEPT_RANGES, "bytes");
+        if (cacheControl != null) {
+            responseHeaders.set(Constants.CACHE_CONTROL, cacheControl);
+        }
+
+        if (notModified(requestHeaders, etag, lastModified)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        long[] range = range(requestHeaders.getFirst(Constants.RANGE), requestHeaders.getFirst(Constants.IF_RANGE), etag, size);
+        if (range == NOT_SATISFIABLE) {
+            responseHeaders.set(Constants.CONTENT_RANGE, "bytes */" + size);
+            exchange.sendResponseHeaders(416, -1);
+            exchange.close();
+            return;
+        }
+
+        int status = 200;
+        long position = 0;
+        long length = size;
+        if (range != null) {
+            status = 206;
+            position = range[0];
+            length = range[1] - range[0] + 1;
+            responseHeaders.set(Constants.CONTENT_RANGE, "bytes " + range[0] + "-" + range[1] + "/" + size);
+        }
+        responseHeaders.set(Constants.CONTENT_TYPE, contentType(file));
+
+        if (head || length == 0) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] body = size <= cacheFileSize ? cachedBody(file, etag, size) : null;
+        if (body != null) {
+            exchange.sendResponseHeaders(status, length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body, (int) position, (int) length);
+            }
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            exchange.sendResponseHeaders(status, length);
+            if (exchange instanceof FileTransferExchange) {
+                ((FileTransferExchange) exchange).transferFile(channel, position, length);
+                exchange.getResponseBody().close();
+            } else {
+                try (OutputStream os = exchange.getResponseBody()) {
+                    writeBuffered(channel, position, length, os);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return file of the request path, or null when the path is outside of the directory.
+     */
+    private Path resolve(String requestPath) {
+        String relative = requestPath.substring(path.length());
+        if (relative.length() <= 1) {
+            return null;
+        }
+
+        try {
+            // the path is already decoded, ../ segments are removed by normalize and then rejected by startsWith
+            Path file = root.resolve(relative.substring(1)).normalize();
+            return file.startsWith(root) ? file : null;
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+
+    private static BasicFileAttributes readAttributes(Path file) throws IOException {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Body of a small file from the cache, the file is read once for each ETag.
+     *
+     * @return body of the file, or null when the file changed while it was read.
+     */
+    private byte[] cachedBody(Path file, String etag, long size) throws IOException {
+        String key = file + etag;
+        CachedResponse cached = cache.get(key);
+        if (cached != null) {
+            return cached.getBody();
+        }
+
+        byte[] body = Files.readAllBytes(file);
+        if (body.length != size) {
+            return null;
+        }
+        cache.put(key, body);
+        return body;
+    }
+
+    /**
+     * Write a region of a file through a response stream, the file is read into the buffer of the thread and the
+     * buffer is written to the stream, so a request does not allocate memory for the file.
+     */
+    private static void writeBuffered(FileChannel channel, long position, long length, OutputStream os) throws IOException {
+        ByteBuffer buffer = READ_BUFFERS.get();
+        long end = position + length;
+        while (position < end) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("File truncated while it was sent");
+            }
+            os.write(buffer.array(), 0, read);
+            position += read;
+        }
+    }
+
+    /**
+     * If-None-Match has priority over If-Modified-Since, like in RFC 9110.
+     */
+    private static boolean notModified(Headers requestHeaders, String etag, long lastModified) {
+        String ifNoneMatch = requestHeaders.getFirst(Constants.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        String ifModifiedSince = requestHeaders.getFirst(Constants.IF_MODIFIED_SINCE);
+        if (ifModifiedSince != null) {
+            try {
+                return lastModified <= Instant.from(HTTP_DATE.parse(ifModifiedSince)).toEpochMilli();
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parse a Range header with one range: "bytes=0-99", "bytes=100-" or "bytes=-100" (last 100 bytes).
+     *
+     * @return first and last byte of the range, null to send the whole file, or NOT_SATISFIABLE.
+     */
+    static long[] range(String rangeHeader, String ifRange, String etag, long size) {
+        if (rangeHeader == null || !rangeHeader.startsWith("bytes=")) {
+            return null;
+        }
+        // the range is only valid for the same version of the file, a date in If-Range is never equal to the ETag
+        if (ifRange != null && !ifRange.trim().equals(etag)) {
+            return null;
+        }
+
+        String spec = rangeHeader.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0 || spec.indexOf(',') >= 0) {
+            return null;
+        }
+
+        long first;
+        long last;
+        try {
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1).trim());
+                if (suffix <= 0 || size == 0) {
+                    return NOT_SATISFIABLE;
+                }
+                first = Math.max(0, size - suffix);
+                last = size - 1;
+            } else {
+                first = Long.parseLong(spec.substring(0, dash).trim());
+                String lastValue = spec.substring(dash + 1).trim();
+                long requestedLast = lastValue.isEmpty() ? Long.MAX_VALUE : Long.parseLong(lastValue);
+                if (requestedLast < first) {
+                    // invalid range, the header is ignored
+                    return null;
+                }
+                if (first >= size) {
+                    return NOT_SATISFIABLE;
+                }
+                last = Math.min(requestedLast, size - 1);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return new long[]{first, last};
+    }
+
+    private static String contentType(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String contentType = dot >= 0 ? CONTENT_TYPES.get(name.substring(dot + 1).toLowerCase()) : null;
+        return contentType != null ? contentType : Constants.APP_OCTET_STREAM;
+    }
+
+    private static void send(HttpExchange exchange, int statusCode, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(statusCode, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public EndpointMetrics getMetrics() {
+        return metrics;
+    }
+}
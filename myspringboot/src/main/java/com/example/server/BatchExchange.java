@@ -0,0 +1,161 @@
+package com.example.server;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * In-memory exchange of one call of a batch request, the handler writes its response into a byte array and the
+ * exchange is complete when it is closed, also when the handler completes it from another thread.
+ */
+final class BatchExchange extends HttpExchange {
+
+    private final HttpExchange parent;
+    private final String method;
+    private final URI uri;
+    private final Headers requestHeaders = new Headers();
+    private final Headers responseHeaders = new Headers();
+    private final CompletableFuture<BatchExchange> completed = new CompletableFuture<>();
+    private final ByteArrayOutputStream responseBody = new ByteArrayOutputStream() {
+        @Override
+        public void close() {
+            BatchExchange.this.close();
+        }
+    };
+    private Map<String, Object> attributes;
+    private InputStream requestBody;
+    private int responseCode = -1;
+
+    BatchExchange(HttpExchange parent, String method, URI uri, byte[] body) {
+        this.parent = parent;
+        this.method = method;
+        this.uri = uri;
+        this.requestBody = new ByteArrayInputStream(body);
+    }
+
+    /**
+     * @return future completed when the response of the call is complete.
+     */
+    CompletableFuture<BatchExchange> getCompleted() {
+        return completed;
+    }
+
+    byte[] getResponseBytes() {
+        return responseBody.toByteArray();
+    }
+
+    /**
+     * Complete the call with an error when the handler failed without response.
+     */
+    void fail(int statusCode) {
+        if (responseCode < 0) {
+            responseCode = statusCode;
+        }
+        completed.complete(this);
+    }
+
+    @Override
+    public Headers getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    @Override
+    public Headers getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    @Override
+    public URI getRequestURI() {
+        return uri;
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return method;
+    }
+
+    @Override
+    public HttpContext getHttpContext() {
+        return parent.getHttpContext();
+    }
+
+    @Override
+    public void close() {
+        completed.complete(this);
+    }
+
+    @Override
+    public InputStream getRequestBody() {
+        return requestBody;
+    }
+
+    @Override
+    public OutputStream getResponseBody() {
+        return responseBody;
+    }
+
+    @Override
+    public void sendResponseHeaders(int rCode, long responseLength) throws IOException {
+        if (responseCode >= 0) {
+            throw new IOException("Headers already sent");
+        }
+        responseCode = rCode;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return parent.getRemoteAddress();
+    }
+
+    @Override
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return parent.getLocalAddress();
+    }
+
+    @Override
+    public String getProtocol() {
+        return parent.getProtocol();
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes == null ? null : attributes.get(name);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        if (attributes == null) {
+            attributes = new HashMap<>();
+        }
+        attributes.put(name, value);
+    }
+
+    @Override
+    public void setStreams(InputStream i, OutputStream o) {
+        if (i != null) {
+            requestBody = i;
+        }
+    }
+
+    @Override
+    public HttpPrincipal getPrincipal() {
+        return parent.getPrincipal();
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.server;
+
+import com.example.codec.CodecRegistry;
+import com.example.myspringboot.AsyncTimeout;
+import com.example.myspringboot.BoundedInputStream;
+import com.example.myspringboot.PayloadTooLargeException;
+import com.example.myspringboot.RequestBodyLimit;
+import com.example.util.Constants;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Endpoint that executes many calls in one request, it is registered by MyHttpServer in
+ * {@value Constants#BATCH_PATH}.
+ *
+ * The body is an array of BatchItem, each call is dispatched with the RequestDispatcher of the server, so it runs
+ * the same handler, binders and metrics as a single request. The response is an array with one result per call in
+ * the same order: {"status": 200, "body": ...}, JSON responses are embedded as they are and other responses as a
+ * string.
+ *
+ * The calls run one after the other in the current thread, with ?parallel=true they run in the common ForkJoinPool.
+ *
+ * Limits: the body is read up to the default request body limit (413 after it), at most MAX_CALLS calls, a call
+ * that reaches the batch endpoint again fails with 400 whatever its path looks like, and the calls that did not
+ * complete within the AsyncTimeout are answered with 503.
+ */
+public class BatchHandler implements RouteHandler {
+
+    static final int MAX_CALLS = 1000;
+    private static final String PARALLEL = "parallel";
+    private static final String CONNECTION = "Connection";
+    private static final String CLOSE = "close";
+    private static final byte[] EMPTY_BODY = new byte[0];
+    private static final byte[] INVALID_BATCH_RESPONSE = "Invalid batch request".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NESTED_BATCH_RESPONSE = "Nested batch request".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PAYLOAD_TOO_LARGE_RESPONSE = "Payload Too Large".getBytes(StandardCharsets.UTF_8);
+
+    private final RequestDispatcher dispatcher;
+    private final ObjectMapper objectMapper = CodecRegistry.getDefault().getObjectMapper();
+    private final ObjectReader itemsReader = CodecRegistry.getDefault().readerFor(BatchItem[].class);
+
+    public BatchHandler(RequestDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public long getMaxBodyBytes() {
+        return RequestBodyLimit.getDefaultMaxBytes();
+    }
+
+    @Override
+    public void handle(HttpExchange exchange, PathVariables pathVariables) throws IOException {
+        // a call of a batch is dispatched with its own exchange, so any path that reaches this handler is detected,
+        // like /batch/ or //batch
+        if (exchange instanceof BatchExchange) {
+            send(exchange, 400, NESTED_BATCH_RESPONSE, null);
+            return;
+        }
+
+        BatchItem[] items;
+        BoundedInputStream body = new BoundedInputStream(exchange.getRequestBody(), RequestBodyLimit.getDefaultMaxBytes());
+        try {
+            items = itemsReader.readValue(body);
+        } catch (IOException | PayloadTooLargeException e) {
+            items = null;
+        }
+        if (body.isExceeded()) {
+            // the rest of the body is not read, so the connection is not reused
+            exchange.getResponseHeaders().set(CONNECTION, CLOSE);
+            send(exchange, 413, PAYLOAD_TOO_LARGE_RESPONSE, null);
+            return;
+        }
+        if (items == null || items.length > MAX_CALLS) {
+            send(exchange, 400, INVALID_BATCH_RESPONSE, null);
+            return;
+        }
+
+        boolean parallel = Boolean.parseBoolean(QueryParams.parse(exchange.getRequestURI().getRawQuery()).get(PARALLEL));
+        BatchExchange[] calls = new BatchExchange[items.length];
+        CompletableFuture<?>[] completed = new CompletableFuture<?>[items.length];
+
+        for (int index = 0; index < items.length; index++) {
+            BatchExchange call = createCall(exchange, items[index]);
+            calls[index] = call;
+            completed[index] = call.getCompleted();
+
+            if (call.getResponseCode() >= 0) {
+                // invalid call, it already has its error status
+                continue;
+            }
+            if (parallel) {
+                ForkJoinPool.commonPool().execute(() -> dispatch(call));
+            } else {
+                dispatch(call);
+            }
+        }
+
+        // calls of async handlers are completed by other threads
+        long timeout = AsyncTimeout.getDefaultMillis();
+        try {
+            if (timeout > 0) {
+                CompletableFuture.allOf(completed).get(timeout, TimeUnit.MILLISECONDS);
+            } else {
+                CompletableFuture.allOf(completed).join();
+            }
+        } catch (TimeoutException | ExecutionException e) {
+            // the calls that are not complete are answered with 503 by writeResults
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        send(exchange, 200, writeResults(calls), Constants.APP_JSON);
+    }
+
+    /**
+     * Build the exchange of one call, a call without method or path fails with 400.
+     */
+    private BatchExchange createCall(HttpExchange exchange, BatchItem item) throws IOException {
+        URI uri = null;
+        if (item != null && item.method != null && item.path != null) {
+            try {
+                uri = new URI(item.path + toQuery(item.params));
+            } catch (URISyntaxException e) {
+                uri = null;
+            }
+        }
+
+        byte[] body = item != null && item.body != null && !item.body.isNull()
+                ? objectMapper.writeValueAsBytes(item.body) : EMPTY_BODY;
+        BatchExchange call = new BatchExchange(exchange, item != null && item.method != null ? item.method : "",
+                uri != null ? uri : URI.create(Constants.BATCH_PATH), body);
+        if (body.length > 0) {
+            call.getRequestHeaders().set(Constants.CONTENT_TYPE, Constants.APP_JSON);
+        }
+        if (uri == null) {
+            call.fail(400);
+        }
+        return call;
+    }
+
+    private static String toQuery(Map<String, String> params) {
+        if (params == null || params.isEmpty()) {
+            return Constants.EMPTY_STRING;
+        }
+
+        StringBuilder query = new StringBuilder("?");
+        params.forEach((name, value) -> {
+            if (query.length() > 1) {
+                query.append(Constants.AND);
+            }
+            query.append(URLEncoder.encode(name, StandardCharsets.UTF_8)).append(Constants.EQUALS)
+                    .append(URLEncoder.encode(value == null ? Constants.EMPTY_STRING : value, StandardCharsets.UTF_8));
+        });
+        return query.toString();
+    }
+
+    private void dispatch(BatchExchange call) {
+        try {
+            dispatcher.handle(call);
+        } catch (Exception e) {
+            // the handler failed, same as a single request the error is not sent to the client
+            call.fail(500);
+        }
+    }
+
+    private byte[] writeResults(BatchExchange[] calls) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(calls.length * 64);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartArray();
+            for (BatchExchange call : calls) {
+                generator.writeStartObject();
+                // a call that is still running can change its response, only its status is written
+                if (!call.getCompleted().isDone()) {
+                    generator.writeNumberField("status", 503);
+                    generator.writeEndObject();
+                    continue;
+                }
+                generator.writeNumberField("status", call.getResponseCode());
+
+                byte[] body = call.getResponseBytes();
+                if (body.length > 0) {
+                    generator.writeFieldName("body");
+                    if (isJson(call.getResponseHeaders().getFirst(Constants.CONTENT_TYPE))) {
+                        generator.writeRawValue(new String(body, StandardCharsets.UTF_8));
+                    } else {
+                        generator.writeString(new String(body, StandardCharsets.UTF_8));
+                    }
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean isJson(String contentType) {
+        return contentType != null && contentType.startsWith(Constants.APP_JSON);
+    }
+
+    private static void send(HttpExchange exchange, int statusCode, byte[] response, String contentType) throws IOException {
+        if (contentType != null) {
+            exchange.getResponseHeaders().set(Constants.CONTENT_TYPE, contentType);
+        }
+        exchange.sendResponseHeaders(statusCode, response.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(response);
+        }
+    }
+}
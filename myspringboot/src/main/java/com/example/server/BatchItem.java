@@ -0,0 +1,20 @@
+package com.example.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Map;
+
+/**
+ * One call of a batch request, example: {"method": "PUT", "path": "/v1/users/put", "params": {"userId": "1"}}
+ *
+ * --> method: HTTP method of the call.
+ * --> path: path of the endpoint, without query string.
+ * --> params: query params of the call, optional.
+ * --> body: JSON request body of the call, optional.
+ */
+public class BatchItem {
+    public String method;
+    public String path;
+    public Map<String, String> params;
+    public JsonNode body;
+}
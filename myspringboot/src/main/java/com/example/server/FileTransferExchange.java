@@ -0,0 +1,22 @@
+package com.example.server;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * Exchange that can write a region of a file straight to its socket with FileChannel.transferTo, the bytes of the
+ * file are not copied into the heap (sendfile on Linux). The exchanges of the nio engine implement it, for the JDK
+ * server the body must be written through its response stream.
+ */
+public interface FileTransferExchange {
+
+    /**
+     * Write a region of a file as (part of) the response body, the headers must be sent with a fixed length.
+     *
+     * @param file open file.
+     * @param position first byte of the region.
+     * @param count bytes of the region.
+     * @throws IOException when the connection was closed, or the file is shorter than the region.
+     */
+    void transferFile(FileChannel file, long position, long count) throws IOException;
+}
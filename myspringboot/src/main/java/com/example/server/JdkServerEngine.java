@@ -0,0 +1,47 @@
+package com.example.server;
+
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executor;
+
+/**
+ * Engine based on com.sun.net.httpserver.HttpServer, with one root context for the handler.
+ */
+public class JdkServerEngine implements ServerEngine {
+
+    private final HttpServer server;
+
+    public JdkServerEngine(int port, int backlog, HttpHandler handler) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), backlog);
+        server.createContext("/", handler);
+    }
+
+    @Override
+    public void setExecutor(Executor executor) {
+        server.setExecutor(executor);
+    }
+
+    @Override
+    public void start() {
+        server.start();
+    }
+
+    @Override
+    public void stopAccepting() {
+        // HttpServer only closes its listener in stop, until then the new requests are rejected by the dispatcher
+    }
+
+    @Override
+    public void stop(int delaySeconds) {
+        // the delay of HttpServer.stop is in seconds
+        server.stop(delaySeconds);
+    }
+
+    @Override
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+}
@@ -1,22 +1,52 @@
 package com.example.server;
 
+import com.example.enums.EngineType;
+import com.example.metrics.EndpointMetrics;
+import com.example.metrics.MetricsHandler;
+import com.example.metrics.MetricsRegistry;
 import com.example.myspringboot.MyRequestHandler;
-import com.sun.net.httpserver.HttpServer;
+import com.example.resources.StaticResourceHandler;
+import com.example.trace.TraceHandler;
+import com.example.util.Constants;
 
 import java.io.IOException;
-import java.net.InetSocketAddress;
-import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class MyHttpServer {
 
-    private HttpServer server;
+    private static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+    private static final long DEFAULT_DRAIN_MILLIS = 5000;
+
+    private ServerEngine server;
     private int port;
-    private HashSet<String> existingPaths;
+    private RequestDispatcher dispatcher;
+    private ServerExecutor executor;
+    // metrics of the routes of this server, their in-flight counters are used to drain it
+    private final List<EndpointMetrics> endpoints = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean stopped = new AtomicBoolean();
 
     public MyHttpServer(int port) throws IOException {
+        this(port, EngineType.JDK, 0, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param port port of the server, 0 selects a free port.
+     * @param engineType one of EngineType values.
+     * @param backlog max pending connections, 0 means the default of the system.
+     * @param bufferSize size of the pooled buffers of the nio engine.
+     * @throws IOException when the port can not be bound.
+     */
+    public MyHttpServer(int port, String engineType, int backlog, int bufferSize) throws IOException {
         this.port = port;
-        server = HttpServer.create(new InetSocketAddress(port), 0);
-        existingPaths = new HashSet<>();
+        // one root handler, the dispatcher selects the handler of each request with the routing trie
+        dispatcher = new RequestDispatcher();
+        server = ServerEngine.create(engineType, port, backlog, bufferSize, dispatcher);
+        // built-in endpoint with the metrics of every handler in Prometheus format
+        dispatcher.addRoute(Constants.GET, Constants.METRICS_PATH, new MetricsHandler(MetricsRegistry.getDefault()));
+        // built-in endpoint that executes many calls in one request
+        dispatcher.addRoute(Constants.POST, Constants.BATCH_PATH, new BatchHandler(dispatcher));
     }
 
     public void startServer() {
@@ -24,21 +54,133 @@ public class MyHttpServer {
     }
 
     public void stopServer() {
-        server.stop(5000);
+        drain(DEFAULT_DRAIN_MILLIS);
+    }
+
+    /**
+     * Stop the server gracefully: the new requests are rejected with 503 (and new connections are refused when the
+     * engine supports it), the requests in flight are completed until the timeout and then the server stops.
+     * The requests still in flight at the timeout are cut off and logged by endpoint.
+     *
+     * @param timeoutMillis max milliseconds to wait for the requests in flight.
+     * @return requests cut off, 0 when every request completed or when the server was already stopped.
+     */
+    public int drain(long timeoutMillis) {
+        if (!stopped.compareAndSet(false, true)) {
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        dispatcher.setDraining(true);
+        server.stopAccepting();
+        System.out.println("Draining server, requests in flight: " + getInFlight());
+
+        long deadline = start + timeoutMillis * 1_000_000L;
+        while (getInFlight() > 0 && System.nanoTime() - deadline < 0) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        // report the requests that did not complete, the connections are closed by the engine
+        int cutOff = 0;
+        StringBuilder report = new StringBuilder();
+        for (EndpointMetrics endpoint : endpoints) {
+            long inFlight = endpoint.getInFlight();
+            if (inFlight > 0) {
+                cutOff += inFlight;
+                report.append(' ').append(endpoint.getMethod()).append(' ').append(endpoint.getPath()).append('=').append(inFlight);
+            }
+        }
+
+        server.stop(0);
+        if (executor != null) {
+            executor.shutdown();
+        }
+
+        System.out.println("Server drained in " + (System.nanoTime() - start) / 1_000_000 + " ms"
+                + (cutOff > 0 ? ", requests cut off: " + cutOff + report : ""));
+        return cutOff;
+    }
+
+    /**
+     * @return requests of this server that did not complete their response yet.
+     */
+    public long getInFlight() {
+        long inFlight = 0;
+        for (EndpointMetrics endpoint : endpoints) {
+            inFlight += endpoint.getInFlight();
+        }
+        return inFlight;
     }
 
-    public void addContext(MyRequestHandler myHandler, String path) {
+    /**
+     * Select the executor that runs the requests, it must be called before starting the server.
+     * Without executor the requests run in the dispatcher thread of the server.
+     *
+     * @param executor server executor.
+     */
+    public void setExecutor(ServerExecutor executor) {
+        this.executor = executor;
+        server.setExecutor(executor);
+    }
+
+    public ServerExecutor getExecutor() {
+        return executor;
+    }
+
+    public void addRoute(MyRequestHandler myHandler, String path) {
         if(server == null) {
             throw new RuntimeException("MyHttpServer is null.");
         } else {
-            if(!existingPaths.contains(path)) {
-                existingPaths.add(path);
-                server.createContext(path, myHandler);
-                //System.out.println("----> Adding path: " + path + " to server context.");
-                //System.out.println("----> Request type: " + myHandler.getRequestType());
-            } else {
-                throw new RuntimeException("HTTP Request Path: -->" + path + " is duplicated.");
-            }
+            dispatcher.addRoute(myHandler.getRequestType(), path, myHandler);
+            endpoints.add(myHandler.getMetrics());
+            //System.out.println("----> Adding path: " + path + " to server routes.");
+            //System.out.println("----> Request type: " + myHandler.getRequestType());
         }
     }
+
+    /**
+     * Add a route with any handler, like the lazy handlers that compile the MyRequestHandler on first request.
+     *
+     * @param requestType HTTP method.
+     * @param path path of the route, it can contain path variables.
+     * @param handler route handler.
+     */
+    public void addRoute(String requestType, String path, RouteHandler handler) {
+        dispatcher.addRoute(requestType, path, handler);
+        endpoints.add(MetricsRegistry.getDefault().register(requestType, path));
+    }
+
+    /**
+     * Add the built-in endpoint with the traces of the sampled requests, it is only registered when the app
+     * enables the tracing with @Trace.
+     */
+    public void addTraceEndpoint() {
+        dispatcher.addRoute(Constants.GET, Constants.TRACE_PATH, new TraceHandler());
+    }
+
+    /**
+     * Serve the files of a directory under the path of the handler, the routes of the controllers have priority.
+     *
+     * @param handler handler of the @StaticResources directory.
+     */
+    public void addStaticResources(StaticResourceHandler handler) {
+        dispatcher.addPrefixRoute(handler.getPath(), handler);
+        endpoints.add(handler.getMetrics());
+    }
+
+    /**
+     * @return port of the server, when it was created with port 0 this is the port selected by the system.
+     */
+    public int getPort() {
+        return server.getPort();
+    }
+
+    public RequestDispatcher getDispatcher() {
+        return dispatcher;
+    }
 }
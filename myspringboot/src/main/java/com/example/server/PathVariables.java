@@ -0,0 +1,93 @@
+package com.example.server;
+
+/**
+ * Path variables of a matched route, example: the route /v1/users/{id} and the path /v1/users/15 contain the
+ * variable id = 15.
+ *
+ * The values are not copied, they are stored as offsets (start, end) into the request path and converted only when
+ * they are bound to a controller param. Numeric values are parsed directly from the path.
+ */
+public final class PathVariables {
+
+    public static final PathVariables EMPTY = new PathVariables("", new String[0], new int[0]);
+
+    private final String path;
+    private final String[] names;
+    private final int[] offsets;
+
+    PathVariables(String path, String[] names, int[] offsets) {
+        this.path = path;
+        this.names = names;
+        this.offsets = offsets;
+    }
+
+    /**
+     * @param name variable name, like "id" for {id}.
+     * @return position of the variable or -1 when the route does not contain it.
+     */
+    public int indexOf(String name) {
+        for (int index = 0; index < names.length; index++) {
+            if (names[index].equals(name)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String getString(int index) {
+        return path.substring(start(index), end(index));
+    }
+
+    public int getInt(int index) {
+        return Integer.parseInt(path, start(index), end(index), 10);
+    }
+
+    public long getLong(int index) {
+        return Long.parseLong(path, start(index), end(index), 10);
+    }
+
+    public short getShort(int index) {
+        int value = getInt(index);
+        if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+            throw new NumberFormatException("Path variable " + names[index] + " is out of range for short: " + value);
+        }
+        return (short) value;
+    }
+
+    public byte getByte(int index) {
+        int value = getInt(index);
+        if (value < Byte.MIN_VALUE || value > Byte.MAX_VALUE) {
+            throw new NumberFormatException("Path variable " + names[index] + " is out of range for byte: " + value);
+        }
+        return (byte) value;
+    }
+
+    public boolean getBoolean(int index) {
+        int length = end(index) - start(index);
+        if (length == 4 && path.regionMatches(true, start(index), "true", 0, 4)) {
+            return true;
+        } else if (length == 5 && path.regionMatches(true, start(index), "false", 0, 5)) {
+            return false;
+        }
+        throw new IllegalArgumentException("Path variable " + names[index] + " is not true or false");
+    }
+
+    public char getChar(int index) {
+        if (end(index) - start(index) != 1) {
+            throw new IllegalArgumentException("Path variable " + names[index] + " is not a single character");
+        }
+        return path.charAt(start(index));
+    }
+
+    private int start(int index) {
+        return offsets[index * 2];
+    }
+
+    private int end(int index) {
+        return offsets[index * 2 + 1];
+    }
+}
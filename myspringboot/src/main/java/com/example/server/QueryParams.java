@@ -0,0 +1,130 @@
+package com.example.server;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Params of the query string, example: key1=value1&key2=value2
+ *
+ * The raw query is parsed in a single pass into an array of name/value pairs, names and values are percent-decoded
+ * ('+' is a space). Values without escaped characters are only a substring of the query. Requests usually contain a
+ * few params, so the search by name is a linear scan.
+ */
+public final class QueryParams {
+
+    public static final QueryParams EMPTY = new QueryParams(new String[0], 0);
+
+    private final String[] entries;
+    private final int size;
+
+    private QueryParams(String[] entries, int size) {
+        this.entries = entries;
+        this.size = size;
+    }
+
+    /**
+     * @param rawQuery query string as received, without decoding (URI.getRawQuery()).
+     * @return params of the query, empty when there is no query.
+     */
+    public static QueryParams parse(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return EMPTY;
+        }
+
+        int length = rawQuery.length();
+        int maxParams = 1;
+        for (int i = 0; i < length; i++) {
+            if (rawQuery.charAt(i) == '&') {
+                maxParams++;
+            }
+        }
+
+        String[] entries = new String[maxParams * 2];
+        int size = 0;
+        int start = 0;
+        while (start <= length) {
+            int end = rawQuery.indexOf('&', start);
+            if (end < 0) {
+                end = length;
+            }
+
+            if (end > start) {
+                int equals = rawQuery.indexOf('=', start);
+                if (equals < 0 || equals > end) {
+                    equals = end;
+                }
+
+                entries[size * 2] = decode(rawQuery, start, equals);
+                entries[size * 2 + 1] = equals < end ? decode(rawQuery, equals + 1, end) : "";
+                size++;
+            }
+            start = end + 1;
+        }
+
+        return new QueryParams(entries, size);
+    }
+
+    /**
+     * @param name param name.
+     * @return first value of the param or null when the query does not contain it.
+     */
+    public String get(String name) {
+        for (int index = 0; index < size; index++) {
+            if (entries[index * 2].equals(name)) {
+                return entries[index * 2 + 1];
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getName(int index) {
+        return entries[index * 2];
+    }
+
+    public String getValue(int index) {
+        return entries[index * 2 + 1];
+    }
+
+    private static String decode(String raw, int start, int end) {
+        int index = start;
+        while (index < end) {
+            char current = raw.charAt(index);
+            if (current == '%' || current == '+') {
+                break;
+            }
+            index++;
+        }
+        if (index == end) {
+            return raw.substring(start, end);
+        }
+
+        // escaped characters are decoded as UTF-8 bytes
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(end - start);
+        for (int i = start; i < end; i++) {
+            char current = raw.charAt(i);
+            if (current == '+') {
+                bytes.write(' ');
+            } else if (current == '%' && isHex(raw, i + 1, end) && isHex(raw, i + 2, end)) {
+                bytes.write(Character.digit(raw.charAt(i + 1), 16) * 16 + Character.digit(raw.charAt(i + 2), 16));
+                i += 2;
+            } else if (current < 0x80) {
+                bytes.write(current);
+            } else {
+                // characters that were not escaped by the client
+                int codePoint = raw.codePointAt(i);
+                byte[] encoded = new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8);
+                bytes.write(encoded, 0, encoded.length);
+                i += Character.charCount(codePoint) - 1;
+            }
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private static boolean isHex(String raw, int index, int end) {
+        return index < end && Character.digit(raw.charAt(index), 16) >= 0;
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Root handler of the server, it receives every request and selects the handler of the route using the routing trie.
+ *
+ * --> path not registered: the handler of the longest prefix route that contains it (static resources), or 404.
+ * --> path registered but not for the request method: 405 with the Allow header.
+ * --> request rejected by the executor because its queue is full: 503.
+ * --> server draining before it stops: 503 and the connection is closed.
+ */
+public class RequestDispatcher implements HttpHandler {
+
+    private static final String ALLOW = "Allow";
+    private static final String CONNECTION = "Connection";
+    private static final String CLOSE = "close";
+    private static final byte[] NOT_FOUND_RESPONSE = "Method not found".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NOT_ALLOWED_RESPONSE = "Method Not Allowed".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] UNAVAILABLE_RESPONSE = "Service Unavailable".getBytes(StandardCharsets.UTF_8);
+
+    // scratch array used by the lookup to store the offsets of the path variables
+    private static final ThreadLocal<int[]> OFFSETS = ThreadLocal.withInitial(() -> new int[RouteTrie.MAX_PATH_VARIABLES * 2]);
+
+    private final RouteTrie routes = new RouteTrie();
+    // prefix routes sorted by length, longest first, they are only checked when the trie has no route for the path
+    private volatile PrefixRoute[] prefixRoutes = new PrefixRoute[0];
+    private volatile boolean draining;
+
+    public void addRoute(String method, String path, RouteHandler handler) {
+        routes.addRoute(method, path, handler);
+    }
+
+    /**
+     * Add a handler for every path under a prefix and every HTTP method, the handler validates the method.
+     * The routes of the trie have priority, so a controller can be mapped inside the prefix.
+     *
+     * @param prefix path prefix without trailing slash, like /assets.
+     * @param handler handler that will receive the requests.
+     */
+    public synchronized void addPrefixRoute(String prefix, RouteHandler handler) {
+        PrefixRoute[] current = prefixRoutes;
+        for (PrefixRoute route : current) {
+            if (route.prefix.equals(prefix)) {
+                throw new RuntimeException("HTTP Request Path: -->" + prefix + " is duplicated.");
+            }
+        }
+
+        PrefixRoute[] updated = new PrefixRoute[current.length + 1];
+        int index = 0;
+        while (index < current.length && current[index].prefix.length() >= prefix.length()) {
+            updated[index] = current[index];
+            index++;
+        }
+        updated[index] = new PrefixRoute(prefix, handler);
+        System.arraycopy(current, index, updated, index + 1, current.length - index);
+        prefixRoutes = updated;
+    }
+
+    /**
+     * Reject the new requests, the clients can retry them in another node. The connections are closed after the
+     * rejection, so keep-alive clients do not send more requests to this server.
+     */
+    public void setDraining(boolean draining) {
+        this.draining = draining;
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (draining) {
+            exchange.getResponseHeaders().set(CONNECTION, CLOSE);
+            sendError(exchange, 503, UNAVAILABLE_RESPONSE);
+            return;
+        }
+
+        if (ServerExecutor.isShedding()) {
+            sendError(exchange, 503, UNAVAILABLE_RESPONSE);
+            return;
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        int[] offsets = OFFSETS.get();
+
+        RouteTrie.Node node = routes.find(path, offsets);
+        if (node == null) {
+            RouteHandler prefixHandler = findPrefixHandler(path);
+            if (prefixHandler != null) {
+                prefixHandler.handle(exchange, PathVariables.EMPTY);
+            } else {
+                sendError(exchange, 404, NOT_FOUND_RESPONSE);
+            }
+            return;
+        }
+
+        RouteTrie.Route route = node.getRoute(exchange.getRequestMethod());
+        if (route == null) {
+            exchange.getResponseHeaders().set(ALLOW, node.getAllowHeader());
+            sendError(exchange, 405, NOT_ALLOWED_RESPONSE);
+            return;
+        }
+
+        route.getHandler().handle(exchange, route.pathVariables(path, offsets));
+    }
+
+    /**
+     * Limit of the request body of a route, the engine uses it to reject a long body before reading it.
+     *
+     * @param method HTTP method of the request.
+     * @param path request path.
+     * @return max size of the body in bytes, -1 when the route has no limit of its own or does not exist.
+     */
+    public long getMaxBodyBytes(String method, String path) {
+        RouteTrie.Node node = routes.find(path, OFFSETS.get());
+        if (node == null) {
+            RouteHandler prefixHandler = findPrefixHandler(path);
+            return prefixHandler != null ? prefixHandler.getMaxBodyBytes() : -1;
+        }
+
+        RouteTrie.Route route = node.getRoute(method);
+        return route != null ? route.getHandler().getMaxBodyBytes() : -1;
+    }
+
+    private RouteHandler findPrefixHandler(String path) {
+        for (PrefixRoute route : prefixRoutes) {
+            String prefix = route.prefix;
+            // /assets matches /assets and /assets/app.js, but not /assetsX
+            if (path.startsWith(prefix) && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/')) {
+                return route.handler;
+            }
+        }
+        return null;
+    }
+
+    public RouteTrie getRoutes() {
+        return routes;
+    }
+
+    private static void sendError(HttpExchange exchange, int errorCode, byte[] errorResponse) throws IOException {
+        exchange.sendResponseHeaders(errorCode, errorResponse.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(errorResponse);
+        }
+    }
+
+    private static final class PrefixRoute {
+
+        private final String prefix;
+        private final RouteHandler handler;
+
+        PrefixRoute(String prefix, RouteHandler handler) {
+            this.prefix = prefix;
+            this.handler = handler;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.server;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+
+/**
+ * Handler registered in the routing trie, unlike a regular HttpHandler it also receives the path variables
+ * extracted while the route was matched.
+ */
+@FunctionalInterface
+public interface RouteHandler {
+
+    void handle(HttpExchange exchange, PathVariables pathVariables) throws IOException;
+
+    /**
+     * @return max size in bytes of the request body, -1 when the handler has no limit of its own. The engine can
+     * reject a longer body before it is read.
+     */
+    default long getMaxBodyBytes() {
+        return -1;
+    }
+}
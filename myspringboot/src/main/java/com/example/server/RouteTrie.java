@@ -0,0 +1,268 @@
+package com.example.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routing trie, each node is one path segment and contains the handlers of that path for each HTTP method.
+ *
+ * Example: /v1/users/get and /v1/users/{id} share the nodes "v1" and "users", {id} is a variable node that
+ * matches any segment.
+ *
+ * The lookup walks the request path one segment at a time, the segments are compared as regions of the request
+ * path (no split, no substring), so the cost depends on the path length and not on the number of routes. Literal
+ * segments have priority over variables.
+ */
+public class RouteTrie {
+
+    public static final int MAX_PATH_VARIABLES = 32;
+
+    private final Node root = new Node(0);
+
+    /**
+     * Add a new route.
+     *
+     * @param method HTTP method: GET, POST, PUT...
+     * @param path full path of the route, like /v1/users/{id}
+     * @param handler handler that will receive the requests.
+     */
+    public void addRoute(String method, String path, RouteHandler handler) {
+        Node node = root;
+        List<String> variableNames = new ArrayList<>();
+
+        int length = path.length();
+        int start = 0;
+        while (start < length) {
+            int end = segmentEnd(path, start);
+            if (end > start) {
+                String segment = path.substring(start, end);
+
+                if (isVariable(segment)) {
+                    variableNames.add(segment.substring(1, segment.length() - 1));
+                    node = node.getOrCreateVariableChild();
+                } else {
+                    node = node.getOrCreateChild(segment);
+                }
+            }
+            start = end + 1;
+        }
+
+        if (variableNames.size() > MAX_PATH_VARIABLES) {
+            throw new RuntimeException("HTTP Request Path: -->" + path + " contains more than " + MAX_PATH_VARIABLES + " variables.");
+        }
+        if (node.routes.containsKey(method)) {
+            throw new RuntimeException("HTTP Request Path: -->" + method + " " + path + " is duplicated.");
+        }
+        node.addRoute(method, new Route(handler, variableNames.toArray(new String[0])));
+    }
+
+    /**
+     * @param path full path of a route, like /v1/users/{id}/orders/{order}
+     * @return names of the path variables in the same order as the path, the position of each name is the index
+     * of the variable in the PathVariables of the route.
+     */
+    public static String[] variableNames(String path) {
+        List<String> variableNames = new ArrayList<>();
+
+        int length = path.length();
+        int start = 0;
+        while (start < length) {
+            int end = segmentEnd(path, start);
+            if (end > start && isVariable(path.substring(start, end))) {
+                variableNames.add(path.substring(start + 1, end - 1));
+            }
+            start = end + 1;
+        }
+        return variableNames.toArray(new String[0]);
+    }
+
+    /**
+     * Search the node of a path, empty segments are ignored so /v1//users/ and /v1/users are the same path.
+     *
+     * @param path request path.
+     * @param offsets array of at least MAX_PATH_VARIABLES * 2 elements, it receives the start and end of each variable.
+     * @return node of the path or null when there is no route for it.
+     */
+    public Node find(String path, int[] offsets) {
+        return match(root, path, 0, offsets);
+    }
+
+    private static Node match(Node node, String path, int start, int[] offsets) {
+        int length = path.length();
+        while (start < length && path.charAt(start) == '/') {
+            start++;
+        }
+        if (start >= length) {
+            return node.allowHeader != null ? node : null;
+        }
+
+        int end = segmentEnd(path, start);
+        Node child = node.findChild(path, start, end);
+        if (child != null) {
+            Node result = match(child, path, end, offsets);
+            if (result != null) {
+                return result;
+            }
+        }
+
+        Node variableChild = node.variableChild;
+        if (variableChild != null) {
+            int variableIndex = node.variableCount;
+            offsets[variableIndex * 2] = start;
+            offsets[variableIndex * 2 + 1] = end;
+            return match(variableChild, path, end, offsets);
+        }
+        return null;
+    }
+
+    private static int segmentEnd(String path, int start) {
+        int end = path.indexOf('/', start);
+        return end < 0 ? path.length() : end;
+    }
+
+    private static boolean isVariable(String segment) {
+        return segment.length() > 2 && segment.charAt(0) == '{' && segment.charAt(segment.length() - 1) == '}';
+    }
+
+    /**
+     * Route registered for one HTTP method, the variable names are stored in the same order as the path.
+     */
+    public static final class Route {
+
+        private final RouteHandler handler;
+        private final String[] variableNames;
+
+        Route(RouteHandler handler, String[] variableNames) {
+            this.handler = handler;
+            this.variableNames = variableNames;
+        }
+
+        public RouteHandler getHandler() {
+            return handler;
+        }
+
+        /**
+         * @param path request path used in the lookup.
+         * @param offsets offsets filled by the lookup.
+         * @return path variables of the request.
+         */
+        public PathVariables pathVariables(String path, int[] offsets) {
+            if (variableNames.length == 0) {
+                return PathVariables.EMPTY;
+            }
+            return new PathVariables(path, variableNames, Arrays.copyOf(offsets, variableNames.length * 2));
+        }
+    }
+
+    public static final class Node {
+
+        private final Map<String, Route> routes = new LinkedHashMap<>(4);
+        private final int variableCount;
+        private String allowHeader;
+        private Node variableChild;
+
+        // children are stored in an open addressing table, the keys are compared against a region of the request path
+        private String[] childKeys = new String[0];
+        private Node[] childNodes = new Node[0];
+        private int childCount;
+
+        private Node(int variableCount) {
+            this.variableCount = variableCount;
+        }
+
+        /**
+         * @param method HTTP method of the request.
+         * @return route for the method or null when the path exists but the method is not supported.
+         */
+        public Route getRoute(String method) {
+            return routes.get(method);
+        }
+
+        /**
+         * @return value for the Allow header, example: "GET, POST".
+         */
+        public String getAllowHeader() {
+            return allowHeader;
+        }
+
+        private void addRoute(String method, Route route) {
+            routes.put(method, route);
+            allowHeader = String.join(", ", routes.keySet());
+        }
+
+        private Node getOrCreateVariableChild() {
+            if (variableChild == null) {
+                variableChild = new Node(variableCount + 1);
+            }
+            return variableChild;
+        }
+
+        private Node getOrCreateChild(String segment) {
+            Node child = findChild(segment, 0, segment.length());
+            if (child != null) {
+                return child;
+            }
+
+            if ((childCount + 1) * 2 > childKeys.length) {
+                resize(Math.max(4, childKeys.length * 2));
+            }
+            child = new Node(variableCount);
+            insert(segment, child);
+            childCount++;
+            return child;
+        }
+
+        private Node findChild(String path, int start, int end) {
+            if (childCount == 0) {
+                return null;
+            }
+
+            int mask = childKeys.length - 1;
+            int slot = hash(path, start, end) & mask;
+            int length = end - start;
+
+            String key;
+            while ((key = childKeys[slot]) != null) {
+                if (key.length() == length && key.regionMatches(0, path, start, length)) {
+                    return childNodes[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        private void insert(String segment, Node child) {
+            int mask = childKeys.length - 1;
+            int slot = hash(segment, 0, segment.length()) & mask;
+            while (childKeys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            childKeys[slot] = segment;
+            childNodes[slot] = child;
+        }
+
+        private void resize(int capacity) {
+            String[] oldKeys = childKeys;
+            Node[] oldNodes = childNodes;
+            childKeys = new String[capacity];
+            childNodes = new Node[capacity];
+
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    insert(oldKeys[i], oldNodes[i]);
+                }
+            }
+        }
+
+        private static int hash(String value, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + value.charAt(i);
+            }
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
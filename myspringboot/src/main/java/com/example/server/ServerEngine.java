@@ -0,0 +1,61 @@
+package com.example.server;
+
+import com.example.enums.EngineType;
+import com.example.server.nio.NioServerEngine;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+/**
+ * Network layer of MyHttpServer: it accepts the connections, parses the requests and passes each one to the root
+ * handler as an HttpExchange, so the dispatcher and the request handlers work the same on every engine.
+ */
+public interface ServerEngine {
+
+    /**
+     * Select the executor that runs the handler, it must be called before starting the engine.
+     */
+    void setExecutor(Executor executor);
+
+    void start();
+
+    /**
+     * Stop accepting new connections, the current connections and exchanges continue.
+     */
+    void stopAccepting();
+
+    /**
+     * Stop accepting connections and close the engine once the current exchanges finished.
+     *
+     * @param delaySeconds max seconds to wait for the current exchanges.
+     */
+    void stop(int delaySeconds);
+
+    /**
+     * @return port of the engine, when it was created with port 0 this is the port selected by the system.
+     */
+    int getPort();
+
+    /**
+     * Create the engine for one of the EngineType values.
+     *
+     * @param type engine type.
+     * @param port port of the server.
+     * @param backlog max pending connections, 0 means the default of the system.
+     * @param bufferSize size of the pooled buffers, only used by the nio engine.
+     * @param handler root handler of the server.
+     * @return server engine.
+     * @throws IOException when the port can not be bound.
+     */
+    static ServerEngine create(String type, int port, int backlog, int bufferSize, HttpHandler handler) throws IOException {
+        switch (type) {
+            case EngineType.JDK:
+                return new JdkServerEngine(port, backlog, handler);
+            case EngineType.NIO:
+                return new NioServerEngine(port, backlog, bufferSize, handler);
+            default:
+                throw new RuntimeException("Unknown server engine: " + type);
+        }
+    }
+}
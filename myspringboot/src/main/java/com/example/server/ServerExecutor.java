@@ -0,0 +1,148 @@
+package com.example.server;
+
+import com.example.enums.ExecutorMode;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executor used by the server to run the requests.
+ *
+ * In fixed mode the pool has a bounded queue, when the queue is full the request is not rejected silently: it is
+ * moved to a single shedding thread where the RequestDispatcher answers 503 without calling the controller.
+ * The shedding thread has a bounded queue too (on the JDK engine it also reads the request headers), when it is
+ * full the task is rejected and the engine closes the connection without a response.
+ */
+public class ServerExecutor implements java.util.concurrent.Executor {
+
+    private final ExecutorService pool;
+    private final ExecutorService shedder;
+    private final LongAdder shedRequests = new LongAdder();
+    private final LongAdder droppedRequests = new LongAdder();
+
+    private ServerExecutor(ExecutorService pool, ExecutorService shedder) {
+        this.pool = pool;
+        this.shedder = shedder;
+    }
+
+    /**
+     * Create the executor for one of the ExecutorMode values.
+     *
+     * @param mode execution mode.
+     * @param size number of threads, 0 means one per available processor.
+     * @param queueSize max queued requests, only used in fixed mode.
+     * @return server executor.
+     */
+    public static ServerExecutor create(String mode, int size, int queueSize) {
+        int threads = size > 0 ? size : Runtime.getRuntime().availableProcessors();
+
+        switch (mode) {
+            case ExecutorMode.VIRTUAL:
+                return new ServerExecutor(newVirtualThreadExecutor(), null);
+            case ExecutorMode.WORK_STEALING:
+                return new ServerExecutor(Executors.newWorkStealingPool(threads), null);
+            case ExecutorMode.FIXED:
+                ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(queueSize), new NamedThreadFactory("http-worker-"),
+                        new ThreadPoolExecutor.AbortPolicy());
+                ThreadPoolExecutor shedder = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(queueSize), SheddingThread::new, new ThreadPoolExecutor.AbortPolicy());
+                return new ServerExecutor(pool, shedder);
+            default:
+                throw new RuntimeException("Unknown executor mode: " + mode);
+        }
+    }
+
+    /**
+     * Virtual threads are only available since Java 21, the method is searched by reflection so the framework still
+     * runs on Java 17, in that case a thread per request executor is used.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.out.println("Virtual threads not available in this JVM, using a cached thread pool.");
+            return Executors.newCachedThreadPool(new NamedThreadFactory("http-worker-"));
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        try {
+            pool.execute(task);
+        } catch (RejectedExecutionException e) {
+            if (shedder == null || shedder.isShutdown()) {
+                throw e;
+            }
+            try {
+                shedder.execute(task);
+            } catch (RejectedExecutionException full) {
+                // both engines close the connection of a rejected task
+                droppedRequests.increment();
+                throw full;
+            }
+            shedRequests.increment();
+        }
+    }
+
+    /**
+     * @return true when the current request was rejected by the pool and should receive a 503.
+     */
+    public static boolean isShedding() {
+        return Thread.currentThread() instanceof SheddingThread;
+    }
+
+    public long getShedRequests() {
+        return shedRequests.sum();
+    }
+
+    /**
+     * @return requests whose connection was closed because the pool and the shedding thread were both full.
+     */
+    public long getDroppedRequests() {
+        return droppedRequests.sum();
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+        if (shedder != null) {
+            shedder.shutdown();
+        }
+    }
+
+    /**
+     * Thread that only answers 503 to the requests rejected by the pool.
+     */
+    private static class SheddingThread extends Thread {
+
+        SheddingThread(Runnable runnable) {
+            super(runnable, "http-shedder");
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(false);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,433 @@
+package com.example.server.nio;
+
+import com.sun.net.httpserver.Headers;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * One client connection of the nio engine.
+ *
+ * The read side only runs in the selector thread: the bytes are read into a pooled buffer until a complete request
+ * (head and body) is available, then the request is dispatched and the connection stops reading until the response
+ * is complete. The remaining bytes of the buffer are the pipelined requests, they are parsed after the response.
+ * A body longer than the limit of its route is rejected with a 413 before 100 Continue is sent and before any
+ * byte of it is buffered, the body array grows as the bytes arrive instead of being allocated for the declared length.
+ *
+ * The write side runs in the thread of the handler, see {@link #write(ByteBuffer)}. The few responses written by the
+ * selector thread itself (100 Continue and the rejected requests) never wait for the socket: the bytes that it does not
+ * accept are kept and written when the selector reports that the socket is writable, the next request is not
+ * dispatched before they are written.
+ */
+final class NioConnection {
+
+    private static final int MAX_BODY_BYTES = 64 * 1024 * 1024;
+    private static final int INITIAL_BODY_BYTES = 8 * 1024;
+    private static final byte[] CONTINUE_RESPONSE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    private final NioServerEngine engine;
+    private final SocketChannel channel;
+    private final SelectionKey key;
+
+    // read side, only used by the selector thread
+    private ByteBuffer readBuffer;
+    private NioHttpExchange pending;
+    private byte[] pendingBody;
+    private int pendingBodyLength;
+    private int pendingBodyRead;
+    private boolean busy;
+    private long lastActivity = System.nanoTime();
+
+    // response of the selector thread that the socket did not accept completely, only used by the selector thread
+    private ByteBuffer selectorWrite;
+    private boolean closeAfterWrite;
+
+    // write side
+    private boolean writable;
+    private volatile boolean closed;
+
+    NioConnection(NioServerEngine engine, SocketChannel channel, SelectionKey key) {
+        this.engine = engine;
+        this.channel = channel;
+        this.key = key;
+    }
+
+    void onReadable() throws IOException {
+        if (readBuffer == null) {
+            readBuffer = engine.getBuffers().acquire();
+        }
+
+        int read = channel.read(readBuffer);
+        if (read < 0) {
+            close();
+            return;
+        }
+
+        lastActivity = System.nanoTime();
+        processRequests();
+    }
+
+    /**
+     * Parse and dispatch the next request of the buffer, only one request of the connection is handled at a time.
+     */
+    private void processRequests() throws IOException {
+        if (!busy && !closed && selectorWrite == null) {
+            if (pending == null) {
+                parseHead();
+            }
+
+            if (pending != null && readBody()) {
+                NioHttpExchange exchange = pending;
+                exchange.setRequestBody(pendingBody);
+                pending = null;
+                pendingBody = null;
+                busy = true;
+                engine.dispatch(exchange);
+            }
+        }
+
+        if (closed || closeAfterWrite) {
+            return;
+        }
+        // do not read more requests while a response is in progress
+        boolean paused = busy || selectorWrite != null;
+        key.interestOps(paused ? key.interestOps() & ~SelectionKey.OP_READ : key.interestOps() | SelectionKey.OP_READ);
+        if (readBuffer != null && readBuffer.position() == 0) {
+            engine.getBuffers().release(readBuffer);
+            readBuffer = null;
+        }
+    }
+
+    /**
+     * Parse the request line and the headers when the whole head is in the buffer.
+     */
+    private void parseHead() throws IOException {
+        if (readBuffer == null) {
+            return;
+        }
+
+        int headEnd = findHeadEnd();
+        if (headEnd < 0) {
+            if (!readBuffer.hasRemaining()) {
+                reject(431, "Request Header Fields Too Large");
+            }
+            return;
+        }
+
+        byte[] head = new byte[headEnd];
+        readBuffer.get(0, head);
+        consume(headEnd);
+
+        String[] lines = new String(head, StandardCharsets.ISO_8859_1).split("\r\n");
+        // empty lines before the request line are ignored
+        int line = 0;
+        while (line < lines.length && lines[line].isEmpty()) {
+            line++;
+        }
+        if (line == lines.length) {
+            parseHead();
+            return;
+        }
+
+        String[] requestLine = lines[line].split(" ");
+        if (requestLine.length != 3 || !requestLine[2].startsWith("HTTP/1.")) {
+            reject(400, "Bad Request");
+            return;
+        }
+
+        URI uri;
+        try {
+            uri = new URI(requestLine[1]);
+        } catch (URISyntaxException e) {
+            reject(400, "Bad Request");
+            return;
+        }
+
+        Headers headers = new Headers();
+        for (line++; line < lines.length; line++) {
+            int colon = lines[line].indexOf(':');
+            if (colon <= 0) {
+                reject(400, "Bad Request");
+                return;
+            }
+            headers.add(lines[line].substring(0, colon).trim(), lines[line].substring(colon + 1).trim());
+        }
+
+        if (headers.containsKey("Transfer-encoding")) {
+            reject(501, "Chunked request body not supported");
+            return;
+        }
+
+        long contentLength = 0;
+        String contentLengthHeader = headers.getFirst("Content-length");
+        if (contentLengthHeader != null) {
+            try {
+                contentLength = Long.parseLong(contentLengthHeader);
+            } catch (NumberFormatException e) {
+                contentLength = -1;
+            }
+            if (contentLength < 0) {
+                reject(400, "Bad Request");
+                return;
+            }
+            long routeMaxBytes = engine.getMaxBodyBytes(requestLine[0], uri.getPath());
+            if (contentLength > MAX_BODY_BYTES || (routeMaxBytes > 0 && contentLength > routeMaxBytes)) {
+                reject(413, "Payload Too Large");
+                return;
+            }
+        }
+
+        String protocol = requestLine[2];
+        String connectionHeader = headers.getFirst("Connection");
+        boolean keepAlive = protocol.equals("HTTP/1.1")
+                ? !"close".equalsIgnoreCase(connectionHeader) : "keep-alive".equalsIgnoreCase(connectionHeader);
+
+        // HTTP/1.0 clients do not know 100 Continue
+        if (contentLength > 0 && protocol.equals("HTTP/1.1") && "100-continue".equalsIgnoreCase(headers.getFirst("Expect"))) {
+            writeFromSelector(ByteBuffer.wrap(CONTINUE_RESPONSE), false);
+        }
+
+        pending = new NioHttpExchange(this, requestLine[0], uri, protocol, headers, keepAlive);
+        pendingBodyLength = (int) contentLength;
+        pendingBody = new byte[Math.min(pendingBodyLength, INITIAL_BODY_BYTES)];
+        pendingBodyRead = 0;
+    }
+
+    /**
+     * Move the body bytes of the buffer to the body of the pending request.
+     *
+     * @return true when the body is complete.
+     */
+    private boolean readBody() {
+        if (pendingBodyRead < pendingBodyLength && readBuffer != null) {
+            int length = Math.min(readBuffer.position(), pendingBodyLength - pendingBodyRead);
+            if (pendingBodyRead + length > pendingBody.length) {
+                // doubled until the declared length, the complete body always has the exact length
+                int capacity = (int) Math.min(pendingBodyLength, Math.max(pendingBodyRead + length, pendingBody.length * 2L));
+                pendingBody = Arrays.copyOf(pendingBody, capacity);
+            }
+            readBuffer.get(0, pendingBody, pendingBodyRead, length);
+            consume(length);
+            pendingBodyRead += length;
+        }
+        return pendingBodyRead == pendingBodyLength;
+    }
+
+    /**
+     * @return index after the empty line that ends the head, or -1 when the head is not complete.
+     */
+    private int findHeadEnd() {
+        int limit = readBuffer.position();
+        for (int index = 3; index < limit; index++) {
+            if (readBuffer.get(index) == '\n' && readBuffer.get(index - 1) == '\r'
+                    && readBuffer.get(index - 2) == '\n' && readBuffer.get(index - 3) == '\r') {
+                return index + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Remove the first bytes of the buffer, the remaining bytes are moved to the start.
+     */
+    private void consume(int length) {
+        readBuffer.flip();
+        readBuffer.position(length);
+        readBuffer.compact();
+    }
+
+    /**
+     * Answer an invalid request and close the connection once the response is written.
+     */
+    private void reject(int statusCode, String reason) throws IOException {
+        byte[] response = ("HTTP/1.1 " + statusCode + " " + reason + "\r\nContent-length: 0\r\nConnection: close\r\n\r\n")
+                .getBytes(StandardCharsets.ISO_8859_1);
+        // nothing else is read from a rejected connection
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+        writeFromSelector(ByteBuffer.wrap(response), true);
+    }
+
+    /**
+     * Write a response of the selector thread without waiting for the socket, the rest of the bytes is written by
+     * {@link #onWritable()}.
+     *
+     * @param close true to close the connection after the bytes are written.
+     */
+    private void writeFromSelector(ByteBuffer buffer, boolean close) throws IOException {
+        channel.write(buffer);
+        if (!buffer.hasRemaining()) {
+            if (close) {
+                close();
+            }
+            return;
+        }
+
+        selectorWrite = buffer;
+        closeAfterWrite = close;
+        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+    }
+
+    /**
+     * Called by the exchange when its response is complete, from the thread of the handler.
+     *
+     * @param reusable false when the connection must be closed: Connection: close or an incomplete response.
+     */
+    void exchangeFinished(boolean reusable) {
+        engine.exchangeFinished();
+        engine.runInSelector(() -> {
+            busy = false;
+            lastActivity = System.nanoTime();
+            if (!reusable) {
+                close();
+                return;
+            }
+
+            try {
+                processRequests();
+            } catch (IOException e) {
+                close();
+            }
+        });
+    }
+
+    /**
+     * Write the whole buffer to the socket, it runs in the thread of the handler. When the socket does not accept
+     * more bytes, the thread waits until the selector reports that the socket is writable again, in that way a slow
+     * client slows down its handler without blocking the selector.
+     */
+    void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (closed) {
+                throw new IOException("Connection closed");
+            }
+            if (channel.write(buffer) == 0) {
+                awaitWritable();
+            }
+        }
+    }
+
+    /**
+     * Write a region of a file to the socket with transferTo, it runs in the thread of the handler and waits for
+     * the socket like {@link #write(ByteBuffer)}.
+     */
+    void transferFrom(FileChannel file, long position, long count) throws IOException {
+        long end = position + count;
+        while (position < end) {
+            if (closed) {
+                throw new IOException("Connection closed");
+            }
+            long sent = file.transferTo(position, end - position, channel);
+            if (sent > 0) {
+                position += sent;
+            } else if (position >= file.size()) {
+                throw new IOException("File truncated while it was sent");
+            } else {
+                awaitWritable();
+            }
+        }
+    }
+
+    private void awaitWritable() throws IOException {
+        synchronized (this) {
+            writable = false;
+        }
+        engine.runInSelector(() -> {
+            if (key.isValid()) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+            }
+        });
+
+        long deadline = System.nanoTime() + engine.getIdleTimeoutNanos();
+        synchronized (this) {
+            while (!writable && !closed) {
+                long remaining = (deadline - System.nanoTime()) / 1_000_000;
+                if (remaining <= 0) {
+                    throw new IOException("Write timeout");
+                }
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while writing response");
+                }
+            }
+        }
+    }
+
+    void onWritable() throws IOException {
+        if (selectorWrite != null) {
+            // no handler runs while the selector has bytes to write, they are written before its response
+            channel.write(selectorWrite);
+            if (selectorWrite.hasRemaining()) {
+                return;
+            }
+            selectorWrite = null;
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            if (closeAfterWrite) {
+                close();
+            } else {
+                processRequests();
+            }
+            return;
+        }
+
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        synchronized (this) {
+            writable = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * @return true when the connection has no request in progress and did not receive bytes for the idle timeout.
+     */
+    boolean isIdle(long now) {
+        return !busy && now - lastActivity > engine.getIdleTimeoutNanos();
+    }
+
+    /**
+     * Close the connection from any thread, the buffers are released in the selector thread.
+     */
+    void abort() {
+        engine.runInSelector(this::close);
+    }
+
+    /**
+     * Close the connection, it only runs in the selector thread.
+     */
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("Error while closing connection: " + e);
+        }
+        if (readBuffer != null) {
+            engine.getBuffers().release(readBuffer);
+            readBuffer = null;
+        }
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    ByteBufferPool getBuffers() {
+        return engine.getBuffers();
+    }
+
+    SocketChannel getChannel() {
+        return channel;
+    }
+}
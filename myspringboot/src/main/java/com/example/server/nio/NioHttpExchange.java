@@ -0,0 +1,525 @@
+package com.example.server.nio;
+
+import com.example.server.FileTransferExchange;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HttpExchange of the nio engine, it follows the same rules as the exchanges of the JDK server, so the handlers
+ * work the same with both engines:
+ *
+ * --> sendResponseHeaders with length > 0: fixed length body.
+ * --> sendResponseHeaders with length 0: chunked body, for HTTP/1.0 the body is sent without framing and the
+ *     connection is closed at the end of it.
+ * --> sendResponseHeaders with length -1: no body.
+ * --> the response is complete when the response body or the exchange is closed.
+ *
+ * The head and the body of the response are written into a pooled direct buffer, which is written to the socket
+ * when it is full, when the body is flushed and when the response is complete. File regions of a fixed length body
+ * are written with transferTo, after the buffered bytes.
+ */
+final class NioHttpExchange extends HttpExchange implements FileTransferExchange {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    // the Date header only changes once per second
+    private static volatile long dateSecond;
+    private static volatile String date;
+
+    private final NioConnection connection;
+    private final String method;
+    private final URI uri;
+    private final String protocol;
+    private final Headers requestHeaders;
+    private final Headers responseHeaders = new Headers();
+    // false when the connection is closed after this exchange
+    private boolean keepAlive;
+    private Map<String, Object> attributes;
+
+    private InputStream requestBody;
+    private OutputStream responseBody = new HeadersNotSentOutput();
+    private int responseCode = -1;
+    private ByteBuffer out;
+    private boolean headersSent;
+    private boolean finished;
+
+    NioHttpExchange(NioConnection connection, String method, URI uri, String protocol, Headers requestHeaders, boolean keepAlive) {
+        this.connection = connection;
+        this.method = method;
+        this.uri = uri;
+        this.protocol = protocol;
+        this.requestHeaders = requestHeaders;
+        this.keepAlive = keepAlive;
+    }
+
+    void setRequestBody(byte[] body) {
+        this.requestBody = new ByteArrayInputStream(body);
+    }
+
+    @Override
+    public Headers getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    @Override
+    public Headers getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    @Override
+    public URI getRequestURI() {
+        return uri;
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return method;
+    }
+
+    @Override
+    public HttpContext getHttpContext() {
+        // the nio engine has no contexts, the root handler receives every request
+        return null;
+    }
+
+    @Override
+    public void close() {
+        if (!headersSent) {
+            // same as the JDK server, the connection is closed without response
+            finish(false);
+            return;
+        }
+
+        try {
+            responseBody.close();
+        } catch (IOException e) {
+            finish(false);
+        }
+    }
+
+    @Override
+    public InputStream getRequestBody() {
+        return requestBody;
+    }
+
+    @Override
+    public OutputStream getResponseBody() {
+        return responseBody;
+    }
+
+    @Override
+    public void sendResponseHeaders(int rCode, long responseLength) throws IOException {
+        if (headersSent) {
+            throw new IOException("Headers already sent");
+        }
+        headersSent = true;
+        responseCode = rCode;
+
+        boolean noBody = responseLength < 0 || rCode == 204 || rCode == 304 || method.equals("HEAD");
+        // HTTP/1.0 clients can not decode chunked bodies, the end of the connection is the end of the body
+        boolean unframed = responseLength == 0 && !noBody && protocol.equals("HTTP/1.0");
+        if (unframed) {
+            keepAlive = false;
+        }
+        StringBuilder head = new StringBuilder(256);
+        head.append("HTTP/1.1 ").append(rCode).append(' ').append(reason(rCode)).append("\r\n");
+        head.append("Date: ").append(date()).append("\r\n");
+        if (responseLength > 0) {
+            head.append("Content-length: ").append(responseLength).append("\r\n");
+        } else if (responseLength == 0 && !noBody && !unframed) {
+            head.append("Transfer-encoding: chunked\r\n");
+        } else if (rCode != 204 && rCode != 304 && !unframed) {
+            head.append("Content-length: 0\r\n");
+        }
+        // the handler can close the connection with its own Connection: close header, like a draining server
+        if ("close".equalsIgnoreCase(responseHeaders.getFirst("Connection"))) {
+            keepAlive = false;
+        } else if (!keepAlive) {
+            head.append("Connection: close\r\n");
+        }
+        for (Map.Entry<String, List<String>> header : responseHeaders.entrySet()) {
+            for (String value : header.getValue()) {
+                head.append(header.getKey()).append(": ").append(value).append("\r\n");
+            }
+        }
+        head.append("\r\n");
+
+        out = connection.getBuffers().acquire();
+        put(head.toString().getBytes(StandardCharsets.ISO_8859_1), 0, head.length());
+
+        if (noBody) {
+            responseBody = new EmptyOutput();
+        } else if (responseLength > 0) {
+            responseBody = new FixedLengthOutput(responseLength);
+        } else if (unframed) {
+            responseBody = new UnframedOutput();
+        } else {
+            responseBody = new ChunkedOutput(connection.getBuffers().getBufferSize());
+        }
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        try {
+            return (InetSocketAddress) connection.getChannel().getRemoteAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        try {
+            return (InetSocketAddress) connection.getChannel().getLocalAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String getProtocol() {
+        return protocol;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes == null ? null : attributes.get(name);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        if (attributes == null) {
+            attributes = new HashMap<>();
+        }
+        attributes.put(name, value);
+    }
+
+    @Override
+    public void setStreams(InputStream i, OutputStream o) {
+        if (i != null) {
+            requestBody = i;
+        }
+        if (o != null) {
+            responseBody = o;
+        }
+    }
+
+    @Override
+    public HttpPrincipal getPrincipal() {
+        return null;
+    }
+
+    @Override
+    public void transferFile(FileChannel file, long position, long count) throws IOException {
+        if (!(responseBody instanceof FixedLengthOutput)) {
+            throw new IOException("transferFile requires a response with Content-length");
+        }
+        FixedLengthOutput body = (FixedLengthOutput) responseBody;
+        if (finished) {
+            throw new IOException("The response is already complete");
+        }
+        if (count > body.remaining) {
+            throw new IOException("Too many bytes to write to the response body");
+        }
+
+        // the head and the bytes written before go first
+        if (out.position() > 0) {
+            flushBuffer();
+        }
+        connection.transferFrom(file, position, count);
+        body.remaining -= count;
+    }
+
+    /**
+     * Close the connection of the exchange without completing the response, used when the handler failed.
+     */
+    void abort() {
+        finish(false);
+    }
+
+    /**
+     * Copy bytes into the response buffer, the buffer is written to the socket each time it is full.
+     */
+    private void put(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!out.hasRemaining()) {
+                flushBuffer();
+            }
+            int count = Math.min(length, out.remaining());
+            out.put(bytes, offset, count);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        out.flip();
+        connection.write(out);
+        out.clear();
+    }
+
+    /**
+     * Complete the response: write the rest of the buffer and return the connection to the engine.
+     *
+     * @param reusable false when the connection must be closed.
+     */
+    private void finish(boolean reusable) {
+        if (finished) {
+            return;
+        }
+        finished = true;
+
+        if (out != null) {
+            try {
+                if (reusable && out.position() > 0) {
+                    flushBuffer();
+                }
+            } catch (IOException e) {
+                reusable = false;
+            }
+            connection.getBuffers().release(out);
+            out = null;
+        }
+        connection.exchangeFinished(reusable && keepAlive);
+    }
+
+    private static String date() {
+        long second = System.currentTimeMillis() / 1000;
+        if (second != dateSecond) {
+            date = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC));
+            dateSecond = second;
+        }
+        return date;
+    }
+
+    private static String reason(int statusCode) {
+        switch (statusCode) {
+            case 200: return "OK";
+            case 201: return "Created";
+            case 204: return "No Content";
+            case 206: return "Partial Content";
+            case 304: return "Not Modified";
+            case 400: return "Bad Request";
+            case 404: return "Not Found";
+            case 405: return "Method Not Allowed";
+            case 406: return "Not Acceptable";
+            case 413: return "Payload Too Large";
+            case 415: return "Unsupported Media Type";
+            case 416: return "Range Not Satisfiable";
+            case 429: return "Too Many Requests";
+            case 500: return "Internal Server Error";
+            case 503: return "Service Unavailable";
+            default: return "";
+        }
+    }
+
+    /**
+     * Body of a response without body, closing it completes the response.
+     */
+    private class EmptyOutput extends OutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            throw new IOException("The response has no body");
+        }
+
+        @Override
+        public void close() {
+            finish(true);
+        }
+    }
+
+    /**
+     * Body used before sendResponseHeaders, writing into it is an error.
+     */
+    private class HeadersNotSentOutput extends OutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            throw new IOException("sendResponseHeaders must be called before writing the response body");
+        }
+
+        @Override
+        public void close() {
+            finish(false);
+        }
+    }
+
+    /**
+     * Body with Content-length, the connection is closed if the handler writes fewer bytes than declared.
+     */
+    private class FixedLengthOutput extends OutputStream {
+
+        private long remaining;
+
+        FixedLengthOutput(long length) {
+            this.remaining = length;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (finished) {
+                throw new IOException("The response is already complete");
+            }
+            if (length > remaining) {
+                throw new IOException("Too many bytes to write to the response body");
+            }
+            put(bytes, offset, length);
+            remaining -= length;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (!finished && out.position() > 0) {
+                flushBuffer();
+            }
+        }
+
+        @Override
+        public void close() {
+            finish(remaining == 0);
+        }
+    }
+
+    /**
+     * Body of an HTTP/1.0 response without length, the bytes are written as they are and the connection is closed
+     * after them.
+     */
+    private class UnframedOutput extends OutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (finished) {
+                throw new IOException("The response is already complete");
+            }
+            put(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (!finished && out.position() > 0) {
+                flushBuffer();
+            }
+        }
+
+        @Override
+        public void close() {
+            // the rest of the buffer is written, then the connection is closed because keepAlive is false
+            finish(true);
+        }
+    }
+
+    /**
+     * Chunked body, the written bytes are collected until the chunk is full or flushed, so small writes do not
+     * produce small chunks.
+     */
+    private class ChunkedOutput extends OutputStream {
+
+        private final byte[] chunk;
+        private int count;
+
+        ChunkedOutput(int chunkSize) {
+            this.chunk = new byte[chunkSize];
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (finished) {
+                throw new IOException("The response is already complete");
+            }
+            if (count == chunk.length) {
+                writeChunk();
+            }
+            chunk[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (finished) {
+                throw new IOException("The response is already complete");
+            }
+            while (length > 0) {
+                if (count == chunk.length) {
+                    writeChunk();
+                }
+                int copied = Math.min(length, chunk.length - count);
+                System.arraycopy(bytes, offset, chunk, count, copied);
+                count += copied;
+                offset += copied;
+                length -= copied;
+            }
+        }
+
+        private void writeChunk() throws IOException {
+            if (count == 0) {
+                return;
+            }
+            byte[] size = Integer.toHexString(count).getBytes(StandardCharsets.ISO_8859_1);
+            put(size, 0, size.length);
+            put(CRLF, 0, CRLF.length);
+            put(chunk, 0, count);
+            put(CRLF, 0, CRLF.length);
+            count = 0;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (finished) {
+                return;
+            }
+            writeChunk();
+            if (out.position() > 0) {
+                flushBuffer();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (finished) {
+                return;
+            }
+            try {
+                writeChunk();
+                put(LAST_CHUNK, 0, LAST_CHUNK.length);
+            } catch (IOException e) {
+                finish(false);
+                return;
+            }
+            finish(true);
+        }
+    }
+}
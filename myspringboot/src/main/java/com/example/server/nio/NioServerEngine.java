@@ -0,0 +1,285 @@
+package com.example.server.nio;
+
+import com.example.server.RequestDispatcher;
+import com.example.server.ServerEngine;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Selector based engine: one thread accepts the connections and reads the requests, the handler runs in the
+ * executor of the server.
+ *
+ * --> keep-alive: HTTP/1.1 connections stay open after each response, unless the client sends Connection: close.
+ * --> pipelining: requests sent before the previous response are kept in the read buffer of the connection and
+ *     handled in order, one at a time, so the responses are written in the same order.
+ * --> buffers: the read buffers and the response buffers are direct buffers taken from a pool.
+ *
+ * The selector thread never blocks: the handler writes the response from its own thread and only waits for the
+ * selector when the socket can not accept more bytes. Without executor, the handlers run in a pool with one thread
+ * per available processor.
+ */
+public class NioServerEngine implements ServerEngine, Runnable {
+
+    // connections without requests for this time are closed
+    private static final long DEFAULT_IDLE_TIMEOUT_NANOS = 60_000_000_000L;
+    private static final long SELECT_TIMEOUT_MILLIS = 1000;
+
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final HttpHandler handler;
+    private final ByteBufferPool buffers;
+    // tasks that must run in the selector thread, like changing the interest of a key
+    private final Queue<Runnable> selectorTasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger activeExchanges = new AtomicInteger();
+
+    private Executor executor;
+    private ExecutorService defaultExecutor;
+    private Thread selectorThread;
+    private volatile boolean running;
+    private volatile long idleTimeoutNanos = DEFAULT_IDLE_TIMEOUT_NANOS;
+
+    public NioServerEngine(int port, int backlog, int bufferSize, HttpHandler handler) throws IOException {
+        this.handler = handler;
+        this.buffers = new ByteBufferPool(bufferSize, 1024);
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        serverChannel.bind(new InetSocketAddress(port), backlog);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    @Override
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public void start() {
+        if (executor == null) {
+            defaultExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            executor = defaultExecutor;
+        }
+
+        running = true;
+        selectorThread = new Thread(this, "nio-selector");
+        selectorThread.start();
+    }
+
+    @Override
+    public void stopAccepting() {
+        runInSelector(() -> {
+            try {
+                serverChannel.close();
+            } catch (IOException e) {
+                System.out.println("Error while closing server channel: " + e);
+            }
+        });
+    }
+
+    @Override
+    public void stop(int delaySeconds) {
+        // stop accepting connections, then wait for the current exchanges
+        stopAccepting();
+
+        long deadline = System.nanoTime() + delaySeconds * 1_000_000_000L;
+        while (activeExchanges.get() > 0 && System.nanoTime() - deadline < 0) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        running = false;
+        if (selectorThread == null) {
+            // never started, there is no selector thread to close the channels
+            closeAll();
+        } else {
+            selector.wakeup();
+            try {
+                selectorThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (defaultExecutor != null) {
+            defaultExecutor.shutdown();
+        }
+    }
+
+    @Override
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    @Override
+    public void run() {
+        long lastIdleCheck = System.nanoTime();
+
+        while (running) {
+            try {
+                selector.select(SELECT_TIMEOUT_MILLIS);
+                runSelectorTasks();
+
+                Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+                while (selectedKeys.hasNext()) {
+                    SelectionKey key = selectedKeys.next();
+                    selectedKeys.remove();
+                    handleKey(key);
+                }
+
+                long now = System.nanoTime();
+                if (now - lastIdleCheck > SELECT_TIMEOUT_MILLIS * 1_000_000L) {
+                    closeIdleConnections(now);
+                    lastIdleCheck = now;
+                }
+            } catch (IOException e) {
+                System.out.println("Error in nio selector: " + e);
+            }
+        }
+
+        closeAll();
+    }
+
+    private void handleKey(SelectionKey key) throws IOException {
+        if (!key.isValid()) {
+            return;
+        }
+
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+
+        NioConnection connection = (NioConnection) key.attachment();
+        try {
+            if (key.isWritable()) {
+                connection.onWritable();
+            }
+            if (key.isValid() && key.isReadable()) {
+                connection.onReadable();
+            }
+        } catch (IOException e) {
+            // the client closed the connection or sent an invalid request
+            connection.close();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            try {
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                key.attach(new NioConnection(this, channel, key));
+            } catch (ClosedChannelException e) {
+                channel.close();
+            }
+        }
+    }
+
+    private void runSelectorTasks() {
+        Runnable task;
+        while ((task = selectorTasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private void closeIdleConnections(long now) {
+        for (SelectionKey key : selector.keys()) {
+            Object attachment = key.attachment();
+            if (attachment instanceof NioConnection && ((NioConnection) attachment).isIdle(now)) {
+                ((NioConnection) attachment).close();
+            }
+        }
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof NioConnection) {
+                ((NioConnection) key.attachment()).close();
+            }
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            System.out.println("Error while closing nio selector: " + e);
+        }
+    }
+
+    /**
+     * Run a task in the selector thread, it can be called from any thread.
+     */
+    void runInSelector(Runnable task) {
+        selectorTasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * Pass a complete request to the handler, it runs in the executor of the server.
+     */
+    void dispatch(NioHttpExchange exchange) {
+        activeExchanges.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                try {
+                    handler.handle(exchange);
+                } catch (Throwable e) {
+                    // same as the JDK server: the connection of a failed exchange is closed
+                    System.out.println("Error while handling request: " + e);
+                    exchange.abort();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            exchange.abort();
+        }
+    }
+
+    /**
+     * @return max size of the body of a request, -1 when the route has no limit of its own.
+     */
+    long getMaxBodyBytes(String method, String path) {
+        return handler instanceof RequestDispatcher ? ((RequestDispatcher) handler).getMaxBodyBytes(method, path) : -1;
+    }
+
+    /**
+     * Max time of a connection without requests, and max time that a response waits for the socket.
+     */
+    void setIdleTimeout(long timeout, TimeUnit unit) {
+        idleTimeoutNanos = unit.toNanos(timeout);
+    }
+
+    long getIdleTimeoutNanos() {
+        return idleTimeoutNanos;
+    }
+
+    void exchangeFinished() {
+        activeExchanges.decrementAndGet();
+    }
+
+    ByteBufferPool getBuffers() {
+        return buffers;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.trace;
+
+import com.example.metrics.EndpointMetrics;
+
+/**
+ * Phases of one sampled request: duration and allocated bytes of each phase of EndpointMetrics (bind, invoke,
+ * serialize, write), and of the whole request.
+ *
+ * The allocated bytes are the difference of the allocation counter of the thread between the end of the previous
+ * phase and the end of this one. When a phase ends in another thread than the previous one, like the invoke phase of
+ * a CompletableFuture, its bytes are unknown (-1). A phase that did not run, like the invoke phase of a cached
+ * response, keeps 0 nanos and -1 bytes.
+ *
+ * A trace is only written by the threads of its request, one after the other, and it is read after it was added to
+ * the ring buffer.
+ */
+public final class RequestTrace {
+
+    private final TraceRecorder recorder;
+    private final String method;
+    private final String path;
+    private final long startMillis;
+    private final long startNanos;
+    // ids instead of the threads, a trace in the ring buffer does not keep a finished thread (and its thread locals)
+    // reachable, the ids are never reused by the JVM
+    private final long startThread;
+    private final long startBytes;
+    private final long[] phaseNanos = new long[EndpointMetrics.TOTAL];
+    private final long[] phaseBytes = new long[EndpointMetrics.TOTAL];
+    private long totalNanos;
+    private long totalBytes = -1;
+    private boolean failed;
+    private boolean finished;
+
+    // end of the last phase
+    private long markThread;
+    private long markBytes;
+
+    RequestTrace(TraceRecorder recorder, String method, String path) {
+        this.recorder = recorder;
+        this.method = method;
+        this.path = path;
+        this.startMillis = System.currentTimeMillis();
+        this.startThread = Thread.currentThread().getId();
+        this.startBytes = TraceRecorder.allocatedBytes();
+        this.markThread = startThread;
+        this.markBytes = startBytes;
+        for (int phase = 0; phase < phaseBytes.length; phase++) {
+            phaseBytes[phase] = -1;
+        }
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * A phase of the request ended, it must be called in the thread that ran the phase. The TOTAL phase is ignored,
+     * the total is measured when the trace finishes.
+     *
+     * @param phase one of BIND, INVOKE, SERIALIZE or WRITE.
+     * @param nanos duration of the phase.
+     */
+    public void phase(int phase, long nanos) {
+        if (phase >= phaseNanos.length) {
+            return;
+        }
+
+        long bytes = TraceRecorder.allocatedBytes();
+        long thread = Thread.currentThread().getId();
+        phaseNanos[phase] = nanos;
+        if (thread == markThread && bytes >= 0 && markBytes >= 0) {
+            phaseBytes[phase] = bytes - markBytes;
+        }
+        markThread = thread;
+        markBytes = bytes;
+    }
+
+    public void failed() {
+        failed = true;
+    }
+
+    /**
+     * The response was completed, the trace is added to the ring buffer of its recorder.
+     */
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+
+        totalNanos = System.nanoTime() - startNanos;
+        long bytes = TraceRecorder.allocatedBytes();
+        if (Thread.currentThread().getId() == startThread && bytes >= 0 && startBytes >= 0) {
+            totalBytes = bytes - startBytes;
+        }
+        recorder.record(this);
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return time when the request started, in epoch millis.
+     */
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    /**
+     * @param phase one of BIND, INVOKE, SERIALIZE, WRITE or TOTAL.
+     * @return duration of the phase in nanos.
+     */
+    public long getNanos(int phase) {
+        return phase == EndpointMetrics.TOTAL ? totalNanos : phaseNanos[phase];
+    }
+
+    /**
+     * @param phase one of BIND, INVOKE, SERIALIZE, WRITE or TOTAL.
+     * @return bytes allocated by the phase, -1 when unknown.
+     */
+    public long getBytes(int phase) {
+        return phase == EndpointMetrics.TOTAL ? totalBytes : phaseBytes[phase];
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+}
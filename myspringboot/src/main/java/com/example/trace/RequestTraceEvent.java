@@ -0,0 +1,94 @@
+package com.example.trace;
+
+import com.example.metrics.EndpointMetrics;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event of a traced request, it is only created when a recording enabled it, like:
+ * java -XX:StartFlightRecording:filename=app.jfr ... and then jfr print --events com.example.RequestTrace app.jfr
+ */
+@Name("com.example.RequestTrace")
+@Label("Request Trace")
+@Category({"myspringboot", "HTTP"})
+@Description("Duration and allocated bytes of each phase of a sampled request")
+@StackTrace(false)
+final class RequestTraceEvent extends Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("Path")
+    String path;
+
+    @Label("Failed")
+    boolean failed;
+
+    @Label("Bind")
+    @Timespan(Timespan.NANOSECONDS)
+    long bindNanos;
+
+    @Label("Invoke")
+    @Timespan(Timespan.NANOSECONDS)
+    long invokeNanos;
+
+    @Label("Serialize")
+    @Timespan(Timespan.NANOSECONDS)
+    long serializeNanos;
+
+    @Label("Write")
+    @Timespan(Timespan.NANOSECONDS)
+    long writeNanos;
+
+    @Label("Total")
+    @Timespan(Timespan.NANOSECONDS)
+    long totalNanos;
+
+    @Label("Bind Allocated")
+    @DataAmount
+    long bindBytes;
+
+    @Label("Invoke Allocated")
+    @DataAmount
+    long invokeBytes;
+
+    @Label("Serialize Allocated")
+    @DataAmount
+    long serializeBytes;
+
+    @Label("Write Allocated")
+    @DataAmount
+    long writeBytes;
+
+    @Label("Total Allocated")
+    @DataAmount
+    long totalBytes;
+
+    static void emit(RequestTrace trace) {
+        RequestTraceEvent event = new RequestTraceEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+
+        event.method = trace.getMethod();
+        event.path = trace.getPath();
+        event.failed = trace.isFailed();
+        event.bindNanos = trace.getNanos(EndpointMetrics.BIND);
+        event.invokeNanos = trace.getNanos(EndpointMetrics.INVOKE);
+        event.serializeNanos = trace.getNanos(EndpointMetrics.SERIALIZE);
+        event.writeNanos = trace.getNanos(EndpointMetrics.WRITE);
+        event.totalNanos = trace.getNanos(EndpointMetrics.TOTAL);
+        event.bindBytes = trace.getBytes(EndpointMetrics.BIND);
+        event.invokeBytes = trace.getBytes(EndpointMetrics.INVOKE);
+        event.serializeBytes = trace.getBytes(EndpointMetrics.SERIALIZE);
+        event.writeBytes = trace.getBytes(EndpointMetrics.WRITE);
+        event.totalBytes = trace.getBytes(EndpointMetrics.TOTAL);
+        event.commit();
+    }
+}
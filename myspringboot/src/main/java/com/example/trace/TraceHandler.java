@@ -0,0 +1,161 @@
+package com.example.trace;
+
+import com.example.metrics.EndpointMetrics;
+import com.example.server.PathVariables;
+import com.example.server.QueryParams;
+import com.example.server.RouteHandler;
+import com.example.util.Constants;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Endpoint with the traces of the default TraceRecorder in JSON, it is registered by MyHttpServer in
+ * {@value Constants#TRACE_PATH}:
+ * --> endpoints: per route, the traced requests and the average nanos and allocated bytes of each phase.
+ * --> traces: the last traces, newest first.
+ *
+ * Query params: limit (max traces, 100 by default) and path (only the traces of one route path).
+ */
+public class TraceHandler implements RouteHandler {
+
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int PHASE_COUNT = EndpointMetrics.TOTAL + 1;
+
+    @Override
+    public void handle(HttpExchange exchange, PathVariables pathVariables) throws IOException {
+        QueryParams query = QueryParams.parse(exchange.getRequestURI().getRawQuery());
+        String pathFilter = query.get("path");
+        int limit = DEFAULT_LIMIT;
+        try {
+            if (query.get("limit") != null) {
+                limit = Math.max(0, Integer.parseInt(query.get("limit")));
+            }
+        } catch (NumberFormatException e) {
+            // default limit
+        }
+
+        TraceRecorder recorder = TraceRecorder.getDefault();
+        List<RequestTrace> traces = recorder.getBuffer().snapshot(recorder.getBuffer().getCapacity());
+
+        StringBuilder out = new StringBuilder(4096);
+        out.append("{\"sampleRate\":").append(recorder.getSampleRate())
+                .append(",\"bufferSize\":").append(recorder.getBuffer().getCapacity())
+                .append(",\"recorded\":").append(recorder.getBuffer().getRecorded())
+                .append(",\"allocationSupported\":").append(TraceRecorder.isAllocationSupported())
+                .append(",\"jfr\":").append(recorder.isJfr());
+
+        writeEndpoints(out, traces, pathFilter);
+
+        out.append(",\"traces\":[");
+        int written = 0;
+        for (RequestTrace trace : traces) {
+            if (written >= limit) {
+                break;
+            }
+            if (pathFilter != null && !pathFilter.equals(trace.getPath())) {
+                continue;
+            }
+            out.append(written++ > 0 ? "," : "").append("{\"method\":");
+            appendString(out, trace.getMethod());
+            out.append(",\"path\":");
+            appendString(out, trace.getPath());
+            out.append(",\"start\":\"").append(Instant.ofEpochMilli(trace.getStartMillis())).append('"')
+                    .append(",\"failed\":").append(trace.isFailed())
+                    .append(",\"nanos\":{");
+            for (int phase = 0; phase < PHASE_COUNT; phase++) {
+                appendField(out, phase, trace.getNanos(phase));
+            }
+            out.append("},\"bytes\":{");
+            for (int phase = 0; phase < PHASE_COUNT; phase++) {
+                appendField(out, phase, trace.getBytes(phase));
+            }
+            out.append("}}");
+        }
+        out.append("]}");
+
+        byte[] response = out.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set(Constants.CONTENT_TYPE, Constants.APP_JSON);
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(response);
+        }
+    }
+
+    /**
+     * Averages of each route, the unknown bytes (-1) are not part of the average of their phase.
+     */
+    private static void writeEndpoints(StringBuilder out, List<RequestTrace> traces, String pathFilter) {
+        // key: method + path, values: count, then sum and count of nanos and bytes of each phase
+        Map<String, long[]> endpoints = new LinkedHashMap<>();
+        Map<String, RequestTrace> firstTrace = new LinkedHashMap<>();
+        for (RequestTrace trace : traces) {
+            if (pathFilter != null && !pathFilter.equals(trace.getPath())) {
+                continue;
+            }
+            String key = trace.getMethod() + " " + trace.getPath();
+            long[] sums = endpoints.get(key);
+            if (sums == null) {
+                sums = new long[1 + PHASE_COUNT * 3];
+                endpoints.put(key, sums);
+                firstTrace.put(key, trace);
+            }
+            sums[0]++;
+            for (int phase = 0; phase < PHASE_COUNT; phase++) {
+                sums[1 + phase] += trace.getNanos(phase);
+                long bytes = trace.getBytes(phase);
+                if (bytes >= 0) {
+                    sums[1 + PHASE_COUNT + phase] += bytes;
+                    sums[1 + PHASE_COUNT * 2 + phase]++;
+                }
+            }
+        }
+
+        out.append(",\"endpoints\":[");
+        int written = 0;
+        for (Map.Entry<String, long[]> endpoint : endpoints.entrySet()) {
+            RequestTrace trace = firstTrace.get(endpoint.getKey());
+            long[] sums = endpoint.getValue();
+            out.append(written++ > 0 ? "," : "").append("{\"method\":");
+            appendString(out, trace.getMethod());
+            out.append(",\"path\":");
+            appendString(out, trace.getPath());
+            out.append(",\"traces\":").append(sums[0]).append(",\"avgNanos\":{");
+            for (int phase = 0; phase < PHASE_COUNT; phase++) {
+                appendField(out, phase, sums[1 + phase] / sums[0]);
+            }
+            out.append("},\"avgBytes\":{");
+            for (int phase = 0; phase < PHASE_COUNT; phase++) {
+                long count = sums[1 + PHASE_COUNT * 2 + phase];
+                appendField(out, phase, count > 0 ? sums[1 + PHASE_COUNT + phase] / count : -1);
+            }
+            out.append("}}");
+        }
+        out.append(']');
+    }
+
+    private static void appendField(StringBuilder out, int phase, long value) {
+        out.append(phase > 0 ? "," : "").append('"').append(EndpointMetrics.phaseName(phase)).append("\":").append(value);
+    }
+
+    private static void appendString(StringBuilder out, String value) {
+        out.append('"');
+        for (int index = 0; index < value.length(); index++) {
+            char c = value.charAt(index);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.trace;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sampling of the requests that are traced, and destination of their traces.
+ *
+ * The requests that are not sampled only pay one random number, and nothing when the sample rate is 0 (the
+ * default). The allocated bytes are read with com.sun.management.ThreadMXBean.getCurrentThreadAllocatedBytes, a
+ * read of a counter of the current thread. The default recorder is replaced at startup with the values of the
+ * @Trace annotation of the main class.
+ */
+public class TraceRecorder {
+
+    // null when the JVM can not measure the allocations of a thread
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+    private static volatile TraceRecorder defaultRecorder = new TraceRecorder(0, 1024, false);
+
+    private final double sampleRate;
+    private final boolean jfr;
+    private final TraceRingBuffer buffer;
+
+    /**
+     * @param sampleRate fraction of the requests that are traced, from 0 to 1.
+     * @param bufferSize traces kept in memory.
+     * @param jfr true to also emit each trace as a JFR event.
+     */
+    public TraceRecorder(double sampleRate, int bufferSize, boolean jfr) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new RuntimeException("Invalid trace sample rate: " + sampleRate);
+        }
+
+        this.sampleRate = sampleRate;
+        this.jfr = jfr;
+        this.buffer = new TraceRingBuffer(bufferSize);
+    }
+
+    public static TraceRecorder getDefault() {
+        return defaultRecorder;
+    }
+
+    public static void setDefault(TraceRecorder recorder) {
+        defaultRecorder = recorder;
+    }
+
+    /**
+     * @param method HTTP method of the request.
+     * @param path path of the route.
+     * @return trace of the request when it is sampled, null otherwise.
+     */
+    public RequestTrace start(String method, String path) {
+        if (sampleRate <= 0 || (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return null;
+        }
+        return new RequestTrace(this, method, path);
+    }
+
+    void record(RequestTrace trace) {
+        buffer.add(trace);
+        if (jfr) {
+            RequestTraceEvent.emit(trace);
+        }
+    }
+
+    /**
+     * @return bytes allocated by the current thread since it started, -1 when not supported.
+     */
+    static long allocatedBytes() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        if (!allocations.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        if (!allocations.isThreadAllocatedMemoryEnabled()) {
+            allocations.setThreadAllocatedMemoryEnabled(true);
+        }
+        return allocations;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public boolean isJfr() {
+        return jfr;
+    }
+
+    public TraceRingBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * @return false when the JVM can not measure the allocated bytes, then every trace has -1 bytes.
+     */
+    public static boolean isAllocationSupported() {
+        return THREADS != null;
+    }
+}
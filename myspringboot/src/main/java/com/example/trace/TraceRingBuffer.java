@@ -0,0 +1,65 @@
+package com.example.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free ring buffer of the last traces: a writer takes the next sequence with one atomic increment and stores
+ * its trace in the slot of the sequence, replacing the oldest trace. Readers never block the writers, so a snapshot
+ * taken while requests are traced can miss or repeat a trace.
+ */
+public class TraceRingBuffer {
+
+    private final AtomicReferenceArray<RequestTrace> slots;
+    private final int mask;
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * @param capacity traces kept, rounded up to a power of two so the slot is selected with a mask.
+     */
+    public TraceRingBuffer(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 20) {
+            throw new RuntimeException("Invalid trace buffer size: " + capacity);
+        }
+
+        int size = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public void add(RequestTrace trace) {
+        long next = sequence.getAndIncrement();
+        slots.set((int) (next & mask), trace);
+    }
+
+    /**
+     * @param max max traces returned.
+     * @return the last traces, newest first.
+     */
+    public List<RequestTrace> snapshot(int max) {
+        long end = sequence.get();
+        long first = Math.max(0, end - slots.length());
+        List<RequestTrace> traces = new ArrayList<>((int) Math.min(max, end - first));
+
+        for (long next = end - 1; next >= first && traces.size() < max; next--) {
+            RequestTrace trace = slots.get((int) (next & mask));
+            if (trace != null) {
+                traces.add(trace);
+            }
+        }
+        return traces;
+    }
+
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    /**
+     * @return traces added since the start, including the replaced ones.
+     */
+    public long getRecorded() {
+        return sequence.get();
+    }
+}
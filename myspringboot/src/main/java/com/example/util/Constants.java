@@ -17,10 +17,37 @@ public class Constants {
     }
 
     // http request constants
+    public final static String GET = "GET";
+    public final static String HEAD = "HEAD";
+    public final static String POST = "POST";
+    public final static String PUT = "PUT";
+    public final static String METRICS_PATH = "/metrics";
+    public final static String TRACE_PATH = "/trace";
+    public final static String BATCH_PATH = "/batch";
     public final static String CONTENT_TYPE = "Content-Type";
+    public final static String CONTENT_LENGTH = "Content-Length";
     public final static String APP_OCTET_STREAM = "application/octet-stream";
+    public final static String APP_NDJSON = "application/x-ndjson";
+    public final static String APP_JSON = "application/json";
+    public final static String APP_SMILE = "application/x-jackson-smile";
+    public final static String APP_CBOR = "application/cbor";
+    public final static String ACCEPT = "Accept";
+    public final static String VARY = "Vary";
+    public final static String ACCEPT_ENCODING = "Accept-Encoding";
+    public final static String RETRY_AFTER = "Retry-After";
+    public final static String CONTENT_ENCODING = "Content-Encoding";
+    public final static String ETAG = "ETag";
+    public final static String IF_NONE_MATCH = "If-None-Match";
+    public final static String IF_MODIFIED_SINCE = "If-Modified-Since";
+    public final static String IF_RANGE = "If-Range";
+    public final static String LAST_MODIFIED = "Last-Modified";
+    public final static String RANGE = "Range";
+    public final static String CONTENT_RANGE = "Content-Range";
+    public final static String ACCEPT_RANGES = "Accept-Ranges";
+    public final static String CACHE_CONTROL = "Cache-Control";
     public final static String REQUEST_BODY = "RequestBody";
     public final static String REQUEST_PARAM = "RequestParam";
+    public final static String PATH_VARIABLE = "PathVariable";
 
     // regular constants
     public final static String MAIN = "main";
@@ -28,5 +55,16 @@ public class Constants {
     public final static String AND = "&";
     public final static String EQUALS = "=";
     public final static String EMPTY_STRING = "";
+    public final static String TAB = "\t";
+    public final static String COMMA = ",";
+    public final static String NONE = "-";
+
+    // route index generated at compile time
+    public final static String ROUTE_INDEX = "META-INF/myspringboot/route-index";
+    public final static String INDEX_CONTROLLER = "controller";
+    public final static String INDEX_ROUTE = "route";
+
+    // JSON codecs generated at compile time
+    public final static String CODEC_INDEX = "META-INF/myspringboot/codec-index";
 
 }
@@ -0,0 +1,59 @@
+package com.example.codec;
+
+import com.example.util.Constants;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Selection of the response format with the Accept header and of the body format with the Content-Type header.
+ */
+class ContentCodecsTest {
+
+    private final ContentCodecs codecs = ContentCodecs.getDefault();
+
+    private int codec(String mediaType) {
+        return codecs.forContentType(mediaType);
+    }
+
+    @Test
+    void missingAcceptSelectsJson() {
+        assertEquals(ContentCodecs.JSON, codecs.forAccept(null));
+        assertEquals(ContentCodecs.JSON, codecs.forAccept(""));
+        assertEquals(ContentCodecs.JSON, codecs.forAccept("*/*"));
+    }
+
+    @Test
+    void highestQualityIsSelected() {
+        assertEquals(codec(Constants.APP_CBOR), codecs.forAccept(Constants.APP_CBOR));
+        assertEquals(codec(Constants.APP_SMILE),
+                codecs.forAccept("application/json;q=0.5, application/x-jackson-smile, */*;q=0.1"));
+    }
+
+    @Test
+    void refusedFormatIsNotSelectedByWildcard() {
+        assertEquals(codec(Constants.APP_SMILE), codecs.forAccept("application/json;q=0, */*"));
+        assertEquals(codec(Constants.APP_CBOR),
+                codecs.forAccept("application/json;q=0, application/x-jackson-smile;q=0, application/*"));
+    }
+
+    @Test
+    void mostSpecificRangeGivesTheQuality() {
+        assertEquals(codec(Constants.APP_SMILE), codecs.forAccept("application/*;q=0.2, application/x-jackson-smile"));
+        assertEquals(ContentCodecs.UNSUPPORTED, codecs.forAccept("application/*;q=0, */*"));
+    }
+
+    @Test
+    void onlyUnknownTypesAreUnsupported() {
+        assertEquals(ContentCodecs.UNSUPPORTED, codecs.forAccept("text/html, text/*;q=0.9"));
+        assertEquals(ContentCodecs.UNSUPPORTED, codecs.forAccept("*/*;q=0"));
+    }
+
+    @Test
+    void contentTypeSelectsTheBodyFormat() {
+        assertEquals(ContentCodecs.JSON, codecs.forContentType(null));
+        assertEquals(ContentCodecs.JSON, codecs.forContentType("application/json; charset=UTF-8"));
+        assertEquals(codec(Constants.APP_CBOR), codecs.forContentType("Application/CBOR"));
+        assertEquals(ContentCodecs.UNSUPPORTED, codecs.forContentType("text/plain"));
+    }
+}
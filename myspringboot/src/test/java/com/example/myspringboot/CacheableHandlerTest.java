@@ -0,0 +1,100 @@
+package com.example.myspringboot;
+
+import com.example.myspringannotations.Cacheable;
+import com.example.myspringannotations.GetMapping;
+import com.example.myspringannotations.PathVariable;
+import com.example.myspringannotations.RequestMapping;
+import com.example.server.RequestDispatcher;
+import com.example.server.TestExchange;
+import com.example.util.Constants;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Responses of @Cacheable methods: ETag, 304 with If-None-Match and the Vary header of both.
+ */
+public class CacheableHandlerTest {
+
+    private static final AtomicInteger invocations = new AtomicInteger();
+
+    @RequestMapping(url = "/cached")
+    public static class CachedController {
+
+        @GetMapping(path = "/{id}")
+        @Cacheable(ttl = 0)
+        public String get(@PathVariable("id") String id) {
+            invocations.incrementAndGet();
+            return "item " + id;
+        }
+    }
+
+    private final RequestDispatcher dispatcher = new RequestDispatcher();
+
+    public CacheableHandlerTest() {
+        RouteDefinition route = RouteTable.build(List.of(CachedController.class)).get(0);
+        dispatcher.addRoute(route.getRequestType(), route.getPath(),
+                MyRequestHandler.forRoute(route, InstanceProvider.forRoute(route)));
+    }
+
+    private TestExchange get(String id, String ifNoneMatch) throws IOException {
+        TestExchange exchange = new TestExchange(Constants.GET, "/cached/" + id);
+        if (ifNoneMatch != null) {
+            exchange.header(Constants.IF_NONE_MATCH, ifNoneMatch);
+        }
+        dispatcher.handle(exchange);
+        return exchange;
+    }
+
+    @Test
+    void responseIsSentWithEtagAndCached() throws IOException {
+        int before = invocations.get();
+        TestExchange first = get("a", null);
+        TestExchange second = get("a", null);
+
+        assertEquals(200, first.getResponseCode());
+        assertEquals("\"item a\"", first.getResponseText());
+        assertNotNull(first.getResponseHeaders().getFirst(Constants.ETAG));
+        assertEquals(first.getResponseHeaders().getFirst(Constants.ETAG), second.getResponseHeaders().getFirst(Constants.ETAG));
+        assertEquals(before + 1, invocations.get());
+    }
+
+    @Test
+    void matchingEtagIsAnsweredWithNotModified() throws IOException {
+        String etag = get("b", null).getResponseHeaders().getFirst(Constants.ETAG);
+
+        TestExchange exchange = get("b", etag);
+        assertEquals(304, exchange.getResponseCode());
+        assertEquals(0, exchange.getResponseBytes().length);
+        assertEquals(etag, exchange.getResponseHeaders().getFirst(Constants.ETAG));
+    }
+
+    @Test
+    void notModifiedHasTheSameVaryAsTheResponse() throws IOException {
+        TestExchange ok = get("c", null);
+        TestExchange notModified = get("c", ok.getResponseHeaders().getFirst(Constants.ETAG));
+
+        assertNotNull(ok.getResponseHeaders().getFirst(Constants.VARY));
+        assertEquals(ok.getResponseHeaders().getFirst(Constants.VARY), notModified.getResponseHeaders().getFirst(Constants.VARY));
+    }
+
+    @Test
+    void otherEtagReceivesTheBody() throws IOException {
+        TestExchange exchange = get("d", "\"other\"");
+
+        assertEquals(200, exchange.getResponseCode());
+        assertEquals("\"item d\"", exchange.getResponseText());
+    }
+
+    @Test
+    void eachParamValueHasItsOwnEtag() throws IOException {
+        assertNotEquals(get("e", null).getResponseHeaders().getFirst(Constants.ETAG),
+                get("f", null).getResponseHeaders().getFirst(Constants.ETAG));
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.myspringboot;
+
+import com.example.myspringannotations.GetMapping;
+import com.example.myspringannotations.PostMapping;
+import com.example.myspringannotations.RequestBody;
+import com.example.myspringannotations.RequestMapping;
+import com.example.server.RequestDispatcher;
+import com.example.server.TestExchange;
+import com.example.util.Constants;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Content negotiation of the handlers: 406 when no registered format is accepted, 415 for a body of a media type
+ * that is not registered.
+ */
+public class ContentNegotiationTest {
+
+    @RequestMapping(url = "/formats")
+    public static class FormatController {
+
+        @GetMapping(path = "/value")
+        public String value() {
+            return "value";
+        }
+
+        @PostMapping(path = "/echo")
+        public String echo(@RequestBody String body) {
+            return body;
+        }
+    }
+
+    private final RequestDispatcher dispatcher = new RequestDispatcher();
+
+    public ContentNegotiationTest() {
+        for (RouteDefinition route : RouteTable.build(List.of(FormatController.class)).getRoutes()) {
+            dispatcher.addRoute(route.getRequestType(), route.getPath(),
+                    MyRequestHandler.forRoute(route, InstanceProvider.forRoute(route)));
+        }
+    }
+
+    private TestExchange get(String accept) throws IOException {
+        TestExchange exchange = new TestExchange(Constants.GET, "/formats/value").header(Constants.ACCEPT, accept);
+        dispatcher.handle(exchange);
+        return exchange;
+    }
+
+    private TestExchange post(String contentType) throws IOException {
+        TestExchange exchange = new TestExchange(Constants.POST, "/formats/echo", "\"body\"".getBytes(StandardCharsets.UTF_8))
+                .header(Constants.CONTENT_TYPE, contentType);
+        dispatcher.handle(exchange);
+        return exchange;
+    }
+
+    @Test
+    void wildcardSelectsTheFirstAcceptedFormat() throws IOException {
+        TestExchange json = get("*/*");
+        assertEquals(200, json.getResponseCode());
+        assertEquals(Constants.APP_JSON, json.getResponseHeaders().getFirst(Constants.CONTENT_TYPE));
+
+        TestExchange smile = get("application/json;q=0, */*");
+        assertEquals(200, smile.getResponseCode());
+        assertEquals(Constants.APP_SMILE, smile.getResponseHeaders().getFirst(Constants.CONTENT_TYPE));
+    }
+
+    @Test
+    void unacceptableFormatIsRejected() throws IOException {
+        assertEquals(406, get("text/html").getResponseCode());
+        assertEquals(406, get("application/json;q=0, application/x-jackson-smile;q=0, application/cbor;q=0").getResponseCode());
+    }
+
+    @Test
+    void bodyOfUnknownMediaTypeIsRejected() throws IOException {
+        assertEquals(415, post("text/plain").getResponseCode());
+
+        TestExchange json = post("application/json; charset=UTF-8");
+        assertEquals(200, json.getResponseCode());
+        assertEquals("\"body\"", json.getResponseText());
+    }
+}
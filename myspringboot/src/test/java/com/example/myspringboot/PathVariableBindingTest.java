@@ -0,0 +1,78 @@
+package com.example.myspringboot;
+
+import com.example.myspringannotations.GetMapping;
+import com.example.myspringannotations.PathVariable;
+import com.example.myspringannotations.RequestMapping;
+import com.example.server.RequestDispatcher;
+import com.example.server.TestExchange;
+import com.example.util.Constants;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Path variables bound to numeric params: values out of the range of the param are answered with 400 instead of
+ * being truncated.
+ */
+public class PathVariableBindingTest {
+
+    @RequestMapping(url = "/numbers")
+    public static class NumberController {
+
+        @GetMapping(path = "/short/{value}")
+        public String getShort(@PathVariable("value") short value) {
+            return "short " + value;
+        }
+
+        @GetMapping(path = "/byte/{value}")
+        public String getByte(@PathVariable("value") Byte value) {
+            return "byte " + value;
+        }
+
+        @GetMapping(path = "/int/{value}")
+        public String getInt(@PathVariable("value") int value) {
+            return "int " + value;
+        }
+    }
+
+    private final RequestDispatcher dispatcher = new RequestDispatcher();
+
+    public PathVariableBindingTest() {
+        for (RouteDefinition route : RouteTable.build(List.of(NumberController.class)).getRoutes()) {
+            dispatcher.addRoute(route.getRequestType(), route.getPath(),
+                    MyRequestHandler.forRoute(route, InstanceProvider.forRoute(route)));
+        }
+    }
+
+    private TestExchange get(String path) throws IOException {
+        TestExchange exchange = new TestExchange(Constants.GET, path);
+        dispatcher.handle(exchange);
+        return exchange;
+    }
+
+    @Test
+    void valuesInRangeAreBound() throws IOException {
+        assertEquals("\"short -32768\"", get("/numbers/short/-32768").getResponseText());
+        assertEquals("\"short 32767\"", get("/numbers/short/32767").getResponseText());
+        assertEquals("\"byte -128\"", get("/numbers/byte/-128").getResponseText());
+        assertEquals("\"byte 127\"", get("/numbers/byte/127").getResponseText());
+    }
+
+    @Test
+    void valuesOutOfRangeAreBadRequest() throws IOException {
+        assertEquals(400, get("/numbers/short/70000").getResponseCode());
+        assertEquals(400, get("/numbers/short/-32769").getResponseCode());
+        assertEquals(400, get("/numbers/byte/128").getResponseCode());
+        assertEquals(400, get("/numbers/byte/-129").getResponseCode());
+        assertEquals(400, get("/numbers/int/3000000000").getResponseCode());
+    }
+
+    @Test
+    void valuesThatAreNotNumbersAreBadRequest() throws IOException {
+        assertEquals(400, get("/numbers/short/abc").getResponseCode());
+        assertEquals(400, get("/numbers/byte/1.5").getResponseCode());
+    }
+}
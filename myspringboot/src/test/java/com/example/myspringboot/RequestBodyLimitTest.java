@@ -0,0 +1,130 @@
+package com.example.myspringboot;
+
+import com.example.myspringannotations.PostMapping;
+import com.example.myspringannotations.RequestBody;
+import com.example.myspringannotations.RequestMapping;
+import com.example.server.RequestDispatcher;
+import com.example.server.TestExchange;
+import com.example.util.Constants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Request body limits: 413 with the Content-Length before the body is read, and 413 when a body without
+ * Content-Length reaches the limit while it is deserialized.
+ */
+public class RequestBodyLimitTest {
+
+    @RequestMapping(url = "/limits")
+    public static class LimitedController {
+
+        @PostMapping(path = "/small")
+        public String small(@RequestBody(maxBytes = 16) String body) {
+            return body;
+        }
+
+        @PostMapping(path = "/default")
+        public String byDefault(@RequestBody String body) {
+            return body;
+        }
+    }
+
+    private final long defaultMaxBytes = RequestBodyLimit.getDefaultMaxBytes();
+    private final RequestDispatcher dispatcher = new RequestDispatcher();
+
+    public RequestBodyLimitTest() {
+        for (RouteDefinition route : RouteTable.build(List.of(LimitedController.class)).getRoutes()) {
+            dispatcher.addRoute(route.getRequestType(), route.getPath(),
+                    MyRequestHandler.forRoute(route, InstanceProvider.forRoute(route)));
+        }
+    }
+
+    @AfterEach
+    void restoreDefault() {
+        RequestBodyLimit.setDefaultMaxBytes(defaultMaxBytes);
+    }
+
+    private TestExchange post(String path, String body, boolean contentLength) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        TestExchange exchange = new TestExchange(Constants.POST, path, bytes);
+        if (contentLength) {
+            exchange.header(Constants.CONTENT_LENGTH, Integer.toString(bytes.length));
+        }
+        dispatcher.handle(exchange);
+        return exchange;
+    }
+
+    @Test
+    void bodyUnderTheLimitIsAccepted() throws IOException {
+        TestExchange exchange = post("/limits/small", "\"hello\"", true);
+
+        assertEquals(200, exchange.getResponseCode());
+        assertEquals("\"hello\"", exchange.getResponseText());
+    }
+
+    @Test
+    void declaredLengthOverTheLimitIsRejected() throws IOException {
+        TestExchange exchange = post("/limits/small", "\"a body longer than the limit\"", true);
+
+        assertEquals(413, exchange.getResponseCode());
+        assertEquals("close", exchange.getResponseHeaders().getFirst("Connection"));
+    }
+
+    @Test
+    void bodyWithoutLengthIsCutAtTheLimit() throws IOException {
+        TestExchange exchange = post("/limits/small", "\"a body longer than the limit\"", false);
+
+        assertEquals(413, exchange.getResponseCode());
+        assertEquals("close", exchange.getResponseHeaders().getFirst("Connection"));
+    }
+
+    @Test
+    void paramWithoutLimitUsesTheDefault() throws IOException {
+        RequestBodyLimit.setDefaultMaxBytes(8);
+
+        assertEquals(413, post("/limits/default", "\"longer than 8\"", true).getResponseCode());
+        assertEquals(413, post("/limits/default", "\"longer than 8\"", false).getResponseCode());
+        assertEquals(200, post("/limits/default", "\"short\"", true).getResponseCode());
+    }
+
+    @Test
+    void routeLimitIsExposedToTheServer() {
+        RequestBodyLimit.setDefaultMaxBytes(4096);
+
+        assertEquals(16, dispatcher.getMaxBodyBytes(Constants.POST, "/limits/small"));
+        assertEquals(4096, dispatcher.getMaxBodyBytes(Constants.POST, "/limits/default"));
+        assertEquals(-1, dispatcher.getMaxBodyBytes(Constants.POST, "/limits/missing"));
+    }
+
+    @Test
+    void limitIsResolvedAndCompared() {
+        assertEquals(16, RequestBodyLimit.resolve(16));
+        assertEquals(RequestBodyLimit.getDefaultMaxBytes(), RequestBodyLimit.resolve(0));
+        assertTrue(RequestBodyLimit.exceeds("17", 16));
+        assertFalse(RequestBodyLimit.exceeds("16", 16));
+        assertFalse(RequestBodyLimit.exceeds(null, 16));
+        assertFalse(RequestBodyLimit.exceeds("abc", 16));
+        assertThrows(RuntimeException.class, () -> RequestBodyLimit.setDefaultMaxBytes(0));
+    }
+
+    @Test
+    void boundedStreamReadsUpToTheLimit() throws IOException {
+        BoundedInputStream exact = new BoundedInputStream(new ByteArrayInputStream(new byte[16]), 16);
+        assertEquals(16, exact.readAllBytes().length);
+        assertFalse(exact.isExceeded());
+
+        BoundedInputStream longer = new BoundedInputStream(new ByteArrayInputStream(new byte[17]), 16);
+        assertThrows(PayloadTooLargeException.class, longer::readAllBytes);
+        assertTrue(longer.isExceeded());
+    }
+}
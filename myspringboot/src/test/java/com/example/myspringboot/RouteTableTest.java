@@ -0,0 +1,85 @@
+package com.example.myspringboot;
+
+import com.example.codec.ContentCodecs;
+import com.example.enums.ClassScope;
+import com.example.myspringannotations.GetMapping;
+import com.example.myspringannotations.PostMapping;
+import com.example.myspringannotations.RequestMapping;
+import com.example.myspringannotations.Scope;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Route model of the route table: one route per mapping annotation, scope of the controller and response codec.
+ */
+public class RouteTableTest {
+
+    @RequestMapping(url = "/pooled")
+    @Scope(value = ClassScope.POOLED, max = 3)
+    public static class PooledController {
+
+        @GetMapping(path = "/both")
+        @PostMapping(path = "/both")
+        public String both() {
+            return "both";
+        }
+
+        @GetMapping(path = "/future")
+        public CompletableFuture<Integer> future() {
+            return CompletableFuture.completedFuture(1);
+        }
+
+        @PostMapping(path = "/none")
+        public void none() {
+        }
+    }
+
+    private final RouteTable table = RouteTable.build(List.of(PooledController.class));
+
+    private RouteDefinition route(String requestType, String path) {
+        for (RouteDefinition route : table.getRoutes()) {
+            if (route.getRequestType().equals(requestType) && route.getPath().equals(path)) {
+                return route;
+            }
+        }
+        throw new AssertionError("Route not found: " + requestType + " " + path);
+    }
+
+    @Test
+    void eachMappingAnnotationIsARoute() {
+        assertEquals(4, table.size());
+        assertEquals("both", route("GET", "/pooled/both").getMethod().getName());
+        assertEquals("both", route("POST", "/pooled/both").getMethod().getName());
+    }
+
+    @Test
+    void scopeOfTheControllerIsInTheRoute() {
+        RouteDefinition route = route("GET", "/pooled/both");
+
+        assertEquals(ClassScope.POOLED, route.getScope());
+        assertEquals(3, route.getPoolSize());
+        assertEquals(ClassScope.POOLED, InstanceProvider.forRoute(route).getScope());
+        assertTrue(table.report().contains("scope=pooled(3)"));
+    }
+
+    @Test
+    void responseCodecHasTheValueType() {
+        assertEquals(String.class, route("GET", "/pooled/both").getResponseCodec().getValueType());
+        assertEquals(Integer.class, route("GET", "/pooled/future").getResponseCodec().getValueType());
+        assertFalse(route("POST", "/pooled/none").getResponseCodec().hasResponse());
+    }
+
+    @Test
+    void writersAreResolvedOncePerRoute() {
+        ResponseCodec codec = route("GET", "/pooled/both").getResponseCodec();
+
+        assertSame(codec.getWriters(ContentCodecs.getDefault()), codec.getWriters(ContentCodecs.getDefault()));
+    }
+}
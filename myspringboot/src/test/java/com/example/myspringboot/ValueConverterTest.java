@@ -0,0 +1,47 @@
+package com.example.myspringboot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Conversion of the query params into the types of the controller params.
+ */
+class ValueConverterTest {
+
+    private static Object convert(Class<?> type, String value) throws Exception {
+        return ValueConverter.forType(type, type).convert(value);
+    }
+
+    @Test
+    void scalarsAreConvertedDirectly() throws Exception {
+        assertEquals(42, convert(int.class, "42"));
+        assertEquals(42L, convert(Long.class, "42"));
+        assertEquals(1.5d, convert(double.class, "1.5"));
+        assertEquals('x', convert(char.class, "x"));
+        assertEquals("text", convert(String.class, "text"));
+    }
+
+    @Test
+    void booleanOnlyAcceptsTrueOrFalse() throws Exception {
+        assertEquals(true, convert(boolean.class, "true"));
+        assertEquals(true, convert(Boolean.class, "TRUE"));
+        assertEquals(false, convert(boolean.class, "False"));
+        assertThrows(IllegalArgumentException.class, () -> convert(boolean.class, "yes"));
+        assertThrows(IllegalArgumentException.class, () -> convert(boolean.class, "1"));
+    }
+
+    @Test
+    void invalidNumbersAreRejected() {
+        assertThrows(NumberFormatException.class, () -> convert(int.class, "abc"));
+        assertThrows(IllegalArgumentException.class, () -> convert(char.class, "xy"));
+    }
+
+    @Test
+    void complexTypesAreReadAsJson() throws Exception {
+        assertEquals(List.of(1, 2, 3), convert(List.class, "[1,2,3]"));
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.resources;
+
+import com.example.server.PathVariables;
+import com.example.server.TestExchange;
+import com.example.util.Constants;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Static files: validators (ETag, Last-Modified and 304), byte ranges (206 and 416) and the files sent from disk.
+ */
+class StaticResourceHandlerTest {
+
+    @TempDir
+    Path dir;
+
+    private byte[] write(String name, int size) throws IOException {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        Files.write(dir.resolve(name), content);
+        return content;
+    }
+
+    private TestExchange get(StaticResourceHandler handler, String path, String... headers) throws IOException {
+        TestExchange exchange = new TestExchange(Constants.GET, path);
+        for (int index = 0; index < headers.length; index += 2) {
+            exchange.header(headers[index], headers[index + 1]);
+        }
+        handler.handle(exchange, PathVariables.EMPTY);
+        return exchange;
+    }
+
+    private StaticResourceHandler handler(int cacheFileSize) {
+        return new StaticResourceHandler("/assets", dir, 60, cacheFileSize, 1024 * 1024);
+    }
+
+    @Test
+    void rangeHeaderIsParsed() {
+        assertArrayEquals(new long[]{0, 99}, StaticResourceHandler.range("bytes=0-99", null, "\"e\"", 1000));
+        assertArrayEquals(new long[]{900, 999}, StaticResourceHandler.range("bytes=900-", null, "\"e\"", 1000));
+        assertArrayEquals(new long[]{900, 999}, StaticResourceHandler.range("bytes=-100", null, "\"e\"", 1000));
+        assertArrayEquals(new long[]{0, 999}, StaticResourceHandler.range("bytes=-5000", null, "\"e\"", 1000));
+        assertArrayEquals(new long[]{500, 999}, StaticResourceHandler.range("bytes=500-5000", null, "\"e\"", 1000));
+    }
+
+    @Test
+    void unsupportedRangesSendTheWholeFile() {
+        assertNull(StaticResourceHandler.range(null, null, "\"e\"", 1000));
+        assertNull(StaticResourceHandler.range("items=0-1", null, "\"e\"", 1000));
+        assertNull(StaticResourceHandler.range("bytes=0-1,5-6", null, "\"e\"", 1000));
+        assertNull(StaticResourceHandler.range("bytes=9-1", null, "\"e\"", 1000));
+        assertNull(StaticResourceHandler.range("bytes=a-b", null, "\"e\"", 1000));
+        // If-Range of another version of the file
+        assertNull(StaticResourceHandler.range("bytes=0-1", "\"old\"", "\"e\"", 1000));
+        assertNotNull(StaticResourceHandler.range("bytes=0-1", "\"e\"", "\"e\"", 1000));
+    }
+
+    @Test
+    void rangeAfterTheEndIsNotSatisfiable() {
+        assertEquals(0, StaticResourceHandler.range("bytes=1000-", null, "\"e\"", 1000).length);
+        assertEquals(0, StaticResourceHandler.range("bytes=-0", null, "\"e\"", 1000).length);
+    }
+
+    @Test
+    void fileIsSentWithValidators() throws IOException {
+        byte[] content = write("app.js", 300);
+
+        TestExchange exchange = get(handler(64 * 1024), "/assets/app.js");
+        assertEquals(200, exchange.getResponseCode());
+        assertArrayEquals(content, exchange.getResponseBytes());
+        assertNotNull(exchange.getResponseHeaders().getFirst(Constants.ETAG));
+        assertNotNull(exchange.getResponseHeaders().getFirst(Constants.LAST_MODIFIED));
+        assertEquals("bytes", exchange.getResponseHeaders().getFirst(Constants.ACCEPT_RANGES));
+        assertEquals("max-age=60", exchange.getResponseHeaders().getFirst(Constants.CACHE_CONTROL));
+    }
+
+    @Test
+    void matchingEtagIsNotModified() throws IOException {
+        write("app.js", 300);
+        StaticResourceHandler handler = handler(64 * 1024);
+        String etag = get(handler, "/assets/app.js").getResponseHeaders().getFirst(Constants.ETAG);
+
+        TestExchange exchange = get(handler, "/assets/app.js", Constants.IF_NONE_MATCH, "\"x\", " + etag);
+        assertEquals(304, exchange.getResponseCode());
+        assertEquals(0, exchange.getResponseBytes().length);
+        assertEquals(200, get(handler, "/assets/app.js", Constants.IF_NONE_MATCH, "\"x\"").getResponseCode());
+    }
+
+    @Test
+    void ifModifiedSinceIsOnlyUsedWithoutIfNoneMatch() throws IOException {
+        write("app.js", 300);
+        StaticResourceHandler handler = handler(64 * 1024);
+        String lastModified = get(handler, "/assets/app.js").getResponseHeaders().getFirst(Constants.LAST_MODIFIED);
+
+        assertEquals(304, get(handler, "/assets/app.js", Constants.IF_MODIFIED_SINCE, lastModified).getResponseCode());
+        assertEquals(200, get(handler, "/assets/app.js", Constants.IF_MODIFIED_SINCE, lastModified,
+                Constants.IF_NONE_MATCH, "\"x\"").getResponseCode());
+    }
+
+    @Test
+    void rangeOfACachedFileIsPartialContent() throws IOException {
+        byte[] content = write("data.bin", 1000);
+
+        TestExchange exchange = get(handler(64 * 1024), "/assets/data.bin", Constants.RANGE, "bytes=100-199");
+        assertEquals(206, exchange.getResponseCode());
+        assertEquals("bytes 100-199/1000", exchange.getResponseHeaders().getFirst(Constants.CONTENT_RANGE));
+        assertArrayEquals(Arrays.copyOfRange(content, 100, 200), exchange.getResponseBytes());
+    }
+
+    @Test
+    void rangeOfAFileFromDiskIsPartialContent() throws IOException {
+        // bigger than the read buffer, so the range is copied in several reads
+        byte[] content = write("big.bin", 200 * 1024);
+
+        TestExchange exchange = get(handler(16), "/assets/big.bin", Constants.RANGE, "bytes=1000-");
+        assertEquals(206, exchange.getResponseCode());
+        assertEquals(content.length - 1000, exchange.getResponseLength());
+        assertArrayEquals(Arrays.copyOfRange(content, 1000, content.length), exchange.getResponseBytes());
+
+        assertArrayEquals(content, get(handler(16), "/assets/big.bin").getResponseBytes());
+    }
+
+    @Test
+    void unsatisfiableRangeIsAnswered416() throws IOException {
+        write("data.bin", 1000);
+
+        TestExchange exchange = get(handler(64 * 1024), "/assets/data.bin", Constants.RANGE, "bytes=5000-");
+        assertEquals(416, exchange.getResponseCode());
+        assertEquals("bytes */1000", exchange.getResponseHeaders().getFirst(Constants.CONTENT_RANGE));
+    }
+
+    @Test
+    void pathsOutsideOfTheDirectoryAreNotFound() throws IOException {
+        write("app.js", 10);
+        StaticResourceHandler handler = handler(64 * 1024);
+
+        assertEquals(404, get(handler, "/assets/../secret.txt").getResponseCode());
+        assertEquals(404, get(handler, "/assets/missing.js").getResponseCode());
+        assertEquals(404, get(handler, "/assets").getResponseCode());
+    }
+
+    @Test
+    void otherMethodsAreNotAllowed() throws IOException {
+        write("app.js", 10);
+        TestExchange exchange = new TestExchange(Constants.POST, "/assets/app.js");
+        handler(64 * 1024).handle(exchange, PathVariables.EMPTY);
+
+        assertEquals(405, exchange.getResponseCode());
+        assertEquals("GET, HEAD", exchange.getResponseHeaders().getFirst("Allow"));
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.server;
+
+import com.example.myspringboot.RequestBodyLimit;
+import com.example.util.Constants;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Batch endpoint: results of the calls in order, nested batches and the limits of the batch request.
+ */
+class BatchHandlerTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final long defaultMaxBytes = RequestBodyLimit.getDefaultMaxBytes();
+    private final RequestDispatcher dispatcher = new RequestDispatcher();
+
+    BatchHandlerTest() {
+        dispatcher.addRoute(Constants.GET, "/v1/users/{id}", (exchange, pathVariables) -> {
+            byte[] body = ("{\"id\":" + pathVariables.getString(0) + "}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set(Constants.CONTENT_TYPE, Constants.APP_JSON);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        dispatcher.addRoute(Constants.POST, Constants.BATCH_PATH, new BatchHandler(dispatcher));
+    }
+
+    @AfterEach
+    void restoreDefault() {
+        RequestBodyLimit.setDefaultMaxBytes(defaultMaxBytes);
+    }
+
+    private TestExchange batch(String body) throws IOException {
+        TestExchange exchange = new TestExchange(Constants.POST, Constants.BATCH_PATH, body.getBytes(StandardCharsets.UTF_8));
+        dispatcher.handle(exchange);
+        return exchange;
+    }
+
+    private JsonNode results(TestExchange exchange) throws IOException {
+        assertEquals(200, exchange.getResponseCode());
+        return MAPPER.readTree(exchange.getResponseBytes());
+    }
+
+    @Test
+    void callsAreAnsweredInOrder() throws IOException {
+        JsonNode results = results(batch("[{\"method\":\"GET\",\"path\":\"/v1/users/1\"},"
+                + "{\"method\":\"GET\",\"path\":\"/v1/missing\"},"
+                + "{\"method\":\"POST\",\"path\":\"/v1/users/2\"},"
+                + "{\"method\":\"GET\",\"path\":\"/v1/users/3\"}]"));
+
+        assertEquals(4, results.size());
+        assertEquals(200, results.get(0).get("status").asInt());
+        assertEquals(1, results.get(0).get("body").get("id").asInt());
+        assertEquals(404, results.get(1).get("status").asInt());
+        assertEquals(405, results.get(2).get("status").asInt());
+        assertEquals(3, results.get(3).get("body").get("id").asInt());
+    }
+
+    @Test
+    void callWithoutMethodOrPathFails() throws IOException {
+        JsonNode results = results(batch("[{\"path\":\"/v1/users/1\"},{\"method\":\"GET\"},null]"));
+
+        assertEquals(400, results.get(0).get("status").asInt());
+        assertEquals(400, results.get(1).get("status").asInt());
+        assertEquals(400, results.get(2).get("status").asInt());
+    }
+
+    @Test
+    void nestedBatchIsRejected() throws IOException {
+        JsonNode results = results(batch("[{\"method\":\"POST\",\"path\":\"/batch\",\"body\":[]},"
+                + "{\"method\":\"POST\",\"path\":\"/batch/\",\"body\":[]},"
+                + "{\"method\":\"POST\",\"path\":\"/batch//\",\"body\":[]},"
+                + "{\"method\":\"GET\",\"path\":\"/v1/users/1\"}]"));
+
+        assertEquals(400, results.get(0).get("status").asInt());
+        assertEquals(400, results.get(1).get("status").asInt());
+        assertEquals(400, results.get(2).get("status").asInt());
+        assertEquals(200, results.get(3).get("status").asInt());
+    }
+
+    @Test
+    void parallelCallsAreAnsweredInOrder() throws IOException {
+        StringBuilder body = new StringBuilder("[");
+        for (int index = 0; index < 50; index++) {
+            body.append(index > 0 ? "," : "").append("{\"method\":\"GET\",\"path\":\"/v1/users/").append(index).append("\"}");
+        }
+        TestExchange exchange = new TestExchange(Constants.POST, Constants.BATCH_PATH + "?parallel=true",
+                body.append(']').toString().getBytes(StandardCharsets.UTF_8));
+        dispatcher.handle(exchange);
+
+        JsonNode results = results(exchange);
+        for (int index = 0; index < 50; index++) {
+            assertEquals(index, results.get(index).get("body").get("id").asInt());
+        }
+    }
+
+    @Test
+    void tooManyCallsAreRejected() throws IOException {
+        StringBuilder body = new StringBuilder("[");
+        for (int index = 0; index <= BatchHandler.MAX_CALLS; index++) {
+            body.append(index > 0 ? "," : "").append("{\"method\":\"GET\",\"path\":\"/v1/users/1\"}");
+        }
+
+        assertEquals(400, batch(body.append(']').toString()).getResponseCode());
+    }
+
+    @Test
+    void invalidBodyIsRejected() throws IOException {
+        assertEquals(400, batch("{\"method\":\"GET\"}").getResponseCode());
+        assertEquals(400, batch("[{").getResponseCode());
+    }
+
+    @Test
+    void bodyOverTheLimitIsRejected() throws IOException {
+        RequestBodyLimit.setDefaultMaxBytes(64);
+        TestExchange exchange = batch("[{\"method\":\"GET\",\"path\":\"/v1/users/1\"},{\"method\":\"GET\",\"path\":\"/v1/users/2\"}]");
+
+        assertEquals(413, exchange.getResponseCode());
+        assertEquals("close", exchange.getResponseHeaders().getFirst("Connection"));
+        assertEquals(64, dispatcher.getMaxBodyBytes(Constants.POST, Constants.BATCH_PATH));
+    }
+}
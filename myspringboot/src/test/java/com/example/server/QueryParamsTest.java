@@ -0,0 +1,76 @@
+package com.example.server;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Parsing and decoding of the query string.
+ */
+class QueryParamsTest {
+
+    @Test
+    void emptyQueryHasNoParams() {
+        assertSame(QueryParams.EMPTY, QueryParams.parse(null));
+        assertSame(QueryParams.EMPTY, QueryParams.parse(""));
+    }
+
+    @Test
+    void namesAndValuesAreSplitInOrder() {
+        QueryParams params = QueryParams.parse("a=1&b=2&c=3");
+
+        assertEquals(3, params.size());
+        assertEquals("b", params.getName(1));
+        assertEquals("2", params.getValue(1));
+        assertEquals("3", params.get("c"));
+        assertNull(params.get("d"));
+    }
+
+    @Test
+    void percentEscapesAndPlusAreDecoded() {
+        QueryParams params = QueryParams.parse("name=John+Smith&city=S%C3%A3o%20Paulo&q=a%26b%3Dc");
+
+        assertEquals("John Smith", params.get("name"));
+        assertEquals("S\u00e3o Paulo", params.get("city"));
+        assertEquals("a&b=c", params.get("q"));
+    }
+
+    @Test
+    void namesAreDecodedToo() {
+        assertEquals("1", QueryParams.parse("first%20name=1").get("first name"));
+    }
+
+    @Test
+    void invalidEscapesAreKeptAsText() {
+        assertEquals("100%", QueryParams.parse("p=100%").get("p"));
+        assertEquals("%zz", QueryParams.parse("p=%zz").get("p"));
+    }
+
+    @Test
+    void paramWithoutValueIsEmpty() {
+        QueryParams params = QueryParams.parse("flag&x=");
+
+        assertEquals("", params.get("flag"));
+        assertEquals("", params.get("x"));
+    }
+
+    @Test
+    void emptyPairsAreSkipped() {
+        QueryParams params = QueryParams.parse("&&a=1&&");
+
+        assertEquals(1, params.size());
+        assertEquals("1", params.get("a"));
+    }
+
+    @Test
+    void firstValueOfRepeatedParamIsReturned() {
+        assertEquals("1", QueryParams.parse("id=1&id=2").get("id"));
+    }
+
+    @Test
+    void equalsInsideValueIsKept() {
+        assertEquals("a=b", QueryParams.parse("expr=a=b").get("expr"));
+    }
+}
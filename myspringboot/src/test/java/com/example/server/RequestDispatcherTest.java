@@ -0,0 +1,98 @@
+package com.example.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Routing of the requests with the trie: matched routes, path variables, 404 and 405.
+ */
+class RequestDispatcherTest {
+
+    private final RequestDispatcher dispatcher = new RequestDispatcher();
+
+    private static RouteHandler answer(String text) {
+        return (exchange, pathVariables) -> {
+            StringBuilder response = new StringBuilder(text);
+            for (int index = 0; index < pathVariables.size(); index++) {
+                response.append(' ').append(pathVariables.getString(index));
+            }
+            byte[] body = response.toString().getBytes();
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        };
+    }
+
+    private TestExchange dispatch(String method, String path) throws IOException {
+        TestExchange exchange = new TestExchange(method, path);
+        dispatcher.handle(exchange);
+        return exchange;
+    }
+
+    @Test
+    void literalRouteHasPriorityOverVariable() throws IOException {
+        dispatcher.addRoute("GET", "/v1/users/{id}", answer("user"));
+        dispatcher.addRoute("GET", "/v1/users/get", answer("get"));
+
+        assertEquals("get", dispatch("GET", "/v1/users/get").getResponseText());
+        assertEquals("user 15", dispatch("GET", "/v1/users/15").getResponseText());
+    }
+
+    @Test
+    void pathVariablesAreInPathOrder() throws IOException {
+        dispatcher.addRoute("GET", "/v1/users/{user}/orders/{order}", answer("order"));
+
+        assertEquals("order 7 42", dispatch("GET", "/v1/users/7/orders/42").getResponseText());
+    }
+
+    @Test
+    void emptySegmentsAreIgnored() throws IOException {
+        dispatcher.addRoute("GET", "/v1/users", answer("users"));
+
+        assertEquals("users", dispatch("GET", "/v1//users/").getResponseText());
+    }
+
+    @Test
+    void unknownPathIsNotFound() throws IOException {
+        dispatcher.addRoute("GET", "/v1/users/{id}", answer("user"));
+
+        TestExchange exchange = dispatch("GET", "/v1/orders/1");
+        assertEquals(404, exchange.getResponseCode());
+        assertNull(exchange.getResponseHeaders().getFirst("Allow"));
+        assertEquals(404, dispatch("GET", "/v1/users/1/orders").getResponseCode());
+    }
+
+    @Test
+    void unsupportedMethodIsNotAllowedWithAllowHeader() throws IOException {
+        dispatcher.addRoute("GET", "/v1/users/{id}", answer("get"));
+        dispatcher.addRoute("PUT", "/v1/users/{id}", answer("put"));
+
+        TestExchange exchange = dispatch("POST", "/v1/users/1");
+        assertEquals(405, exchange.getResponseCode());
+        assertEquals("GET, PUT", exchange.getResponseHeaders().getFirst("Allow"));
+    }
+
+    @Test
+    void prefixRouteOnlyAnswersWhenTheTrieMisses() throws IOException {
+        dispatcher.addRoute("GET", "/assets/config", answer("config"));
+        dispatcher.addPrefixRoute("/assets", answer("file"));
+
+        assertEquals("config", dispatch("GET", "/assets/config").getResponseText());
+        assertEquals("file", dispatch("GET", "/assets/app.js").getResponseText());
+        assertEquals(404, dispatch("GET", "/assetsX/app.js").getResponseCode());
+    }
+
+    @Test
+    void drainingServerAnswersUnavailable() throws IOException {
+        dispatcher.addRoute("GET", "/v1/users", answer("users"));
+        dispatcher.setDraining(true);
+
+        TestExchange exchange = dispatch("GET", "/v1/users");
+        assertEquals(503, exchange.getResponseCode());
+        assertEquals("close", exchange.getResponseHeaders().getFirst("Connection"));
+    }
+}
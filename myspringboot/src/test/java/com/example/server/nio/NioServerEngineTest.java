@@ -0,0 +1,306 @@
+package com.example.server.nio;
+
+import com.example.server.RequestDispatcher;
+import com.example.server.RouteHandler;
+import com.example.server.PathVariables;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The nio engine over real sockets: keep-alive and pipelining, 100 Continue, the framing of the responses, the
+ * rejected request heads and the idle timeout.
+ */
+class NioServerEngineTest {
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private final NioServerEngine engine;
+
+    NioServerEngineTest() throws IOException {
+        RequestDispatcher dispatcher = new RequestDispatcher();
+        dispatcher.addRoute("GET", "/hello", (exchange, pathVariables) -> send(exchange, "hello"));
+        dispatcher.addRoute("GET", "/slow", (exchange, pathVariables) -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            send(exchange, "slow");
+        });
+        dispatcher.addRoute("GET", "/chunked", (exchange, pathVariables) -> {
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream body = exchange.getResponseBody();
+            body.write("one,".getBytes(StandardCharsets.UTF_8));
+            body.flush();
+            body.write("two".getBytes(StandardCharsets.UTF_8));
+            exchange.close();
+        });
+        dispatcher.addRoute("POST", "/echo", new RouteHandler() {
+            @Override
+            public void handle(HttpExchange exchange, PathVariables pathVariables) throws IOException {
+                send(exchange, new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            }
+
+            @Override
+            public long getMaxBodyBytes() {
+                return 64;
+            }
+        });
+
+        engine = new NioServerEngine(0, 0, BUFFER_SIZE, dispatcher);
+        engine.start();
+    }
+
+    @AfterEach
+    void stop() {
+        engine.stop(0);
+    }
+
+    private static void send(HttpExchange exchange, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket("localhost", engine.getPort());
+        socket.setSoTimeout(5000);
+        return socket;
+    }
+
+    private static void write(Socket socket, String request) throws IOException {
+        socket.getOutputStream().write(request.getBytes(StandardCharsets.ISO_8859_1));
+        socket.getOutputStream().flush();
+    }
+
+    @Test
+    void connectionIsKeptAliveBetweenRequests() throws IOException {
+        try (Socket socket = connect()) {
+            write(socket, "GET /hello HTTP/1.1\r\nHost: localhost\r\n\r\n");
+            assertEquals("hello", Response.read(socket.getInputStream()).body);
+
+            write(socket, "GET /hello HTTP/1.1\r\nHost: localhost\r\n\r\n");
+            Response second = Response.read(socket.getInputStream());
+            assertEquals(200, second.status);
+            assertNull(second.headers.getFirst("Connection"));
+        }
+    }
+
+    @Test
+    void pipelinedRequestsAreAnsweredInOrder() throws IOException {
+        try (Socket socket = connect()) {
+            write(socket, "GET /slow HTTP/1.1\r\n\r\nGET /hello HTTP/1.1\r\n\r\nPOST /echo HTTP/1.1\r\nContent-Length: 4\r\n\r\nlast");
+
+            assertEquals("slow", Response.read(socket.getInputStream()).body);
+            assertEquals("hello", Response.read(socket.getInputStream()).body);
+            assertEquals("last", Response.read(socket.getInputStream()).body);
+        }
+    }
+
+    @Test
+    void connectionCloseIsHonoured() throws IOException {
+        try (Socket socket = connect()) {
+            write(socket, "GET /hello HTTP/1.1\r\nConnection: close\r\n\r\n");
+            Response response = Response.read(socket.getInputStream());
+
+            assertEquals("close", response.headers.getFirst("Connection"));
+            assertEquals(-1, socket.getInputStream().read());
+        }
+    }
+
+    @Test
+    void continueIsSentBeforeTheBody() throws IOException {
+        try (Socket socket = connect()) {
+            write(socket, "POST /echo HTTP/1.1\r\nContent-Length: 5\r\nExpect: 100-continue\r\n\r\n");
+            assertEquals(100, Response.read(socket.getInputStream()).status);
+
+            write(socket, "hello");
+            assertEquals("hello", Response.read(socket.getInputStream()).body);
+        }
+    }
+
+    @Test
+    void bodyOverTheRouteLimitIsRejectedBeforeContinue() throws IOException {
+        try (Socket socket = connect()) {
+            write(socket, "POST /echo HTTP/1.1\r\nContent-Length: 1000\r\nExpect: 100-continue\r\n\r\n");
+            Response response = Response.read(socket.getInputStream());
+
+            assertEquals(413, response.status);
+            assertEquals("close", response.headers.getFirst("Connection"));
+            assertEquals(-1, socket.getInputStream().read());
+        }
+    }
+
+    @Test
+    void bodyIsReadAcrossManyPackets() throws IOException {
+        try (Socket socket = connect()) {
+            write(socket, "POST /echo HTTP/1.1\r\nContent-Length: 10\r\n\r\nabc");
+            write(socket, "defghij");
+
+            assertEquals("abcdefghij", Response.read(socket.getInputStream()).body);
+        }
+    }
+
+    @Test
+    void fixedLengthResponseHasContentLength() throws IOException {
+        try (Socket socket = connect()) {
+            write(socket, "GET /hello HTTP/1.1\r\n\r\n");
+            Response response = Response.read(socket.getInputStream());
+
+            assertEquals("5", response.headers.getFirst("Content-length"));
+            assertNull(response.headers.getFirst("Transfer-encoding"));
+        }
+    }
+
+    @Test
+    void responseWithoutLengthIsChunked() throws IOException {
+        try (Socket socket = connect()) {
+            write(socket, "GET /chunked HTTP/1.1\r\n\r\n");
+            Response response = Response.read(socket.getInputStream());
+
+            assertEquals("chunked", response.headers.getFirst("Transfer-encoding"));
+            assertEquals("one,two", response.body);
+
+            // the last chunk ended the response, the connection is reused
+            write(socket, "GET /hello HTTP/1.1\r\n\r\n");
+            assertEquals("hello", Response.read(socket.getInputStream()).body);
+        }
+    }
+
+    @Test
+    void responseWithoutLengthIsNotChunkedForHttp10() throws IOException {
+        try (Socket socket = connect()) {
+            write(socket, "GET /chunked HTTP/1.0\r\n\r\n");
+            Response response = Response.read(socket.getInputStream());
+
+            assertNull(response.headers.getFirst("Transfer-encoding"));
+            assertNull(response.headers.getFirst("Content-length"));
+            assertEquals("close", response.headers.getFirst("Connection"));
+            assertEquals("one,two", response.body);
+        }
+    }
+
+    @Test
+    void invalidRequestLineIsBadRequest() throws IOException {
+        try (Socket socket = connect()) {
+            write(socket, "NOT A VALID REQUEST\r\n\r\n");
+
+            assertEquals(400, Response.read(socket.getInputStream()).status);
+            assertEquals(-1, socket.getInputStream().read());
+        }
+    }
+
+    @Test
+    void invalidHeaderIsBadRequest() throws IOException {
+        try (Socket socket = connect()) {
+            write(socket, "GET /hello HTTP/1.1\r\nno colon\r\n\r\n");
+
+            assertEquals(400, Response.read(socket.getInputStream()).status);
+        }
+    }
+
+    @Test
+    void headLongerThanTheBufferIsRejected() throws IOException {
+        try (Socket socket = connect()) {
+            write(socket, "GET /hello HTTP/1.1\r\nX-Long: " + "a".repeat(BUFFER_SIZE) + "\r\n\r\n");
+
+            assertEquals(431, Response.read(socket.getInputStream()).status);
+        }
+    }
+
+    @Test
+    void chunkedRequestBodyIsNotImplemented() throws IOException {
+        try (Socket socket = connect()) {
+            write(socket, "POST /echo HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n5\r\nhello\r\n0\r\n\r\n");
+
+            assertEquals(501, Response.read(socket.getInputStream()).status);
+        }
+    }
+
+    @Test
+    void idleConnectionIsClosed() throws IOException {
+        engine.setIdleTimeout(100, TimeUnit.MILLISECONDS);
+        try (Socket socket = connect()) {
+            write(socket, "GET /hello HTTP/1.1\r\n\r\n");
+            assertEquals("hello", Response.read(socket.getInputStream()).body);
+
+            // the idle connections are checked once per second
+            long start = System.nanoTime();
+            assertEquals(-1, socket.getInputStream().read());
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(4));
+        }
+    }
+
+    @Test
+    void engineThatWasNotStartedCanBeStopped() throws IOException {
+        new NioServerEngine(0, 0, BUFFER_SIZE, new RequestDispatcher()).stop(0);
+    }
+
+    /**
+     * Response read from the socket, the body is decoded with its framing: Content-length, chunked or the end of
+     * the connection.
+     */
+    private static final class Response {
+
+        private int status;
+        private final Headers headers = new Headers();
+        private String body;
+
+        static Response read(InputStream in) throws IOException {
+            Response response = new Response();
+            String statusLine = readLine(in);
+            response.status = Integer.parseInt(statusLine.split(" ")[1]);
+            for (String line = readLine(in); !line.isEmpty(); line = readLine(in)) {
+                int colon = line.indexOf(':');
+                response.headers.add(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+            }
+
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            String length = response.headers.getFirst("Content-length");
+            if (response.status == 100) {
+                return response;
+            } else if (length != null) {
+                body.write(in.readNBytes(Integer.parseInt(length)));
+            } else if ("chunked".equals(response.headers.getFirst("Transfer-encoding"))) {
+                for (int size = Integer.parseInt(readLine(in), 16); size > 0; size = Integer.parseInt(readLine(in), 16)) {
+                    body.write(in.readNBytes(size));
+                    readLine(in);
+                }
+                readLine(in);
+            } else {
+                body.write(in.readAllBytes());
+            }
+            response.body = body.toString(StandardCharsets.UTF_8);
+            return response;
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            StringBuilder line = new StringBuilder();
+            int b;
+            while ((b = in.read()) != '\n') {
+                if (b < 0) {
+                    throw new IOException("Connection closed in the middle of a line");
+                }
+                if (b != '\r') {
+                    line.append((char) b);
+                }
+            }
+            return line.toString();
+        }
+    }
+}
@@ -2,12 +2,24 @@ package com.example.demo;
 
 import com.example.demo.annotations.MyCustomAnnotation;
 import com.example.demo.controller.TestController;
+import com.example.enums.EngineType;
+import com.example.enums.ExecutorMode;
+import com.example.myspringannotations.Compression;
+import com.example.myspringannotations.Engine;
+import com.example.myspringannotations.Executor;
 import com.example.myspringannotations.Port;
 import com.example.myspringannotations.SpringBootApplication;
+import com.example.myspringannotations.StaticResources;
+import com.example.myspringannotations.Trace;
 import com.example.myspringboot.SpringApplication;
 
 @SpringBootApplication
 @Port(port = 8083)
+@Executor(mode = ExecutorMode.FIXED, size = 4)
+@Engine(value = EngineType.NIO, backlog = 1024)
+@Compression(minSize = 1024)
+@StaticResources(path = "/assets", dir = "src/main/resources/static")
+@Trace(sampleRate = 0.01)
 public class DemoApplication {
 	public static void main(String[] args) {
 		String annotationValue = TestController.class.getAnnotation(MyCustomAnnotation.class).value();
@@ -1,9 +1,14 @@
 package com.example.demo.controller;
 
 import com.example.demo.annotations.MyCustomAnnotation;
+import com.example.demo.model.User;
 import com.example.enums.ClassScope;
+import com.example.myspringannotations.Cacheable;
+import com.example.myspringannotations.MaxConcurrent;
+import com.example.myspringannotations.PathVariable;
 import com.example.myspringannotations.PostMapping;
 import com.example.myspringannotations.PutMapping;
+import com.example.myspringannotations.RateLimit;
 import com.example.myspringannotations.RequestBody;
 import com.example.myspringannotations.RequestMapping;
 import com.example.myspringannotations.GetMapping;
@@ -12,6 +17,9 @@ import com.example.myspringannotations.Scope;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
 import java.util.stream.Collectors;
 
 @MyCustomAnnotation()//value = "new value")
@@ -25,12 +33,49 @@ public class TestController {
         return "Regular mapping is active!";
     }
 
+    @GetMapping(path = "/async")
+    public CompletableFuture<String> asyncGetRequest() {
+
+        return CompletableFuture.supplyAsync(() -> "Async mapping is active!");
+    }
+
+    @GetMapping(path = "/stream")
+    @MaxConcurrent(64)
+    public Flow.Publisher<String> streamRequest(@RequestParam("count") int count) {
+        // items are only produced once the framework subscribed to the publisher
+        return subscriber -> {
+            SubmissionPublisher<String> publisher = new SubmissionPublisher<>();
+            publisher.subscribe(subscriber);
+            CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < count; i++) {
+                    publisher.submit("item " + i);
+                }
+                publisher.close();
+            });
+        };
+    }
+
+    @GetMapping(path = "/{userId}")
+    @Cacheable(ttl = 30, maxEntries = 500)
+    public String getUser(@PathVariable("userId") int userId) {
+
+        return "User: " + userId;
+    }
+
     @PutMapping(path = "/put")
     public void requestWithParams(@RequestParam(value = "userId") String userId, @RequestParam(value = "userId2") String userId2) {
         System.out.println("Save userId: " + userId);
         System.out.println("Save userId2: " + userId2);
     }
 
+    @PostMapping(path = "/create")
+    @RateLimit(permitsPerSecond = 20)
+    public User createUser(@RequestBody(maxBytes = 16 * 1024) User user) {
+        user.setActive(true);
+
+        return user;
+    }
+
     @PostMapping(path = "/post")
     public List<String> getRequest(@RequestParam("intParam") int myInt,
                                    @RequestParam("testParam") String myString,
@@ -0,0 +1,73 @@
+package com.example.demo.model;
+
+import java.util.List;
+
+public class User {
+
+    private long id;
+    private String name;
+    private String email;
+    private boolean active;
+    private double score;
+    private List<String> roles;
+
+    public User() {
+    }
+
+    public User(long id, String name, String email, boolean active, double score, List<String> roles) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.active = active;
+        this.score = score;
+        this.roles = roles;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+
+    public List<String> getRoles() {
+        return roles;
+    }
+
+    public void setRoles(List<String> roles) {
+        this.roles = roles;
+    }
+}